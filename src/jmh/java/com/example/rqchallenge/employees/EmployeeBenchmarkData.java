@@ -0,0 +1,50 @@
+package com.example.rqchallenge.employees;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Class : EmployeeBenchmarkData
+ *
+ * Generated employee records shared by the benchmarks (same records for a given count) :
+ * ids 1..count, 32 x 32 first/last name combinations, salaries spread over 10k..1M, ages 18..67.
+ */
+public final class EmployeeBenchmarkData {
+
+    private static final String[] FIRST_NAMES = {
+            "Tiger", "Garrett", "Ashton", "Cedric", "Airi", "Brielle", "Herrod", "Rhona",
+            "Colleen", "Sonya", "Jena", "Quinn", "Charde", "Haley", "Tatyana", "Michael",
+            "Paul", "Gloria", "Bradley", "Dai", "Jenette", "Yuri", "Caesar", "Doris",
+            "Angelica", "Gavin", "Jennifer", "Brenden", "Fiona", "Shou", "Michelle", "Suki"};
+    private static final String[] LAST_NAMES = {
+            "Nixon", "Winters", "Cox", "Kelly", "Satou", "Williamson", "Chandler", "Davidson",
+            "Hurst", "Frost", "Gaines", "Flynn", "Marshall", "Kennedy", "Fitzpatrick", "Silva",
+            "Byrd", "Little", "Greer", "Rios", "Caldwell", "Berry", "Vance", "Wilder",
+            "Ramos", "Joyce", "Chang", "Wagner", "Green", "Itou", "House", "Burks"};
+
+    private EmployeeBenchmarkData() {
+    }
+
+    public static List<EmployeeDto> employees(int count) {
+        List<EmployeeDto> employees = new ArrayList<>(count);
+
+        for (int i = 1; i <= count; i++)
+            employees.add(new EmployeeDto(String.valueOf(i),
+                    FIRST_NAMES[i % FIRST_NAMES.length] + " " + LAST_NAMES[(i / FIRST_NAMES.length) % LAST_NAMES.length],
+                    String.valueOf(10000 + (i * 7919L) % 990000), String.valueOf(18 + i % 50), ""));
+
+        return employees;
+    }
+
+    // Body of the external API response for all employees
+    public static EmployeeServiceDto<List<EmployeeDto>> employeesResponse(int count) {
+        EmployeeServiceDto<List<EmployeeDto>> response = new EmployeeServiceDto<>();
+        response.setStatus("success");
+        response.setData(employees(count));
+
+        return response;
+    }
+}
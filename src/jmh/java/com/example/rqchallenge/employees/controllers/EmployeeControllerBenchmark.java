@@ -0,0 +1,71 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.EmployeeBenchmarkData;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
+import com.example.rqchallenge.employees.services.EmployeeServiceFixture;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class : EmployeeControllerBenchmark
+ *
+ * EmployeeControllerImpl handlers (service call + ResponseEntity with ETag/Last-Modified)
+ * for 24 (employees.json), 10k and 1M records, served from the cached store, external API stubbed.
+ * Response serialization is not included (see EmployeeJsonMappingBenchmark).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeControllerBenchmark {
+
+    @Param({"24", "10000", "1000000"})
+    public int records;
+
+    private EmployeeControllerImpl controller;
+    private EmployeeQueryDto topSalariesQuery;
+    private String searchString;
+
+    @Setup
+    public void setUp() {
+        EmployeeServiceDto<List<EmployeeDto>> response = EmployeeBenchmarkData.employeesResponse(records);
+
+        searchString = response.getData().get(0).getName();
+        topSalariesQuery = new EmployeeQueryDto(null, null, "salary", "desc", 10);
+        controller = new EmployeeControllerImpl(EmployeeServiceFixture.newEmployeeService(response, Duration.ofDays(1)),
+                new ObjectMapper());
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EmployeeDto>> getAllEmployees() {
+        return controller.getAllEmployees(null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EmployeeDto>> getAllEmployeesTopSalaries() {
+        return controller.getAllEmployees(topSalariesQuery);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<EmployeeDto>> getEmployeesByNameSearch() {
+        return controller.getEmployeesByNameSearch(searchString, null, null);
+    }
+
+    @Benchmark
+    public ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames() {
+        return controller.getTopTenHighestEarningEmployeeNames();
+    }
+}
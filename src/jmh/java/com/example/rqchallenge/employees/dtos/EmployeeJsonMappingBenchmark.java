@@ -0,0 +1,79 @@
+package com.example.rqchallenge.employees.dtos;
+
+import com.example.rqchallenge.employees.EmployeeBenchmarkData;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class : EmployeeJsonMappingBenchmark
+ *
+ * JSON mapping of the external API responses (EmployeeServiceDto -> EmployeeDto) for 24, 10k and 1M records :
+ * - employeesResponse : body of GET /api/v1/employees decoded in one pass into EmployeeServiceDto<List<EmployeeDto>>
+ * - employeeResponse  : body of GET /api/v1/employee/{id}
+ * - writeEmployees    : the list encoded back, as returned by GET /
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeJsonMappingBenchmark {
+
+    @Param({"24", "10000", "1000000"})
+    public int records;
+
+    private ObjectReader employeesReader;
+    private ObjectReader employeeReader;
+    private ObjectWriter employeesWriter;
+    private byte[] employeesJson;
+    private byte[] employeeJson;
+    private List<EmployeeDto> employees;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JavaType employeesType = objectMapper.getTypeFactory().constructParametricType(EmployeeServiceDto.class,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, EmployeeDto.class));
+        JavaType employeeType = objectMapper.getTypeFactory().constructParametricType(EmployeeServiceDto.class, EmployeeDto.class);
+
+        EmployeeServiceDto<List<EmployeeDto>> response = EmployeeBenchmarkData.employeesResponse(records);
+        EmployeeServiceDto<EmployeeDto> singleResponse = new EmployeeServiceDto<>();
+        singleResponse.setStatus("success");
+        singleResponse.setData(response.getData().get(0));
+
+        employees = response.getData();
+        employeesJson = objectMapper.writeValueAsBytes(response);
+        employeeJson = objectMapper.writeValueAsBytes(singleResponse);
+        employeesReader = objectMapper.readerFor(employeesType);
+        employeeReader = objectMapper.readerFor(employeeType);
+        employeesWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, EmployeeDto.class));
+    }
+
+    @Benchmark
+    public EmployeeServiceDto<List<EmployeeDto>> employeesResponse() throws IOException {
+        return employeesReader.readValue(employeesJson);
+    }
+
+    @Benchmark
+    public EmployeeServiceDto<EmployeeDto> employeeResponse() throws IOException {
+        return employeeReader.readValue(employeeJson);
+    }
+
+    @Benchmark
+    public byte[] writeEmployees() throws JsonProcessingException {
+        return employeesWriter.writeValueAsBytes(employees);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.EmployeeBenchmarkData;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class : EmployeeBackupServiceBenchmark
+ *
+ * EmployeeBackupService lookup by id, create and delete for 24 (employees.json), 10k and 1M records
+ * (journal disabled : in-memory store and its indexes only).
+ * A create is measured together with the delete of the same record, so the store keeps its size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeBackupServiceBenchmark {
+
+    private static final int LOOKUP_IDS = 1024;
+
+    @Param({"24", "10000", "1000000"})
+    public int records;
+
+    private EmployeeBackupService backupService;
+    private final String[] lookupIds = new String[LOOKUP_IDS];
+    private int nextLookup;
+
+    @Setup
+    public void setUp() {
+        EmployeeProperties properties = new EmployeeProperties();
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        backupService = new EmployeeBackupService(new DefaultResourceLoader(), objectMapper,
+                new EmployeeFieldsValidator(properties), properties);
+        backupService.loadEmployeeStore();
+        for (EmployeeDto employee : EmployeeBenchmarkData.employees(records))
+            backupService.putEmployee(employee);
+
+        // Random existing ids, so lookups are not served from the same cache lines
+        Random random = new Random(42);
+        for (int i = 0; i < LOOKUP_IDS; i++)
+            lookupIds[i] = String.valueOf(1 + random.nextInt(records));
+    }
+
+    @Benchmark
+    public EmployeeDto getEmployeeByIdSearch() {
+        nextLookup = (nextLookup + 1) & (LOOKUP_IDS - 1);
+        return backupService.getEmployeeByIdSearch(lookupIds[nextLookup]);
+    }
+
+    @Benchmark
+    public EmployeeDto createThenDeleteEmployee() {
+        EmployeeDto createdEmployee = backupService.createNewEmployee(
+                new EmployeeDto("", "Doris Wilder", "85600", "23", ""));
+        backupService.deleteEmployeeById(createdEmployee.getId());
+
+        return createdEmployee;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.employees.EmployeeBenchmarkData;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class : EmployeeServiceBenchmark
+ *
+ * EmployeeService read paths for 24 (employees.json), 10k and 1M records, external API stubbed
+ * (see EmployeeServiceFixture) :
+ * - served from the cached, indexed store (the steady state)
+ * - Uncached : cache disabled, the store is rebuilt from the external API response on every call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EmployeeServiceBenchmark {
+
+    @Param({"24", "10000", "1000000"})
+    public int records;
+
+    private EmployeeService cachedService;
+    private EmployeeService uncachedService;
+    private String searchString;
+
+    @Setup
+    public void setUp() {
+        EmployeeServiceDto<List<EmployeeDto>> response = EmployeeBenchmarkData.employeesResponse(records);
+
+        // Full name of the first record : 1 match per 1024 records
+        searchString = response.getData().get(0).getName();
+        cachedService = EmployeeServiceFixture.newEmployeeService(response, Duration.ofDays(1));
+        uncachedService = EmployeeServiceFixture.newEmployeeService(response, Duration.ZERO);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> getEmployeesByNameSearch() {
+        return cachedService.getEmployeesByNameSearch(searchString);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> getEmployeesBySalaryOrdering() {
+        return cachedService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> getEmployeesByNameSearchUncached() {
+        return uncachedService.getEmployeesByNameSearch(searchString);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
+import com.example.rqchallenge.employees.services.upstream.UpstreamCircuitBreaker;
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
+import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/*
+ * Class : EmployeeServiceFixture
+ *
+ * EmployeeService wired as in the application, without Spring, in front of a stubbed RestTemplate :
+ * the external API answers every call at once with a prebuilt response (no network, no JSON).
+ * The rate limiter and circuit breaker never divert a call, backupService holds employees.json.
+ */
+public final class EmployeeServiceFixture {
+
+    private EmployeeServiceFixture() {
+    }
+
+    // cacheTtl 0 : every call fetches the employees and rebuilds the store, otherwise they are fetched once
+    public static EmployeeService newEmployeeService(EmployeeServiceDto<List<EmployeeDto>> response, Duration cacheTtl) {
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(cacheTtl);
+        properties.getCache().setMaxStale(Duration.ZERO);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        EmployeeFieldsValidator fieldsValidator = new EmployeeFieldsValidator(properties);
+        EmployeeBackupService backupService = new EmployeeBackupService(new DefaultResourceLoader(), objectMapper,
+                fieldsValidator, properties);
+        backupService.loadEmployeeStore();
+
+        return new EmployeeService(fieldsValidator, backupService, new EmployeeCacheService(properties),
+                new StubRestTemplate(response), new UpstreamRateLimiter(Integer.MAX_VALUE, Duration.ofSeconds(1), Duration.ZERO),
+                new UpstreamCircuitBreaker(10, 10, 101, Duration.ZERO, 1),
+                new EmployeeWriteBehindService(properties, objectMapper), new EmployeeMetrics(new SimpleMeterRegistry()),
+                properties);
+    }
+
+    // Every exchange returns response (GET of all employees is the only call the benchmarks make)
+    private static final class StubRestTemplate extends RestTemplate {
+
+        private final EmployeeServiceDto<List<EmployeeDto>> response;
+
+        private StubRestTemplate(EmployeeServiceDto<List<EmployeeDto>> response) {
+            this.response = response;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> ResponseEntity<T> exchange(URI url, HttpMethod method, HttpEntity<?> requestEntity,
+                                              ParameterizedTypeReference<T> responseType) {
+            return (ResponseEntity<T>) ResponseEntity.ok(response);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Class : EmployeeSnapshotBenchmark
+ *
+ * Startup cost of the backup records : JSON file (ObjectMapper) vs binary snapshot (EmployeeSnapshot),
+ * decoding only and decoding + building the indexed EmployeeStore, for 10k/100k/1M records.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EmployeeSnapshotBenchmark {
+
+    private static final TypeReference<List<EmployeeDto>> EMPLOYEES = new TypeReference<List<EmployeeDto>>() {};
+
+    @Param({"10000", "100000", "1000000"})
+    public int records;
+
+    private ObjectMapper objectMapper;
+    private Path directory;
+    private Path jsonFile;
+    private Path snapshotFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        directory = Files.createTempDirectory("employee-snapshot-benchmark");
+        jsonFile = directory.resolve("employees.json");
+        snapshotFile = directory.resolve("snapshot.bin");
+
+        List<EmployeeDto> employees = new ArrayList<>(records);
+        for (int i = 1; i <= records; i++)
+            employees.add(new EmployeeDto(String.valueOf(i), "Employee Name " + i, String.valueOf(10000 + (i * 7919L) % 990000),
+                    String.valueOf(18 + i % 50), ""));
+
+        objectMapper.writeValue(jsonFile.toFile(), employees);
+        EmployeeSnapshot.write(snapshotFile, employees);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(jsonFile);
+        Files.deleteIfExists(snapshotFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> jsonDecode() throws IOException {
+        return objectMapper.readValue(jsonFile.toFile(), EMPLOYEES);
+    }
+
+    @Benchmark
+    public List<EmployeeDto> binaryDecode() throws IOException {
+        return EmployeeSnapshot.read(snapshotFile);
+    }
+
+    @Benchmark
+    public EmployeeStore jsonToStore() throws IOException {
+        return new EmployeeStore(objectMapper.readValue(jsonFile.toFile(), EMPLOYEES));
+    }
+
+    @Benchmark
+    public EmployeeStore binaryToStore() throws IOException {
+        return new EmployeeStore(EmployeeSnapshot.read(snapshotFile));
+    }
+}
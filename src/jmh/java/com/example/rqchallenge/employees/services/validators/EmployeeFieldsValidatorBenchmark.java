@@ -0,0 +1,63 @@
+package com.example.rqchallenge.employees.services.validators;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+ * Class : EmployeeFieldsValidatorBenchmark
+ *
+ * Per-call cost of EmployeeFieldsValidator.isValidEmployeeDto,
+ * compared with the previous implementation (Pattern.compile on every check).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EmployeeFieldsValidatorBenchmark {
+
+    private EmployeeFieldsValidator validator;
+    private EmployeeDto employee;
+    private String id, name, salary, age, image;
+
+    @Setup
+    public void setUp() {
+        validator = new EmployeeFieldsValidator(new EmployeeProperties());
+        employee = new EmployeeDto("24", "Doris Wilder", "85600", "23", "");
+        id = employee.getId();
+        name = employee.getName();
+        salary = employee.getSalary();
+        age = employee.getAge();
+        image = employee.getImage();
+    }
+
+    @Benchmark
+    public boolean isValidEmployeeDto() {
+        return validator.isValidEmployeeDto(employee);
+    }
+
+    // Previous implementation : regex compiled per field, numeric fields validated as strings
+    @Benchmark
+    public boolean isValidEmployeeDtoRegexBaseline() {
+        return regexMatches("^[0-9]+$", id)
+                && regexMatches("^[a-zA-Z0-9 ]+$", name)
+                && regexMatches("^[0-9]+$", salary)
+                && regexMatches("^[0-9]+$", age)
+                && regexMatches("^[a-zA-Z0-9 ]+$", image);
+    }
+
+    private static boolean regexMatches(String regex, String field) {
+        if ((field == null) || field.isEmpty())
+            return true;
+
+        return Pattern.compile(regex).matcher(field).find();
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.rqchallenge.loadtest;
+
+import java.util.Random;
+
+/*
+ * Class : LatencyDistribution
+ *
+ * Response delay added by UpstreamSimulator, parsed from a spec (values in milliseconds) :
+ * - none               : no delay
+ * - fixed:20           : always 20ms
+ * - uniform:5,50       : evenly spread between 5ms and 50ms
+ * - lognormal:20,200   : median 20ms, p99 200ms (long tail, as seen from a remote API)
+ * Samples are capped at 60s.
+ */
+final class LatencyDistribution {
+
+    private static final double P99_Z_SCORE = 2.3263;
+    private static final long MAX_NANOS = 60_000_000_000L;
+
+    private enum Type {
+        NONE,
+        FIXED,
+        UNIFORM,
+        LOGNORMAL
+    }
+
+    private final String spec;
+    private final Type type;
+    private final double first;
+    private final double second;
+
+    private LatencyDistribution(String spec, Type type, double first, double second) {
+        this.spec = spec;
+        this.type = type;
+        this.first = first;
+        this.second = second;
+    }
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":", 2);
+        String[] values = (parts.length < 2) ? new String[0] : parts[1].split(",");
+
+        switch (parts[0]) {
+            case "none":
+                return new LatencyDistribution(spec, Type.NONE, 0, 0);
+            case "fixed":
+                if (values.length == 1)
+                    return new LatencyDistribution(spec, Type.FIXED, millisToNanos(values[0]), 0);
+                break;
+            case "uniform":
+                if ((values.length == 2) && (millisToNanos(values[0]) <= millisToNanos(values[1])))
+                    return new LatencyDistribution(spec, Type.UNIFORM, millisToNanos(values[0]), millisToNanos(values[1]));
+                break;
+            case "lognormal":
+                // sigma chosen so that median * e^(sigma * z99) is the p99
+                if ((values.length == 2) && (millisToNanos(values[0]) > 0) && (millisToNanos(values[0]) <= millisToNanos(values[1])))
+                    return new LatencyDistribution(spec, Type.LOGNORMAL, millisToNanos(values[0]),
+                            Math.log(millisToNanos(values[1]) / millisToNanos(values[0])) / P99_Z_SCORE);
+                break;
+            default:
+                break;
+        }
+
+        throw new IllegalArgumentException("Latency not valid : " + spec
+                + " (none, fixed:<ms>, uniform:<min ms>,<max ms> or lognormal:<median ms>,<p99 ms>)");
+    }
+
+    long sampleNanos(Random random) {
+        double nanos;
+
+        switch (type) {
+            case FIXED:
+                nanos = first;
+                break;
+            case UNIFORM:
+                nanos = first + random.nextDouble() * (second - first);
+                break;
+            case LOGNORMAL:
+                nanos = first * Math.exp(second * random.nextGaussian());
+                break;
+            default:
+                nanos = 0;
+                break;
+        }
+
+        return Math.min(MAX_NANOS, (long) nanos);
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+
+    private static double millisToNanos(String millis) {
+        return Double.parseDouble(millis.trim()) * 1_000_000;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.rqchallenge.loadtest;
+
+/*
+ * Class : LatencyHistogram
+ *
+ * Fixed-size log-linear histogram of latencies in microseconds (values up to ~2^62) :
+ * values below 64 have their own bucket, above that every power of two is split in 32 buckets,
+ * so a percentile is off by less than 1/32 (~3%) whatever the range. Recording is an array increment,
+ * one histogram per worker thread, merged for the report. Not thread-safe.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 64;
+    private static final int SUB_BUCKETS = 32;
+    private final long[] counts = new long[LINEAR_BUCKETS + (58 * SUB_BUCKETS)];
+    private long count;
+    private long max;
+
+    void record(long micros) {
+        long value = Math.max(0, micros);
+
+        counts[index(value)]++;
+        count++;
+        max = Math.max(max, value);
+    }
+
+    void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++)
+            counts[i] += other.counts[i];
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getMax() {
+        return max;
+    }
+
+    // Smallest recorded value (bucket middle) such that percentile % of the values are at or below it
+    long valueAtPercentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return Math.min(max, bucketMiddle(i));
+        }
+
+        return max;
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR_BUCKETS)
+            return (int) value;
+
+        // value >> shift is in [32, 63]
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return LINEAR_BUCKETS + ((shift - 1) * SUB_BUCKETS) + (int) ((value >> shift) - SUB_BUCKETS);
+    }
+
+    private static long bucketMiddle(int index) {
+        if (index < LINEAR_BUCKETS)
+            return index;
+
+        int shift = ((index - LINEAR_BUCKETS) / SUB_BUCKETS) + 1;
+        long lowest = ((long) (((index - LINEAR_BUCKETS) % SUB_BUCKETS) + SUB_BUCKETS)) << shift;
+        return lowest + ((1L << shift) >> 1);
+    }
+}
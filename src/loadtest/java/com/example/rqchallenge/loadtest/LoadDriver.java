@@ -0,0 +1,307 @@
+package com.example.rqchallenge.loadtest;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Class : LoadDriver
+ *
+ * Closed-loop HTTP load on the seven EmployeeController endpoints of a running application :
+ * concurrency workers send requests back to back for duration (after warmup, which is not reported),
+ * each picking an operation from the weighted mix. Reports per operation and in total :
+ * throughput, latency percentiles (p50/p90/p99/p999/max) and responses by status class.
+ * When /actuator/prometheus is exposed, the fallback and external API call counters are
+ * reported as well (difference between start and end of the run).
+ * ./gradlew loadTest --args='--target=http://localhost:8080 --concurrency=64 --duration=60s
+ *                            --mix=all:5,search:25,id:30,highest:10,top:10,create:10,delete:10'
+ * --ids : lookups pick an id in 1..ids (records of the external API / UpstreamSimulator)
+ */
+public class LoadDriver {
+
+    private static final String API = "/api/v1/employees";
+    private static final String[] NAMES = {"Nixon", "Winters", "Tiger", "Garrett", "Cox", "Kelly", "Doris", "Wilder"};
+    private static final String[] METER_PREFIXES = {"employees_fallbacks_total", "employees_upstream_calls_seconds_count"};
+
+    enum Operation {
+        ALL("all"),
+        SEARCH("search"),
+        ID("id"),
+        HIGHEST("highest"),
+        TOP("top"),
+        CREATE("create"),
+        DELETE("delete");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+    }
+
+    private final String target;
+    private final int concurrency;
+    private final Duration duration;
+    private final Duration warmup;
+    private final int ids;
+    private final Operation[] weightedOperations;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<String> createdIds = new ConcurrentLinkedQueue<>();
+
+    LoadDriver(LoadTestArguments arguments) {
+        this.target = arguments.getString("target", "http://localhost:8080");
+        this.concurrency = arguments.getInt("concurrency", 32);
+        this.duration = arguments.getDuration("duration", Duration.ofSeconds(60));
+        this.warmup = arguments.getDuration("warmup", Duration.ofSeconds(10));
+        this.ids = arguments.getInt("ids", 24);
+        this.weightedOperations = parseMix(arguments.getString("mix", "all:5,search:25,id:30,highest:10,top:10,create:10,delete:10"));
+        this.requestTimeout = arguments.getDuration("timeout", Duration.ofSeconds(30));
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver(new LoadTestArguments(args)).run();
+    }
+
+    void run() throws InterruptedException {
+        Map<String, Double> metersBefore = scrapeMeters();
+        long startNanos = System.nanoTime();
+        long measureFromNanos = startNanos + warmup.toNanos();
+        long endNanos = measureFromNanos + duration.toNanos();
+
+        System.out.println("Load : " + concurrency + " workers on " + target + ", warmup " + warmup + ", duration " + duration);
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(measureFromNanos, endNanos);
+            worker.setName("load-driver-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        Map<Operation, Stats> total = new EnumMap<>(Operation.class);
+        for (Worker worker : workers) {
+            worker.join();
+            worker.stats.forEach((operation, stats) -> total.computeIfAbsent(operation, key -> new Stats()).merge(stats));
+        }
+
+        report(total, duration.toNanos() / 1e9);
+        reportMeters(metersBefore, scrapeMeters());
+    }
+
+    // Sends one request, returns the status code (-1 : no response)
+    private int send(Operation operation, Random random) {
+        try {
+            HttpResponse<String> response = httpClient.send(request(operation, random), HttpResponse.BodyHandlers.ofString());
+            // create answers 201 Created (any 2xx holds the created record)
+            if ((operation == Operation.CREATE) && (response.statusCode() / 100 == 2))
+                createdIds.add(objectMapper.readValue(response.body(), EmployeeDto.class).getId());
+
+            return response.statusCode();
+        } catch (IOException ioException) {
+            return -1;
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private HttpRequest request(Operation operation, Random random) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(requestTimeout);
+
+        switch (operation) {
+            case ALL:
+                return builder.uri(URI.create(target + API)).GET().build();
+            case SEARCH:
+                return builder.uri(URI.create(target + API + "/search/" + NAMES[random.nextInt(NAMES.length)])).GET().build();
+            case ID:
+                return builder.uri(URI.create(target + API + "/" + (1 + random.nextInt(ids)))).GET().build();
+            case HIGHEST:
+                return builder.uri(URI.create(target + API + "/highestSalary")).GET().build();
+            case TOP:
+                return builder.uri(URI.create(target + API + "/topTenHighestEarningEmployeeNames")).GET().build();
+            case CREATE:
+                String body = "{\"employee_name\":\"Load Test\",\"employee_salary\":\"" + (1000 + random.nextInt(100_000))
+                        + "\",\"employee_age\":\"" + (18 + random.nextInt(50)) + "\",\"profile_image\":\"\"}";
+                return builder.uri(URI.create(target + API)).header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            default:
+                // Deletes the employees created by the run first
+                String id = createdIds.poll();
+                return builder.uri(URI.create(target + API + "/" + ((id != null) ? id : String.valueOf(1 + random.nextInt(ids)))))
+                        .DELETE().build();
+        }
+    }
+
+    private static void report(Map<Operation, Stats> statsByOperation, double seconds) {
+        Stats total = new Stats();
+        statsByOperation.values().forEach(total::merge);
+
+        System.out.println(String.format(Locale.ROOT, "%-8s %9s %10s %9s %9s %9s %9s %9s %8s %6s %6s %6s %7s",
+                "op", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p999 ms", "max ms", "2xx/3xx", "4xx", "5xx", "429", "errors"));
+        for (Operation operation : Operation.values()) {
+            Stats stats = statsByOperation.get(operation);
+            if (stats != null)
+                System.out.println(stats.format(operation.key, seconds));
+        }
+        System.out.println(total.format("total", seconds));
+    }
+
+    // Counters of the application meters (one per tag set), empty when /actuator/prometheus is not exposed
+    private Map<String, Double> scrapeMeters() {
+        Map<String, Double> meters = new LinkedHashMap<>();
+
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(target + "/actuator/prometheus"))
+                    .timeout(requestTimeout).GET().build(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+                return meters;
+
+            for (String line : response.body().split("\n")) {
+                for (String prefix : METER_PREFIXES) {
+                    int separator = line.lastIndexOf(' ');
+                    if (line.startsWith(prefix) && (separator > 0))
+                        meters.put(line.substring(0, separator), Double.parseDouble(line.substring(separator + 1)));
+                }
+            }
+        } catch (IOException | NumberFormatException exception) {
+            System.out.println("Meters not available : " + exception.getMessage());
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        }
+
+        return meters;
+    }
+
+    private static void reportMeters(Map<String, Double> before, Map<String, Double> after) {
+        after.forEach((meter, value) -> {
+            double delta = value - before.getOrDefault(meter, 0.0);
+            if (delta > 0)
+                System.out.println(String.format(Locale.ROOT, "%-110s %10.0f", meter, delta));
+        });
+    }
+
+    // mix : operation:weight pairs, e.g. search:50,id:50
+    private static Operation[] parseMix(String mix) {
+        List<Operation> weighted = new ArrayList<>();
+
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split(":");
+            Operation operation = null;
+            for (Operation candidate : Operation.values()) {
+                if (candidate.key.equals(parts[0]))
+                    operation = candidate;
+            }
+            if ((operation == null) || (parts.length != 2))
+                throw new IllegalArgumentException("Mix not valid : " + entry + " (operation:weight, operations : all, search, id, highest, top, create, delete)");
+
+            for (int i = Integer.parseInt(parts[1]); i > 0; i--)
+                weighted.add(operation);
+        }
+        if (weighted.isEmpty())
+            throw new IllegalArgumentException("Mix not valid : " + mix + " (no operation has a weight)");
+
+        return weighted.toArray(new Operation[0]);
+    }
+
+    /*
+     * Class : Worker
+     *
+     * Sends requests back to back until endNanos, only the ones started after measureFromNanos are recorded
+     */
+    private final class Worker extends Thread {
+
+        private final long measureFromNanos;
+        private final long endNanos;
+        private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+        private Worker(long measureFromNanos, long endNanos) {
+            this.measureFromNanos = measureFromNanos;
+            this.endNanos = endNanos;
+        }
+
+        @Override
+        public void run() {
+            Random random = ThreadLocalRandom.current();
+
+            for (long now = System.nanoTime(); now < endNanos; now = System.nanoTime()) {
+                Operation operation = weightedOperations[random.nextInt(weightedOperations.length)];
+                int status = send(operation, random);
+                long latencyNanos = System.nanoTime() - now;
+
+                if (now >= measureFromNanos)
+                    stats.computeIfAbsent(operation, key -> new Stats()).record(status, latencyNanos);
+            }
+        }
+    }
+
+    /*
+     * Class : Stats
+     *
+     * Latencies and responses by status class of one operation
+     */
+    private static final class Stats {
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private long success;
+        private long clientErrors;
+        private long serverErrors;
+        private long tooManyRequests;
+        private long errors;
+
+        private void record(int status, long latencyNanos) {
+            latencies.record(latencyNanos / 1000);
+            if (status < 0)
+                errors++;
+            else if (status == 429)
+                tooManyRequests++;
+            else if (status >= 500)
+                serverErrors++;
+            else if (status >= 400)
+                clientErrors++;
+            else
+                success++;
+        }
+
+        private void merge(Stats other) {
+            latencies.merge(other.latencies);
+            success += other.success;
+            clientErrors += other.clientErrors;
+            serverErrors += other.serverErrors;
+            tooManyRequests += other.tooManyRequests;
+            errors += other.errors;
+        }
+
+        private String format(String name, double seconds) {
+            return String.format(Locale.ROOT, "%-8s %9d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %6d %6d %6d %7d",
+                    name, latencies.getCount(), latencies.getCount() / seconds,
+                    millis(latencies.valueAtPercentile(50)), millis(latencies.valueAtPercentile(90)),
+                    millis(latencies.valueAtPercentile(99)), millis(latencies.valueAtPercentile(99.9)), millis(latencies.getMax()),
+                    success, clientErrors, serverErrors, tooManyRequests, errors);
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.rqchallenge.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Class : LoadTestArguments
+ *
+ * Command line options of the load-test tools : --name=value (a flag without value is "true").
+ * Durations are written as in application.properties (500ms, 10s, 5m).
+ */
+final class LoadTestArguments {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    LoadTestArguments(String[] args) {
+        for (String arg : args) {
+            if (!arg.startsWith("--"))
+                throw new IllegalArgumentException("Option not valid : " + arg + " (expected --name=value)");
+
+            int separator = arg.indexOf('=');
+            if (separator < 0)
+                values.put(arg.substring(2), "true");
+            else
+                values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+    }
+
+    String getString(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+
+        return (value == null) ? defaultValue : Integer.parseInt(value);
+    }
+
+    double getDouble(String name, double defaultValue) {
+        String value = values.get(name);
+
+        return (value == null) ? defaultValue : Double.parseDouble(value);
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+        String value = values.get(name);
+
+        return (value == null) ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    Duration getDuration(String name, Duration defaultValue) {
+        String value = values.get(name);
+
+        return (value == null) ? defaultValue : parseDuration(value);
+    }
+
+    // 250ms, 10s, 5m, 1h (a number without unit is in milliseconds)
+    static Duration parseDuration(String value) {
+        String trimmed = value.trim();
+
+        if (trimmed.endsWith("ms"))
+            return Duration.ofMillis(Long.parseLong(trimmed.substring(0, trimmed.length() - 2)));
+        if (trimmed.endsWith("s"))
+            return Duration.ofSeconds(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        if (trimmed.endsWith("m"))
+            return Duration.ofMinutes(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+        if (trimmed.endsWith("h"))
+            return Duration.ofHours(Long.parseLong(trimmed.substring(0, trimmed.length() - 1)));
+
+        return Duration.ofMillis(Long.parseLong(trimmed));
+    }
+}
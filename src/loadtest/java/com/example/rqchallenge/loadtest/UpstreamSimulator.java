@@ -0,0 +1,406 @@
+package com.example.rqchallenge.loadtest;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Class : UpstreamSimulator
+ *
+ * Local stand-in for the external API (dummy.restapiexample.com), same paths and JSON :
+ * GET /api/v1/employees, GET /api/v1/employee/{id}, POST /api/v1/create, DELETE /api/v1/delete/{id}.
+ * - records         : synthetic data set (names combined from employees.json), ids 1..records
+ * - latency         : delay added to every answered request (see LatencyDistribution)
+ * - rate-limit      : token bucket, e.g. 1/60s as the real API, 0 = unlimited ; over the limit : 429 + Retry-After
+ * - error-rate      : fraction of requests answered with error-status (5xx injection)
+ * - persist-writes  : creates/deletes change the data set (the real API only acknowledges them)
+ * Unknown ids get 200 with "data": null, as the real API.
+ * Embeddable (new UpstreamSimulator(options).start(), close()) or run as a separate JVM :
+ * ./gradlew upstreamSimulator --args='--port=9090 --records=1000000 --latency=lognormal:20,200'
+ * then start the application with --employees.upstream.base-url=http://localhost:9090
+ */
+public class UpstreamSimulator implements AutoCloseable {
+
+    private static final Logger log = LogManager.getLogger(UpstreamSimulator.class);
+    private static final String API = "/api/v1/";
+    private final Options options;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentSkipListMap<Long, EmployeeDto> employees = new ConcurrentSkipListMap<>();
+    private final AtomicLong lastId = new AtomicLong();
+    private final TokenBucket rateLimiter;
+    private volatile byte[] allEmployeesResponse;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    public UpstreamSimulator(Options options) {
+        this.options = options;
+        this.rateLimiter = (options.getRateLimitRequests() > 0)
+                ? new TokenBucket(options.getRateLimitRequests(), options.getRateLimitPeriod()) : null;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestArguments arguments = new LoadTestArguments(args);
+        Options options = new Options()
+                .setPort(arguments.getInt("port", 9090))
+                .setRecords(arguments.getInt("records", 100_000))
+                .setLatency(arguments.getString("latency", "lognormal:20,200"))
+                .setRateLimit(arguments.getString("rate-limit", "0"))
+                .setErrorRate(arguments.getDouble("error-rate", 0))
+                .setErrorStatus(arguments.getInt("error-status", 503))
+                .setThreads(arguments.getInt("threads", 200))
+                .setPersistWrites(arguments.getBoolean("persist-writes", false));
+
+        UpstreamSimulator simulator = new UpstreamSimulator(options).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        new CountDownLatch(1).await();
+    }
+
+    // Generates the data set and starts answering on options.port (0 : any free port, see getPort)
+    public UpstreamSimulator start() throws IOException {
+        String fcn = "start:";
+
+        generateEmployees();
+        allEmployeesResponse = toResponse(new ArrayList<>(employees.values()), "Successfully! All records has been fetched.");
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        serverExecutor = Executors.newFixedThreadPool(options.getThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "upstream-simulator-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // headers and body are written separately, Nagle + delayed ACK would add ~40 ms to small responses
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(options.getPort()), 1024);
+        server.createContext(API, this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        log.info("{}http://localhost:{} : {} records, latency {}, rate-limit {}/{}, error-rate {}", fcn, getPort(), employees.size(),
+                options.getLatency(), options.getRateLimitRequests(), options.getRateLimitPeriod(), options.getErrorRate());
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null)
+            server.stop(0);
+        if (serverExecutor != null)
+            serverExecutor.shutdownNow();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public String getBaseUrl() {
+        return "http://localhost:" + getPort();
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    // Requests answered with 429
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    // Requests answered with error-status
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String fcn = "handle:";
+        requests.increment();
+
+        try {
+            if ((rateLimiter != null) && !rateLimiter.tryAcquire()) {
+                throttled.increment();
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(rateLimiter.getRetryAfterSeconds()));
+                send(exchange, 429, toError("Too Many Attempts."));
+                return;
+            }
+
+            Random random = ThreadLocalRandom.current();
+            TimeUnit.NANOSECONDS.sleep(options.getLatency().sampleNanos(random));
+            if (random.nextDouble() < options.getErrorRate()) {
+                injectedErrors.increment();
+                send(exchange, options.getErrorStatus(), toError("Injected error"));
+                return;
+            }
+
+            route(exchange);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException exception) {
+            log.error("{}{} {}", fcn, exchange.getRequestMethod(), exchange.getRequestURI(), exception);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(API.length());
+
+        if (method.equals("GET") && path.equals("employees")) {
+            send(exchange, 200, allEmployeesResponse);
+        } else if (method.equals("GET") && path.startsWith("employee/")) {
+            EmployeeDto employee = employees.get(parseId(path.substring("employee/".length())));
+            send(exchange, 200, toResponse(employee, "Successfully! Record has been fetched."));
+        } else if (method.equals("POST") && path.equals("create")) {
+            send(exchange, 200, toResponse(create(exchange.getRequestBody()), "Successfully! Record has been added."));
+        } else if (method.equals("DELETE") && path.startsWith("delete/")) {
+            String id = path.substring("delete/".length());
+            if (options.isPersistWrites() && (employees.remove(parseId(id)) != null))
+                refreshAllEmployeesResponse();
+            send(exchange, 200, toResponse(id, "Successfully! Record has been deleted"));
+        } else {
+            send(exchange, 404, toError("Not Found"));
+        }
+    }
+
+    private EmployeeDto create(InputStream body) throws IOException {
+        EmployeeDto employee = objectMapper.readValue(body, EmployeeDto.class);
+
+        employee.setIdValue(lastId.incrementAndGet());
+        if (options.isPersistWrites()) {
+            employees.put(employee.getIdValue(), employee);
+            refreshAllEmployeesResponse();
+        }
+
+        return employee;
+    }
+
+    // The list response is encoded once per change, not per request
+    private synchronized void refreshAllEmployeesResponse() throws IOException {
+        allEmployeesResponse = toResponse(new ArrayList<>(employees.values()), "Successfully! All records has been fetched.");
+    }
+
+    // Names combined from the first/last names of employees.json, salaries and ages spread deterministically
+    private void generateEmployees() throws IOException {
+        List<EmployeeDto> seed;
+        try (InputStream inputStream = UpstreamSimulator.class.getResourceAsStream("/employees.json")) {
+            if (inputStream == null)
+                throw new IOException("employees.json not found on the classpath");
+            seed = objectMapper.readValue(inputStream, new TypeReference<List<EmployeeDto>>() {});
+        }
+
+        List<String> firstNames = new ArrayList<>();
+        List<String> lastNames = new ArrayList<>();
+        for (EmployeeDto employee : seed) {
+            String[] names = employee.getName().split(" ", 2);
+            firstNames.add(names[0]);
+            lastNames.add((names.length > 1) ? names[1] : names[0]);
+        }
+
+        for (long id = 1; id <= options.getRecords(); id++) {
+            String name = firstNames.get((int) (id % firstNames.size())) + " "
+                    + lastNames.get((int) ((id / firstNames.size()) % lastNames.size()));
+            employees.put(id, new EmployeeDto(String.valueOf(id), name, String.valueOf(10_000 + (id * 7919) % 990_000),
+                    String.valueOf(18 + id % 50), ""));
+        }
+        lastId.set(options.getRecords());
+    }
+
+    private <T> byte[] toResponse(T data, String message) throws IOException {
+        EmployeeServiceDto<T> response = new EmployeeServiceDto<>();
+        response.setStatus("success");
+        response.setData(data);
+        response.setMessage(message);
+
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private byte[] toError(String message) throws IOException {
+        EmployeeServiceDto<Object> response = new EmployeeServiceDto<>();
+        response.setStatus("error");
+        response.setMessage(message);
+
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException numberFormatException) {
+            return -1;
+        }
+    }
+
+    /*
+     * Class : TokenBucket
+     *
+     * requests per period, starts full, never waits
+     */
+    private static final class TokenBucket {
+
+        private final int capacity;
+        private final long refillNanos;
+        private long tokens;
+        private long lastRefill = System.nanoTime();
+
+        private TokenBucket(int requests, Duration period) {
+            this.capacity = requests;
+            this.refillNanos = Math.max(1, period.toNanos() / requests);
+            this.tokens = requests;
+        }
+
+        private synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            long earned = (now - lastRefill) / refillNanos;
+
+            if (earned > 0) {
+                tokens = Math.min(capacity, tokens + earned);
+                lastRefill = (tokens == capacity) ? now : lastRefill + (earned * refillNanos);
+            }
+            if (tokens == 0)
+                return false;
+
+            tokens--;
+            return true;
+        }
+
+        // Time until the next token, rounded up to whole seconds
+        private synchronized long getRetryAfterSeconds() {
+            long wait = Math.max(0, lastRefill + refillNanos - System.nanoTime());
+
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L));
+        }
+    }
+
+    /*
+     * Class : Options
+     *
+     * Simulator settings (see the class comment for their meaning)
+     */
+    public static final class Options {
+
+        private int port = 9090;
+        private int records = 100_000;
+        private LatencyDistribution latency = LatencyDistribution.parse("none");
+        private int rateLimitRequests = 0;
+        private Duration rateLimitPeriod = Duration.ofSeconds(1);
+        private double errorRate = 0;
+        private int errorStatus = 503;
+        private int threads = 200;
+        private boolean persistWrites = false;
+
+        public int getPort() {
+            return port;
+        }
+
+        public Options setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        public int getRecords() {
+            return records;
+        }
+
+        public Options setRecords(int records) {
+            this.records = records;
+            return this;
+        }
+
+        LatencyDistribution getLatency() {
+            return latency;
+        }
+
+        // latency spec, see LatencyDistribution
+        public Options setLatency(String latency) {
+            this.latency = LatencyDistribution.parse(latency);
+            return this;
+        }
+
+        public int getRateLimitRequests() {
+            return rateLimitRequests;
+        }
+
+        public Duration getRateLimitPeriod() {
+            return rateLimitPeriod;
+        }
+
+        // requests/period, e.g. 1/60s, 500/1s ; 0 : unlimited
+        public Options setRateLimit(String rateLimit) {
+            String[] parts = rateLimit.trim().split("/", 2);
+
+            this.rateLimitRequests = Integer.parseInt(parts[0]);
+            this.rateLimitPeriod = (parts.length > 1) ? LoadTestArguments.parseDuration(parts[1]) : Duration.ofSeconds(1);
+            return this;
+        }
+
+        public double getErrorRate() {
+            return errorRate;
+        }
+
+        public Options setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public int getErrorStatus() {
+            return errorStatus;
+        }
+
+        public Options setErrorStatus(int errorStatus) {
+            this.errorStatus = errorStatus;
+            return this;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public Options setThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public boolean isPersistWrites() {
+            return persistWrites;
+        }
+
+        public Options setPersistWrites(boolean persistWrites) {
+            this.persistWrites = persistWrites;
+            return this;
+        }
+    }
+}
@@ -1,8 +1,23 @@
 package com.example.rqchallenge;
 
+import io.netty.channel.ChannelOption;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.TimeUnit;
 
 /*
  * Class : AppConfig
@@ -10,10 +25,64 @@ import org.springframework.web.client.RestTemplate;
  * Used to define Beans required by the SpringBoot Application.
  */
 @Configuration
+@EnableConfigurationProperties(EmployeeProperties.class)
 public class AppConfig {
 
+    // Connection pool of the external API client (see employees.upstream.*)
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager upstreamConnectionManager(EmployeeProperties properties) {
+        EmployeeProperties.Upstream upstream = properties.getUpstream();
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+
+        connectionManager.setMaxTotal(upstream.getMaxConnectionsTotal());
+        connectionManager.setDefaultMaxPerRoute(upstream.getMaxConnectionsPerRoute());
+        // Re-validate connections idle for a while before reusing them
+        connectionManager.setValidateAfterInactivity(1000);
+
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient upstreamHttpClient(PoolingHttpClientConnectionManager upstreamConnectionManager,
+                                                  EmployeeProperties properties) {
+        EmployeeProperties.Upstream upstream = properties.getUpstream();
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) upstream.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) upstream.getReadTimeout().toMillis())
+                .setConnectionRequestTimeout((int) upstream.getAcquireTimeout().toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(upstream.getIdleEviction().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient upstreamHttpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(upstreamHttpClient))
+                .build();
+    }
+
+    // Non-blocking client of the external API (employees.api.mode=async), same pool limits and timeouts
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    @ConditionalOnProperty(prefix = "employees.api", name = "mode", havingValue = "async")
+    public WebClient upstreamWebClient(WebClient.Builder webClientBuilder, EmployeeProperties properties) {
+        EmployeeProperties.Upstream upstream = properties.getUpstream();
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("upstream")
+                .maxConnections(upstream.getMaxConnectionsTotal())
+                .pendingAcquireTimeout(upstream.getAcquireTimeout())
+                .maxIdleTime(upstream.getIdleEviction())
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) upstream.getConnectTimeout().toMillis())
+                .responseTimeout(upstream.getReadTimeout());
+
+        return webClientBuilder
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
     }
 }
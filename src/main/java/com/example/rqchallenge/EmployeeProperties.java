@@ -0,0 +1,582 @@
+package com.example.rqchallenge;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/*
+ * Class : EmployeeProperties
+ *
+ * Binds the "employees.*" properties from application.properties.
+ * Defaults are chosen for the rate-limited external API (~1 request per minute).
+ */
+@ConfigurationProperties(prefix = "employees")
+public class EmployeeProperties {
+
+    private final Api api = new Api();
+
+    private final Cache cache = new Cache();
+
+    private final Upstream upstream = new Upstream();
+
+    private final RateLimit rateLimit = new RateLimit();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final Backup backup = new Backup();
+
+    private final Reconcile reconcile = new Reconcile();
+
+    private final Stats stats = new Stats();
+
+    private final Validation validation = new Validation();
+
+    public Api getApi() {
+        return api;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public Upstream getUpstream() {
+        return upstream;
+    }
+
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public WriteBehind getWriteBehind() {
+        return writeBehind;
+    }
+
+    public Backup getBackup() {
+        return backup;
+    }
+
+    public Reconcile getReconcile() {
+        return reconcile;
+    }
+
+    public Stats getStats() {
+        return stats;
+    }
+
+    public Validation getValidation() {
+        return validation;
+    }
+
+    /*
+     * employees.api.*
+     *
+     * mode : blocking (servlet thread per request, RestTemplate)
+     *        async    (CompletableFuture responses, non-blocking WebClient)
+     */
+    public static class Api {
+
+        private String mode = "blocking";
+
+        public String getMode() {
+            return mode;
+        }
+
+        public void setMode(String mode) {
+            this.mode = mode;
+        }
+    }
+
+    /*
+     * employees.cache.*
+     *
+     * ttl       : how long an upstream response is served without refreshing it
+     * max-stale : how long after ttl the last good response is still served
+     *             while a single background refresh runs
+     */
+    public static class Cache {
+
+        private Duration ttl = Duration.ofSeconds(60);
+
+        private Duration maxStale = Duration.ofMinutes(10);
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public Duration getMaxStale() {
+            return maxStale;
+        }
+
+        public void setMaxStale(Duration maxStale) {
+            this.maxStale = maxStale;
+        }
+    }
+
+    /*
+     * employees.upstream.*
+     *
+     * HTTP client used for the external API (pooled, keep-alive connections)
+     * base-url        : external API root, e.g. a local UpstreamSimulator for load tests
+     * acquire-timeout : max wait for a free connection of the pool
+     * idle-eviction   : pooled connections idle for longer are closed
+     */
+    public static class Upstream {
+
+        private String baseUrl = "https://dummy.restapiexample.com";
+
+        private int maxConnectionsPerRoute = 20;
+
+        private int maxConnectionsTotal = 50;
+
+        private Duration connectTimeout = Duration.ofSeconds(2);
+
+        private Duration readTimeout = Duration.ofSeconds(5);
+
+        private Duration acquireTimeout = Duration.ofSeconds(1);
+
+        private Duration idleEviction = Duration.ofSeconds(30);
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        public void setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public int getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public int getMaxConnectionsTotal() {
+            return maxConnectionsTotal;
+        }
+
+        public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+            this.maxConnectionsTotal = maxConnectionsTotal;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getAcquireTimeout() {
+            return acquireTimeout;
+        }
+
+        public void setAcquireTimeout(Duration acquireTimeout) {
+            this.acquireTimeout = acquireTimeout;
+        }
+
+        public Duration getIdleEviction() {
+            return idleEviction;
+        }
+
+        public void setIdleEviction(Duration idleEviction) {
+            this.idleEviction = idleEviction;
+        }
+    }
+
+    /*
+     * employees.rate-limit.*
+     *
+     * Token bucket in front of the external API calls
+     * requests       : calls allowed per period (also the burst size)
+     * period         : time needed to refill the bucket
+     * write-max-wait : how long a create/delete waits for a token, reads never wait
+     */
+    public static class RateLimit {
+
+        private int requests = 1;
+
+        private Duration period = Duration.ofMinutes(1);
+
+        private Duration writeMaxWait = Duration.ofSeconds(2);
+
+        public int getRequests() {
+            return requests;
+        }
+
+        public void setRequests(int requests) {
+            this.requests = requests;
+        }
+
+        public Duration getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Duration period) {
+            this.period = period;
+        }
+
+        public Duration getWriteMaxWait() {
+            return writeMaxWait;
+        }
+
+        public void setWriteMaxWait(Duration writeMaxWait) {
+            this.writeMaxWait = writeMaxWait;
+        }
+    }
+
+    /*
+     * employees.circuit-breaker.*
+     *
+     * Circuit breaker in front of the external API calls
+     * window-size            : number of last calls the failure rate is computed on
+     * minimum-calls          : calls recorded before the failure rate is evaluated
+     * failure-rate-threshold : failure rate (%) opening the circuit
+     * open-duration          : how long calls go straight to backupService once open
+     * half-open-probes       : calls sent to test the external API before closing again
+     */
+    public static class CircuitBreaker {
+
+        private int windowSize = 20;
+
+        private int minimumCalls = 5;
+
+        private int failureRateThreshold = 50;
+
+        private Duration openDuration = Duration.ofSeconds(30);
+
+        private int halfOpenProbes = 1;
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Duration getOpenDuration() {
+            return openDuration;
+        }
+
+        public void setOpenDuration(Duration openDuration) {
+            this.openDuration = openDuration;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+    }
+
+    /*
+     * employees.write-behind.*
+     *
+     * When enabled, creates/deletes are applied locally and acknowledged right away,
+     * a background worker sends them to the external API
+     * queue-file        : log of the queue changes, pending writes are kept across restarts
+     * sync-interval     : logged changes are fsync'ed together at this interval (0 : every change is fsync'ed)
+     * compact-threshold : logged changes after which the log is rewritten with the pending writes only
+     * drain-interval    : delay between two runs of the worker
+     * batch-size        : max writes sent per run
+     * initial-backoff   : delay before retrying a failed write, doubled up to max-backoff
+     */
+    public static class WriteBehind {
+
+        private boolean enabled = false;
+
+        private String queueFile = "write-behind-queue.log";
+
+        private Duration syncInterval = Duration.ofMillis(100);
+
+        private int compactThreshold = 1000;
+
+        private Duration drainInterval = Duration.ofSeconds(1);
+
+        private int batchSize = 10;
+
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        private Duration maxBackoff = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getQueueFile() {
+            return queueFile;
+        }
+
+        public void setQueueFile(String queueFile) {
+            this.queueFile = queueFile;
+        }
+
+        public Duration getSyncInterval() {
+            return syncInterval;
+        }
+
+        public void setSyncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+        }
+
+        public int getCompactThreshold() {
+            return compactThreshold;
+        }
+
+        public void setCompactThreshold(int compactThreshold) {
+            this.compactThreshold = compactThreshold;
+        }
+
+        public Duration getDrainInterval() {
+            return drainInterval;
+        }
+
+        public void setDrainInterval(Duration drainInterval) {
+            this.drainInterval = drainInterval;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Duration getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        public void setInitialBackoff(Duration initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+
+    /*
+     * employees.backup.*
+     *
+     * When enabled, the backup records (used while the external API is unavailable) survive restarts
+     * directory         : holds the journal (log of creates/deletes) and its last snapshot,
+     *                     employees.json only seeds the first start
+     * sync-interval     : logged writes are fsync'ed together at this interval (0 : every write is fsync'ed)
+     * compact-threshold : logged writes after which a new snapshot is written and the log truncated
+     */
+    public static class Backup {
+
+        private boolean enabled = false;
+
+        private String directory = "backup-data";
+
+        private Duration syncInterval = Duration.ofMillis(100);
+
+        private int compactThreshold = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getSyncInterval() {
+            return syncInterval;
+        }
+
+        public void setSyncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+        }
+
+        public int getCompactThreshold() {
+            return compactThreshold;
+        }
+
+        public void setCompactThreshold(int compactThreshold) {
+            this.compactThreshold = compactThreshold;
+        }
+    }
+
+    /*
+     * employees.reconcile.*
+     *
+     * When enabled, the employees list is pulled from the external API every interval (one READ token,
+     * skipped when the rate limit/circuit breaker does not allow it) and only its difference with the
+     * local records is applied to the cached and backup stores
+     */
+    public static class Reconcile {
+
+        private boolean enabled = false;
+
+        private Duration interval = Duration.ofMinutes(5);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
+
+    /*
+     * employees.stats.*
+     *
+     * Histogram bucket widths of GET /employees/stats (salary width is rounded up to a multiple of 1000)
+     */
+    public static class Stats {
+
+        private long salaryBucketWidth = 10_000;
+
+        private int ageBucketWidth = 10;
+
+        public long getSalaryBucketWidth() {
+            return salaryBucketWidth;
+        }
+
+        public void setSalaryBucketWidth(long salaryBucketWidth) {
+            this.salaryBucketWidth = salaryBucketWidth;
+        }
+
+        public int getAgeBucketWidth() {
+            return ageBucketWidth;
+        }
+
+        public void setAgeBucketWidth(int ageBucketWidth) {
+            this.ageBucketWidth = ageBucketWidth;
+        }
+    }
+
+    /*
+     * employees.validation.*
+     *
+     * Per-field limits applied by EmployeeFieldsValidator (missing fields are accepted)
+     */
+    public static class Validation {
+
+        private int nameMaxLength = 100;
+
+        private int imageMaxLength = 255;
+
+        private long salaryMin = 0;
+
+        private long salaryMax = 1_000_000_000L;
+
+        private int ageMin = 0;
+
+        private int ageMax = 150;
+
+        public int getNameMaxLength() {
+            return nameMaxLength;
+        }
+
+        public void setNameMaxLength(int nameMaxLength) {
+            this.nameMaxLength = nameMaxLength;
+        }
+
+        public int getImageMaxLength() {
+            return imageMaxLength;
+        }
+
+        public void setImageMaxLength(int imageMaxLength) {
+            this.imageMaxLength = imageMaxLength;
+        }
+
+        public long getSalaryMin() {
+            return salaryMin;
+        }
+
+        public void setSalaryMin(long salaryMin) {
+            this.salaryMin = salaryMin;
+        }
+
+        public long getSalaryMax() {
+            return salaryMax;
+        }
+
+        public void setSalaryMax(long salaryMax) {
+            this.salaryMax = salaryMax;
+        }
+
+        public int getAgeMin() {
+            return ageMin;
+        }
+
+        public void setAgeMin(int ageMin) {
+            this.ageMin = ageMin;
+        }
+
+        public int getAgeMax() {
+            return ageMax;
+        }
+
+        public void setAgeMax(int ageMax) {
+            this.ageMax = ageMax;
+        }
+    }
+}
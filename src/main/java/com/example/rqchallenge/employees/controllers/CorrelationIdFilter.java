@@ -0,0 +1,81 @@
+package com.example.rqchallenge.employees.controllers;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+ * Class : CorrelationIdFilter
+ *
+ * Tags every request with a correlation id : X-Correlation-Id of the request when it is valid
+ * (up to 64 letters, digits, '-', '_' or '.'), a generated one otherwise. It is returned in the response header
+ * and put in the log4j2 ThreadContext (%X{correlationId} in log4j2.xml) while the request is handled,
+ * async dispatches (employees.api.mode=async) reuse the id of the request and the callbacks of the
+ * external API futures run with it (see EmployeeAsyncService).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelationIdFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String CONTEXT_KEY = "correlationId";
+    private static final int MAX_LENGTH = 64;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String correlationId = (String) request.getAttribute(CONTEXT_KEY);
+
+        if (correlationId == null) {
+            correlationId = request.getHeader(HEADER);
+            if (!isValid(correlationId))
+                correlationId = newCorrelationId();
+            request.setAttribute(CONTEXT_KEY, correlationId);
+            response.setHeader(HEADER, correlationId);
+        }
+
+        ThreadContext.put(CONTEXT_KEY, correlationId);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ThreadContext.remove(CONTEXT_KEY);
+        }
+    }
+
+    @Override
+    // Async results are written (and errors logged) in an async dispatch of the request
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    // The id is written in every log line of the request : anything that could forge log lines is replaced
+    static boolean isValid(String correlationId) {
+        if ((correlationId == null) || correlationId.isEmpty() || (correlationId.length() > MAX_LENGTH))
+            return false;
+
+        for (int i = 0; i < correlationId.length(); i++) {
+            char c = correlationId.charAt(i);
+            if (!(((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9'))
+                    || (c == '-') || (c == '_') || (c == '.')))
+                return false;
+        }
+
+        return true;
+    }
+
+    // 16 hex digits, UUID.randomUUID would take SecureRandom on every request
+    static String newCorrelationId() {
+        String id = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+        return (id.length() == 16) ? id : "0000000000000000".substring(id.length()) + id;
+    }
+}
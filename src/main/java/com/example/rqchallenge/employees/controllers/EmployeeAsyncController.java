@@ -0,0 +1,56 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Interface : EmployeeAsyncController
+ *
+ * Declares the same APIs as EmployeeController with non-blocking return types,
+ * the request thread is released while the response is being computed
+ */
+public interface EmployeeAsyncController {
+
+    // Optional query parameters : name, id, orderBy=salary, direction=asc|desc, limit
+    // Paged with limit (and cursor) only : next page cursor in X-Next-Cursor header
+    // JSON for Accept: application/json, */* or no Accept header
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    CompletableFuture<ResponseEntity<List<EmployeeDto>>> getAllEmployees(EmployeeQueryDto query, WebRequest webRequest);
+
+    // Same records and query parameters, streamed as NDJSON (Accept: application/x-ndjson)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    CompletableFuture<ResponseEntity<StreamingResponseBody>> streamAllEmployees(EmployeeQueryDto query);
+
+    // Optional query parameters : limit, cursor (paged as GET /employees)
+    @GetMapping("/search/{searchString}")
+    CompletableFuture<ResponseEntity<List<EmployeeDto>>> getEmployeesByNameSearch(@PathVariable String searchString,
+                                                                                  @RequestParam(required = false) Integer limit,
+                                                                                  @RequestParam(required = false) String cursor);
+
+    @GetMapping("/{id}")
+    CompletableFuture<ResponseEntity<EmployeeDto>> getEmployeeByIdSearch(@PathVariable String id);
+
+    @GetMapping("/highestSalary")
+    CompletableFuture<ResponseEntity<Integer>> getHighestSalaryOfEmployees(WebRequest webRequest);
+
+    @GetMapping("/topTenHighestEarningEmployeeNames")
+    CompletableFuture<ResponseEntity<List<String>>> getTopTenHighestEarningEmployeeNames(WebRequest webRequest);
+
+    @GetMapping("/stats")
+    CompletableFuture<ResponseEntity<EmployeeStatsDto>> getEmployeeStatistics(WebRequest webRequest);
+
+    @PostMapping()
+    CompletableFuture<ResponseEntity<EmployeeDto>> createEmployee(@RequestBody EmployeeDto employeeInput);
+
+    @DeleteMapping("/{id}")
+    CompletableFuture<ResponseEntity<String>> deleteEmployeeById(@PathVariable String id);
+}
@@ -0,0 +1,173 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import com.example.rqchallenge.employees.dtos.EmployeeVersionDto;
+import com.example.rqchallenge.employees.services.EmployeeAsyncService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/*
+ * Class : EmployeeAsyncControllerImpl
+ *
+ * Implements endpoints declared in Interface EmployeeAsyncController (employees.api.mode=async).
+ * Responses (status codes and JSON) are the same as EmployeeControllerImpl.
+ */
+@RestController
+@RequestMapping(path = "/api/v1/employees")
+@ConditionalOnProperty(prefix = "employees.api", name = "mode", havingValue = "async")
+public class EmployeeAsyncControllerImpl implements EmployeeAsyncController {
+
+    private static final Logger log = LogManager.getLogger(EmployeeAsyncControllerImpl.class);
+    private final EmployeeAsyncService employeeService;
+    private final EmployeeStreamWriter streamWriter;
+
+    @Autowired
+    public EmployeeAsyncControllerImpl(EmployeeAsyncService employeeService, ObjectMapper objectMapper) {
+        this.employeeService = employeeService;
+        this.streamWriter = new EmployeeStreamWriter(objectMapper);
+    }
+
+    @Override
+    // Returns all employee records, or the ones matching the query parameters
+    public CompletableFuture<ResponseEntity<List<EmployeeDto>>> getAllEmployees(EmployeeQueryDto query, WebRequest webRequest) {
+        String fcn = "getAllEmployees:";
+        CompletableFuture<List<EmployeeDto>> allEmployees;
+
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<EmployeeVersionDto> version = employeeService.getDatasetVersion();
+        if ((query == null) || query.isEmpty()) {
+            allEmployees = employeeService.getAllEmployees();
+        } else if (query.isPaged()) {
+            log.info("{}{}", fcn, query);
+            return version.thenCombine(employeeService.getEmployeesPage(query.getName(), query.getLimit(), query.getCursor()),
+                    (pageVersion, page) -> EmployeeResponses.page(pageVersion, HttpStatus.OK, page));
+        } else {
+            log.info("{}{}", fcn, query);
+            allEmployees = employeeService.queryEmployees(query);
+        }
+
+        return version.thenCombine(allEmployees, (employeesVersion, employees) ->
+                EmployeeResponses.versioned(employeesVersion, HttpStatus.OK, employees));
+    }
+
+    @Override
+    // Streams the records of getAllEmployees as NDJSON, all records are written while the store is iterated
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> streamAllEmployees(EmployeeQueryDto query) {
+        String fcn = "streamAllEmployees:";
+
+        if ((query == null) || query.isEmpty())
+            return employeeService.getAllEmployeesView().thenApply(employees ->
+                    EmployeeResponses.ndjson(streamWriter.ndjson(employees), null));
+
+        log.info("{}{}", fcn, query);
+        if (query.isPaged())
+            return employeeService.getEmployeesPage(query.getName(), query.getLimit(), query.getCursor()).thenApply(page ->
+                    EmployeeResponses.ndjson(streamWriter.ndjson(page.getEmployees()), page.getNextCursor()));
+
+        return employeeService.queryEmployees(query).thenApply(employees ->
+                EmployeeResponses.ndjson(streamWriter.ndjson(employees), null));
+    }
+
+    @Override
+    // Filters employees by given name
+    public CompletableFuture<ResponseEntity<List<EmployeeDto>>> getEmployeesByNameSearch(String searchString, Integer limit, String cursor) {
+        String fcn = "getEmployeesByNameSearch:";
+
+        log.info("{}searchString : {}", fcn, searchString);
+        if ((limit != null) || (cursor != null))
+            return employeeService.getEmployeesPage(searchString, limit, cursor).thenApply(page ->
+                    EmployeeResponses.page(null, (page.getEmployees().isEmpty() && (cursor == null)) ? HttpStatus.NOT_FOUND : HttpStatus.OK, page));
+
+        return employeeService.getEmployeesByNameSearch(searchString).thenApply(filteredEmployeesByName ->
+                new ResponseEntity<>(filteredEmployeesByName, filteredEmployeesByName.isEmpty() ? HttpStatus.NOT_FOUND : HttpStatus.OK));
+    }
+
+    @Override
+    // Filters employees by given id
+    public CompletableFuture<ResponseEntity<EmployeeDto>> getEmployeeByIdSearch(String id) {
+        String fcn = "getEmployeeByIdSearch:";
+
+        log.info("{}id : {}", fcn, id);
+        return employeeService.getEmployeeByIdSearch(id).thenApply(employee ->
+                new ResponseEntity<>(employee, (employee == null) ? HttpStatus.NOT_FOUND : HttpStatus.OK));
+    }
+
+    @Override
+    // Return highest salary from employees records
+    public CompletableFuture<ResponseEntity<Integer>> getHighestSalaryOfEmployees(WebRequest webRequest) {
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<EmployeeVersionDto> version = employeeService.getDatasetVersion();
+
+        return version.thenCombine(employeeService.getTopEarningEmployees(1), (employeesVersion, highestEarningEmployees) ->
+                EmployeeResponses.versioned(employeesVersion, HttpStatus.OK, EmployeeResponses.highestSalary(highestEarningEmployees)));
+    }
+
+    @Override
+    // Returns the top10 highest salaries from employees data
+    public CompletableFuture<ResponseEntity<List<String>>> getTopTenHighestEarningEmployeeNames(WebRequest webRequest) {
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return CompletableFuture.completedFuture(null);
+
+        CompletableFuture<EmployeeVersionDto> version = employeeService.getDatasetVersion();
+
+        return version.thenCombine(employeeService.getTopEarningEmployees(10), (employeesVersion, topEarningEmployees) -> {
+            List<String> top10Salaries = new ArrayList<>();
+            if (topEarningEmployees != null) {
+                for (EmployeeDto employee : topEarningEmployees)
+                    top10Salaries.add(employee.getSalary());
+            }
+
+            return EmployeeResponses.versioned(employeesVersion, HttpStatus.OK, top10Salaries);
+        });
+    }
+
+    @Override
+    // Returns salary and age aggregates of employees data
+    public CompletableFuture<ResponseEntity<EmployeeStatsDto>> getEmployeeStatistics(WebRequest webRequest) {
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return CompletableFuture.completedFuture(null);
+
+        return employeeService.getDatasetVersion().thenCombine(employeeService.getEmployeeStatistics(),
+                (version, stats) -> EmployeeResponses.versioned(version, HttpStatus.OK, stats));
+    }
+
+    @Override
+    // Creates a new employee record if the fields are valid
+    public CompletableFuture<ResponseEntity<EmployeeDto>> createEmployee(EmployeeDto employeeInput) {
+        String fcn = "createEmployee:";
+
+        return employeeService.createNewEmployee(employeeInput).thenApply(confirmation -> {
+            log.info("{}{}", fcn, confirmation);
+            return new ResponseEntity<>(confirmation, HttpStatus.CREATED);
+        });
+    }
+
+    @Override
+    // Deletes an employee with given id (if present)
+    public CompletableFuture<ResponseEntity<String>> deleteEmployeeById(String id) {
+        String fcn = "deleteEmployeeById:";
+
+        log.info("{}id : {}", fcn, id);
+        return employeeService.deleteEmployeeById(id).thenApply(deleted -> new ResponseEntity<>("Success!", HttpStatus.OK));
+    }
+
+}
@@ -1,11 +1,15 @@
 package com.example.rqchallenge.employees.controllers;
 
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
-import java.util.Map;
 
 /*
  * Interface : EmployeeController
@@ -14,23 +18,37 @@ import java.util.Map;
  */
 public interface EmployeeController {
 
-    @GetMapping()
-    ResponseEntity<List<EmployeeDto>> getAllEmployees();
+    // Optional query parameters : name, id, orderBy=salary, direction=asc|desc, limit
+    // Paged with limit (and cursor) only : next page cursor in X-Next-Cursor header
+    // JSON for Accept: application/json, */* or no Accept header
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    ResponseEntity<List<EmployeeDto>> getAllEmployees(EmployeeQueryDto query, WebRequest webRequest);
 
+    // Same records and query parameters, streamed as NDJSON (Accept: application/x-ndjson)
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> streamAllEmployees(EmployeeQueryDto query);
+
+    // Optional query parameters : limit, cursor (paged as GET /employees)
     @GetMapping("/search/{searchString}")
-    ResponseEntity<List<EmployeeDto>> getEmployeesByNameSearch(@PathVariable String searchString);
+    ResponseEntity<List<EmployeeDto>> getEmployeesByNameSearch(@PathVariable String searchString,
+                                                               @RequestParam(required = false) Integer limit,
+                                                               @RequestParam(required = false) String cursor);
 
     @GetMapping("/{id}")
     ResponseEntity<EmployeeDto> getEmployeeByIdSearch(@PathVariable String id);
 
     @GetMapping("/highestSalary")
-    ResponseEntity<Integer> getHighestSalaryOfEmployees();
+    ResponseEntity<Integer> getHighestSalaryOfEmployees(WebRequest webRequest);
 
     @GetMapping("/topTenHighestEarningEmployeeNames")
-    ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames();
+    ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames(WebRequest webRequest);
+
+    // Salary and age aggregates : min, max, average, median, percentiles and histograms
+    @GetMapping("/stats")
+    ResponseEntity<EmployeeStatsDto> getEmployeeStatistics(WebRequest webRequest);
 
     @PostMapping()
-    ResponseEntity<EmployeeDto> createEmployee(@RequestBody Map<String, Object> employeeInput);
+    ResponseEntity<EmployeeDto> createEmployee(@RequestBody EmployeeDto employeeInput);
 
     @DeleteMapping("/{id}")
     ResponseEntity<String> deleteEmployeeById(@PathVariable String id);
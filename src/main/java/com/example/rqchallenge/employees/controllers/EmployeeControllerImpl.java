@@ -3,57 +3,103 @@ package com.example.rqchallenge.employees.controllers;
 import com.example.rqchallenge.employees.exceptions.EmployeeNotFoundException;
 import com.example.rqchallenge.employees.services.EmployeeService;
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import com.example.rqchallenge.employees.dtos.EmployeeVersionDto;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
 
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-
-import static java.lang.Math.min;
 
 /*
  * Class : EmployeeControllerImpl
  *
  * Implements endpoints declared in Interface EmployeeController.
+ * Default implementation (employees.api.mode=blocking), see EmployeeAsyncControllerImpl.
+ * GET responses of the whole data set carry its version (ETag/Last-Modified, see EmployeeResponses),
+ * a conditional GET of the cached version is answered 304 (null body) before anything is read.
  */
 @RestController
 @RequestMapping(path = "/api/v1/employees")
+@ConditionalOnProperty(prefix = "employees.api", name = "mode", havingValue = "blocking", matchIfMissing = true)
 public class EmployeeControllerImpl implements EmployeeController {
 
     private static final Logger log = LogManager.getLogger(EmployeeControllerImpl.class);
     private final EmployeeService employeeService;
+    private final EmployeeStreamWriter streamWriter;
 
     @Autowired
-    public EmployeeControllerImpl(EmployeeService employeeService) {
+    public EmployeeControllerImpl(EmployeeService employeeService, ObjectMapper objectMapper) {
         this.employeeService = employeeService;
+        this.streamWriter = new EmployeeStreamWriter(objectMapper);
     }
 
     @Override
-    // Returns all employee records
-    public ResponseEntity<List<EmployeeDto>> getAllEmployees() {
+    // Returns all employee records, or the ones matching the query parameters
+    public ResponseEntity<List<EmployeeDto>> getAllEmployees(EmployeeQueryDto query, WebRequest webRequest) {
         String fcn = "getAllEmployees:";
+        List<EmployeeDto> allEmployees;
+
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return null;
+
+        EmployeeVersionDto version = employeeService.getDatasetVersion();
+        if ((query == null) || query.isEmpty()) {
+            allEmployees = employeeService.getAllEmployees();
+        } else if (query.isPaged()) {
+            log.info("{}{}", fcn, query);
+            return EmployeeResponses.page(version, HttpStatus.OK,
+                    employeeService.getEmployeesPage(query.getName(), query.getLimit(), query.getCursor()));
+        } else {
+            log.info("{}{}", fcn, query);
+            allEmployees = employeeService.queryEmployees(query);
+        }
 
-        List<EmployeeDto> allEmployees = employeeService.getAllEmployees();
+        return EmployeeResponses.versioned(version, HttpStatus.OK, allEmployees);
+    }
+
+    @Override
+    // Streams the records of getAllEmployees as NDJSON, all records are written while the store is iterated
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees(EmployeeQueryDto query) {
+        String fcn = "streamAllEmployees:";
 
-        return new ResponseEntity<>(allEmployees, HttpStatus.OK);
+        if ((query == null) || query.isEmpty())
+            return EmployeeResponses.ndjson(streamWriter.ndjson(employeeService.getAllEmployeesView()), null);
+
+        log.info("{}{}", fcn, query);
+        if (query.isPaged()) {
+            EmployeePageDto page = employeeService.getEmployeesPage(query.getName(), query.getLimit(), query.getCursor());
+            return EmployeeResponses.ndjson(streamWriter.ndjson(page.getEmployees()), page.getNextCursor());
+        }
+
+        return EmployeeResponses.ndjson(streamWriter.ndjson(employeeService.queryEmployees(query)), null);
     }
 
     @Override
     // Filters employees by given name
-    public ResponseEntity<List<EmployeeDto>> getEmployeesByNameSearch(String searchString) {
+    public ResponseEntity<List<EmployeeDto>> getEmployeesByNameSearch(String searchString, Integer limit, String cursor) {
         String fcn = "getEmployeesByNameSearch:";
 
-        log.info(fcn + "searchString : " + searchString);
+        log.info("{}searchString : {}", fcn, searchString);
+        if ((limit != null) || (cursor != null)) {
+            EmployeePageDto page = employeeService.getEmployeesPage(searchString, limit, cursor);
+            return EmployeeResponses.page(null, (page.getEmployees().isEmpty() && (cursor == null)) ? HttpStatus.NOT_FOUND : HttpStatus.OK, page);
+        }
+
         List<EmployeeDto> filteredEmployeesByName = employeeService.getEmployeesByNameSearch(searchString);
         if(filteredEmployeesByName.isEmpty())
             return new ResponseEntity<>(filteredEmployeesByName, HttpStatus.NOT_FOUND);
@@ -66,7 +112,7 @@ public class EmployeeControllerImpl implements EmployeeController {
     public ResponseEntity<EmployeeDto> getEmployeeByIdSearch(String id) {
         String fcn = "getEmployeeByIdSearch:";
 
-        log.info(fcn + "id : " + id);
+        log.info("{}id : {}", fcn, id);
         EmployeeDto employee = employeeService.getEmployeeByIdSearch(id);
         if(employee == null)
             return new ResponseEntity<>(employee, HttpStatus.NOT_FOUND);
@@ -76,43 +122,55 @@ public class EmployeeControllerImpl implements EmployeeController {
 
     @Override
     // Return highest salary from employees records
-    public ResponseEntity<Integer> getHighestSalaryOfEmployees() {
+    public ResponseEntity<Integer> getHighestSalaryOfEmployees(WebRequest webRequest) {
         String fcn = "getHighestSalaryOfEmployees:";
 
-        List<EmployeeDto> sortedBySalaryDescending = employeeService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING);
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return null;
+
+        EmployeeVersionDto version = employeeService.getDatasetVersion();
+        List<EmployeeDto> highestEarningEmployees = employeeService.getTopEarningEmployees(1);
 
-        if ((sortedBySalaryDescending != null) && (!sortedBySalaryDescending.isEmpty()))
-            return ResponseEntity.ok(Integer.valueOf(sortedBySalaryDescending.get(0).getSalary()));
-        else
-            return ResponseEntity.ok(null);
+        return EmployeeResponses.versioned(version, HttpStatus.OK, EmployeeResponses.highestSalary(highestEarningEmployees));
     }
 
     @Override
     // Returns the top10 highest salaries from employees data
-    public ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames() {
+    public ResponseEntity<List<String>> getTopTenHighestEarningEmployeeNames(WebRequest webRequest) {
         String fcn = "getTopTenHighestEarningEmployeeNames:";
         List<String> top10Salaries = new ArrayList<>();
-        int i, nEmployees;
 
-        List<EmployeeDto> sortedBySalaryDescending = employeeService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING);
-        if ((sortedBySalaryDescending != null) && (!sortedBySalaryDescending.isEmpty())) {
-            nEmployees = min(sortedBySalaryDescending.size(), 10);
-            for (i = 0; i < nEmployees; i++)
-                top10Salaries.add(sortedBySalaryDescending.get(i).getSalary());
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return null;
+
+        EmployeeVersionDto version = employeeService.getDatasetVersion();
+        List<EmployeeDto> topEarningEmployees = employeeService.getTopEarningEmployees(10);
+        if (topEarningEmployees != null) {
+            for (EmployeeDto employee : topEarningEmployees)
+                top10Salaries.add(employee.getSalary());
         }
 
-        return new ResponseEntity<>(top10Salaries, HttpStatus.OK);
+        return EmployeeResponses.versioned(version, HttpStatus.OK, top10Salaries);
+    }
+
+    @Override
+    // Returns salary and age aggregates of employees data
+    public ResponseEntity<EmployeeStatsDto> getEmployeeStatistics(WebRequest webRequest) {
+        if (EmployeeResponses.isNotModified(webRequest, employeeService.getCachedDatasetVersion()))
+            return null;
+
+        EmployeeVersionDto version = employeeService.getDatasetVersion();
+
+        return EmployeeResponses.versioned(version, HttpStatus.OK, employeeService.getEmployeeStatistics());
     }
 
     @Override
     // Creates a new employee record if the fields are valid
-    public ResponseEntity<EmployeeDto> createEmployee(Map<String, Object> employeeInput) {
+    public ResponseEntity<EmployeeDto> createEmployee(EmployeeDto employeeInput) {
         String fcn = "createEmployee:";
-        ObjectMapper objectMapper = new ObjectMapper();
 
-        EmployeeDto newEmployee = objectMapper.convertValue(employeeInput, EmployeeDto.class);
-        EmployeeDto confirmation = employeeService.createNewEmployee(newEmployee);
-        log.info(fcn + confirmation.toString());
+        EmployeeDto confirmation = employeeService.createNewEmployee(employeeInput);
+        log.info("{}{}", fcn, confirmation);
 
         return new ResponseEntity<>(confirmation, HttpStatus.CREATED);
     }
@@ -122,9 +180,10 @@ public class EmployeeControllerImpl implements EmployeeController {
     public ResponseEntity<String> deleteEmployeeById(String id) {
         String fcn = "deleteEmployeeById:";
 
-        log.info(fcn + "id : " + id);
+        log.info("{}id : {}", fcn, id);
         employeeService.deleteEmployeeById(id);
 
         return new ResponseEntity<>("Success!", HttpStatus.OK);
     }
+
 }
@@ -0,0 +1,74 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.dtos.EmployeeVersionDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+/*
+ * Class : EmployeeResponses
+ *
+ * Response builders shared by EmployeeControllerImpl and EmployeeAsyncControllerImpl.
+ * Responses built from the employees data set carry its version as ETag/Last-Modified :
+ * Spring answers a GET whose If-None-Match matches with a 304, the body is never serialized.
+ * Controllers check the cached version first (isNotModified) : a 304 is then decided before
+ * the body is built, without reading the data set.
+ */
+final class EmployeeResponses {
+
+    private EmployeeResponses() {
+    }
+
+    // True when the client copy (If-None-Match/If-Modified-Since) is of version : the 304 is already set on the response
+    static boolean isNotModified(WebRequest webRequest, EmployeeVersionDto version) {
+        return (version != null) && webRequest.checkNotModified(version.getETag(), version.getLastModified());
+    }
+
+    // Response carrying the version of the data set body was built from (no headers when version is null)
+    static <T> ResponseEntity<T> versioned(EmployeeVersionDto version, HttpStatus status, T body) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+
+        if (version != null)
+            response.eTag(version.getETag()).lastModified(version.getLastModified());
+
+        return response.body(body);
+    }
+
+    // Salary of the first record (null when there is none or its salary is not a number) : the body is an Integer
+    // while salaries are parsed up to 18 digits, a larger salary is answered as Integer.MAX_VALUE
+    static Integer highestSalary(List<EmployeeDto> highestEarningEmployees) {
+        if ((highestEarningEmployees == null) || highestEarningEmployees.isEmpty()
+                || (highestEarningEmployees.get(0).getSalaryValue() < 0))
+            return null;
+
+        return (int) Math.min(highestEarningEmployees.get(0).getSalaryValue(), Integer.MAX_VALUE);
+    }
+
+    // Records of the page as body, cursor of the next page (if any) as header
+    static ResponseEntity<List<EmployeeDto>> page(EmployeeVersionDto version, HttpStatus status, EmployeePageDto page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(status);
+
+        if (version != null)
+            response.eTag(version.getETag()).lastModified(version.getLastModified());
+        if (page.getNextCursor() != null)
+            response.header(EmployeePageDto.NEXT_CURSOR_HEADER, page.getNextCursor());
+
+        return response.body(page.getEmployees());
+    }
+
+    // NDJSON body, cursor of the next page (if any) as header
+    static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body, String nextCursor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON);
+
+        if (nextCursor != null)
+            response.header(EmployeePageDto.NEXT_CURSOR_HEADER, nextCursor);
+
+        return response.body(body);
+    }
+}
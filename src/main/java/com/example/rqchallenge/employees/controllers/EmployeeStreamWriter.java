@@ -0,0 +1,50 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Collection;
+
+/*
+ * Class : EmployeeStreamWriter
+ *
+ * Writes employee records as NDJSON (one JSON object per line) while iterating them,
+ * the response is sent in chunks and never held in memory as a whole.
+ */
+public class EmployeeStreamWriter {
+
+    // Records written between two flushes (one chunk)
+    private static final int FLUSH_EVERY = 100;
+
+    private final JsonFactory jsonFactory;
+    private final ObjectWriter employeeWriter;
+
+    public EmployeeStreamWriter(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.employeeWriter = objectMapper.writerFor(EmployeeDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    // employees is iterated once by the servlet async thread, a live (weakly consistent) view is enough
+    public StreamingResponseBody ndjson(Collection<EmployeeDto> employees) {
+        return outputStream -> {
+            JsonGenerator generator = jsonFactory.createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            int written = 0;
+            for (EmployeeDto employee : employees) {
+                employeeWriter.writeValue(generator, employee);
+                generator.writeRaw('\n');
+                if (++written % FLUSH_EVERY == 0)
+                    generator.flush();
+            }
+            generator.close();
+        };
+    }
+}
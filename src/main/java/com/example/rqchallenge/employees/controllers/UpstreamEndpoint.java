@@ -0,0 +1,145 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.services.EmployeeBackupService;
+import com.example.rqchallenge.employees.services.EmployeeReconciliationService;
+import com.example.rqchallenge.employees.services.EmployeeWriteBehindService;
+import com.example.rqchallenge.employees.services.stores.EmployeeJournal;
+import com.example.rqchallenge.employees.services.upstream.UpstreamCircuitBreaker;
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Class : UpstreamEndpoint
+ *
+ * Actuator endpoint (/actuator/upstream) exposing the state of the
+ * external API client.
+ */
+@Component
+@Endpoint(id = "upstream")
+public class UpstreamEndpoint {
+
+    private final PoolingHttpClientConnectionManager upstreamConnectionManager;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final EmployeeWriteBehindService writeBehindService;
+    private final EmployeeBackupService backupService;
+    private final EmployeeReconciliationService reconciliationService;
+
+    @Autowired
+    public UpstreamEndpoint(PoolingHttpClientConnectionManager upstreamConnectionManager, UpstreamRateLimiter rateLimiter,
+                            UpstreamCircuitBreaker circuitBreaker, EmployeeWriteBehindService writeBehindService,
+                            EmployeeBackupService backupService, EmployeeReconciliationService reconciliationService) {
+        this.upstreamConnectionManager = upstreamConnectionManager;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.writeBehindService = writeBehindService;
+        this.backupService = backupService;
+        this.reconciliationService = reconciliationService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> upstream() {
+        Map<String, Object> upstream = new LinkedHashMap<>();
+
+        upstream.put("connectionPool", connectionPool());
+        upstream.put("rateLimiter", rateLimiter());
+        upstream.put("circuitBreaker", circuitBreaker());
+        upstream.put("writeBehind", writeBehind());
+        upstream.put("backupJournal", backupJournal());
+        upstream.put("reconciliation", reconciliation());
+
+        return upstream;
+    }
+
+    // leased : connections in use, pending : requests waiting for a connection
+    private Map<String, Object> connectionPool() {
+        PoolStats poolStats = upstreamConnectionManager.getTotalStats();
+        Map<String, Object> connectionPool = new LinkedHashMap<>();
+
+        connectionPool.put("leased", poolStats.getLeased());
+        connectionPool.put("pending", poolStats.getPending());
+        connectionPool.put("available", poolStats.getAvailable());
+        connectionPool.put("max", poolStats.getMax());
+        connectionPool.put("routes", upstreamConnectionManager.getRoutes().size());
+
+        return connectionPool;
+    }
+
+    // throttled : 429 responses, queued : writes that waited for a token, diverted : calls not sent
+    private Map<String, Object> rateLimiter() {
+        Map<String, Object> rateLimiterStats = new LinkedHashMap<>();
+
+        rateLimiterStats.put("availableTokens", rateLimiter.getAvailableTokens());
+        rateLimiterStats.put("waitingWrites", rateLimiter.getWaitingWrites());
+        rateLimiterStats.put("throttled", rateLimiter.getThrottled());
+        rateLimiterStats.put("queued", rateLimiter.getQueued());
+        rateLimiterStats.put("diverted", rateLimiter.getDiverted());
+
+        return rateLimiterStats;
+    }
+
+    // state : CLOSED / OPEN / HALF_OPEN, failureRate : -1 until enough calls are recorded
+    private Map<String, Object> circuitBreaker() {
+        Map<String, Object> circuitBreakerStats = new LinkedHashMap<>();
+
+        circuitBreakerStats.put("state", circuitBreaker.getState());
+        circuitBreakerStats.put("failureRate", circuitBreaker.getFailureRate());
+        circuitBreakerStats.put("bufferedCalls", circuitBreaker.getBufferedCalls());
+        circuitBreakerStats.put("rejected", circuitBreaker.getRejected());
+        circuitBreakerStats.put("opened", circuitBreaker.getOpened());
+
+        return circuitBreakerStats;
+    }
+
+    // pending : writes not sent yet, coalesced : create/delete pairs (and repeated deletes) never sent
+    private Map<String, Object> writeBehind() {
+        Map<String, Object> writeBehindStats = new LinkedHashMap<>();
+
+        writeBehindStats.put("enabled", writeBehindService.isEnabled());
+        writeBehindStats.put("pending", writeBehindService.getPendingWrites().size());
+        writeBehindStats.put("sent", writeBehindService.getSent());
+        writeBehindStats.put("retried", writeBehindService.getRetried());
+        writeBehindStats.put("coalesced", writeBehindService.getCoalesced());
+        writeBehindStats.put("dropped", writeBehindService.getDropped());
+
+        return writeBehindStats;
+    }
+
+    private Map<String, Object> backupJournal() {
+        EmployeeJournal journal = backupService.getJournal();
+        Map<String, Object> journalStats = new LinkedHashMap<>();
+
+        journalStats.put("enabled", journal != null);
+        if (journal != null) {
+            journalStats.put("loggedRecords", journal.getLoggedRecords());
+            journalStats.put("appended", journal.getAppended());
+            journalStats.put("syncs", journal.getSyncs());
+            journalStats.put("compactions", journal.getCompactions());
+        }
+
+        return journalStats;
+    }
+
+    // skipped : rounds without an external API call, added/changed/removed : backup records written
+    private Map<String, Object> reconciliation() {
+        Map<String, Object> reconciliationStats = new LinkedHashMap<>();
+
+        reconciliationStats.put("enabled", reconciliationService.isEnabled());
+        reconciliationStats.put("runs", reconciliationService.getRuns());
+        reconciliationStats.put("skipped", reconciliationService.getSkipped());
+        reconciliationStats.put("added", reconciliationService.getAdded());
+        reconciliationStats.put("changed", reconciliationService.getChanged());
+        reconciliationStats.put("removed", reconciliationService.getRemoved());
+        reconciliationStats.put("lastReconciledAt", reconciliationService.getLastReconciledAt());
+
+        return reconciliationStats;
+    }
+}
@@ -1,89 +1,213 @@
 package com.example.rqchallenge.employees.dtos;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 /*
  * Class : EmployeeDto
  *
  * Used to store/map the Employee record
+ * Numeric fields (id, salary, age) are parsed once when they are set and kept as primitives,
+ * they go back on the wire formatted from the primitive ("" when not set). The text they were set from
+ * is only kept when it differs from that (e.g. "0123", a non-numeric salary or null are returned as received) :
+ * the text fields of a record with canonical numbers are null.
+ * Aliases map the field names used by the External API create response (name, salary, age).
  */
 public class EmployeeDto {
 
-    @JsonProperty("id")
-    private String id;
+    // Value of a numeric field that was not provided (null or "")
+    public static final int NOT_SET = -1;
+
+    // Value of a numeric field that does not contain only digits
+    public static final int NOT_A_NUMBER = -2;
+
+    // Kept text of a numeric field set from null (a null text field means the formatted value)
+    private static final String NULL_TEXT = new String();
+
+    private long id;
+
+    private String idText;
 
-    @JsonProperty("employee_name")
     private String name;
 
-    @JsonProperty("employee_salary")
-    private String salary;
+    private long salary;
 
-    @JsonProperty("employee_age")
-    private String age;
+    private String salaryText;
+
+    private int age;
+
+    private String ageText;
 
-    @JsonProperty("profile_image")
     private String image;
 
     public EmployeeDto(String id, String name, String salary, String age, String image) {
-        this.id = id;
+        setId(id);
         this.name = name;
-        this.salary = salary;
-        this.age = age;
+        setSalary(salary);
+        setAge(age);
         this.image = image;
     }
 
     public EmployeeDto() {
-        this.id = this.name = this.salary = this.age = this.image = "";
+        this.id = this.salary = this.age = NOT_SET;
+        this.name = this.image = "";
     }
 
+    @JsonProperty("id")
     public String getId() {
-        return id;
+        return text(idText, id);
     }
 
+    @JsonProperty("id")
     public void setId(String id) {
+        this.id = parseLong(id);
+        this.idText = keptText(id, this.id);
+    }
+
+    @JsonIgnore
+    public long getIdValue() {
+        return id;
+    }
+
+    @JsonIgnore
+    public void setIdValue(long id) {
         this.id = id;
+        this.idText = null;
     }
 
+    @JsonProperty("employee_name")
     public String getName() {
         return name;
     }
 
+    @JsonProperty("employee_name")
+    @JsonAlias("name")
     public void setName(String name) {
         this.name = name;
     }
 
+    @JsonProperty("employee_salary")
     public String getSalary() {
-        return salary;
+        return text(salaryText, salary);
     }
 
+    @JsonProperty("employee_salary")
+    @JsonAlias("salary")
     public void setSalary(String salary) {
+        this.salary = parseLong(salary);
+        this.salaryText = keptText(salary, this.salary);
+    }
+
+    @JsonIgnore
+    public long getSalaryValue() {
+        return salary;
+    }
+
+    @JsonIgnore
+    public void setSalaryValue(long salary) {
         this.salary = salary;
+        this.salaryText = null;
     }
 
+    @JsonProperty("employee_age")
     public String getAge() {
-        return age;
+        return text(ageText, age);
     }
 
+    @JsonProperty("employee_age")
+    @JsonAlias("age")
     public void setAge(String age) {
+        this.age = parseInt(age);
+        this.ageText = keptText(age, this.age);
+    }
+
+    @JsonIgnore
+    public int getAgeValue() {
+        return age;
+    }
+
+    @JsonIgnore
+    public void setAgeValue(int age) {
         this.age = age;
+        this.ageText = null;
     }
 
+    @JsonProperty("profile_image")
     public String getImage() {
         return image;
     }
 
+    @JsonProperty("profile_image")
     public void setImage(String image) {
         this.image = image;
     }
 
+    // Parses a non-negative number, returns NOT_SET / NOT_A_NUMBER when it cannot be parsed
+    public static long parseLong(String field) {
+        if ((field == null) || field.isEmpty())
+            return NOT_SET;
+        if (field.length() > 18)
+            return NOT_A_NUMBER;
+
+        long value = 0;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if ((c < '0') || (c > '9'))
+                return NOT_A_NUMBER;
+            value = (value * 10) + (c - '0');
+        }
+
+        return value;
+    }
+
+    public static int parseInt(String field) {
+        long value = parseLong(field);
+
+        return (value > Integer.MAX_VALUE) ? NOT_A_NUMBER : (int) value;
+    }
+
+    // True when the numeric fields hold the text their values format to (no leading zero, no raw text to keep)
+    public boolean hasCanonicalNumbers() {
+        return (idText == null) && (salaryText == null) && (ageText == null);
+    }
+
+    private static String format(long value) {
+        return (value < 0) ? "" : String.valueOf(value);
+    }
+
+    // Text to keep for a numeric field set from text (parsed to value) : null when value formats to it
+    private static String keptText(String text, long value) {
+        if (text == null)
+            return NULL_TEXT;
+
+        return isCanonical(text, value) ? null : text;
+    }
+
+    // Text of a numeric field from its kept text (see keptText)
+    private static String text(String keptText, long value) {
+        if (keptText == null)
+            return format(value);
+
+        return (keptText == NULL_TEXT) ? null : keptText;
+    }
+
+    // text is the one value was parsed from
+    private static boolean isCanonical(String text, long value) {
+        if (value == NOT_SET)
+            return "".equals(text);
+
+        return (value >= 0) && ((text.length() == 1) || (text.charAt(0) != '0'));
+    }
+
     @Override
     public String toString() {
         return "EmployeeDto{" +
-                "id='" + id + '\'' +
+                "id='" + getId() + '\'' +
                 ", name='" + name + '\'' +
-                ", salary='" + salary + '\'' +
-                ", age='" + age + '\'' +
+                ", salary='" + getSalary() + '\'' +
+                ", age='" + getAge() + '\'' +
                 ", image='" + image + '\'' +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.example.rqchallenge.employees.dtos;
+
+import java.util.List;
+
+/*
+ * Class : EmployeePageDto
+ *
+ * One page of employee records, nextCursor is null on the last page
+ * (sent back as ?cursor= to fetch the next page)
+ */
+public class EmployeePageDto {
+
+    // Response header carrying nextCursor, the body stays a list of employee records
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final List<EmployeeDto> employees;
+
+    private final String nextCursor;
+
+    public EmployeePageDto(List<EmployeeDto> employees, String nextCursor) {
+        this.employees = employees;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<EmployeeDto> getEmployees() {
+        return employees;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeePageDto{" +
+                "employees=" + employees.size() +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.rqchallenge.employees.dtos;
+
+/*
+ * Class : EmployeeQueryDto
+ *
+ * Used to map the query parameters of GET /api/v1/employees
+ * e.g. ?name=tiger, ?id=1, ?orderBy=salary&direction=desc&limit=10
+ * Paged (insertion order) : ?limit=100, then ?limit=100&cursor=<nextCursor>
+ */
+public class EmployeeQueryDto {
+
+    private String name;
+
+    private String id;
+
+    private String orderBy;
+
+    private String direction;
+
+    private Integer limit;
+
+    private String cursor;
+
+    public EmployeeQueryDto() {
+    }
+
+    public EmployeeQueryDto(String name, String id, String orderBy, String direction, Integer limit) {
+        this.name = name;
+        this.id = id;
+        this.orderBy = orderBy;
+        this.direction = direction;
+        this.limit = limit;
+    }
+
+    public EmployeeQueryDto(String name, String id, String orderBy, String direction, Integer limit, String cursor) {
+        this(name, id, orderBy, direction, limit);
+        this.cursor = cursor;
+    }
+
+    // True when no query parameter is given (all employees are requested)
+    public boolean isEmpty() {
+        return (name == null) && (id == null) && (orderBy == null) && (direction == null) && (limit == null) && (cursor == null);
+    }
+
+    // True when the records are requested page by page (insertion order, optionally filtered by name)
+    public boolean isPaged() {
+        return (cursor != null) || ((limit != null) && (id == null) && (orderBy == null) && (direction == null));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public void setOrderBy(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public String getDirection() {
+        return direction;
+    }
+
+    public void setDirection(String direction) {
+        this.direction = direction;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeQueryDto{" +
+                "name='" + name + '\'' +
+                ", id='" + id + '\'' +
+                ", orderBy='" + orderBy + '\'' +
+                ", direction='" + direction + '\'' +
+                ", limit=" + limit +
+                ", cursor='" + cursor + '\'' +
+                '}';
+    }
+}
@@ -2,18 +2,26 @@ package com.example.rqchallenge.employees.dtos;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.util.Collection;
+import java.util.Iterator;
+
 /*
  * Class : EmployeeServiceDto
  *
  * Used to map the response received from External API
+ * T is the type of data, e.g. EmployeeServiceDto<List<EmployeeDto>> for all employees,
+ * so the response is deserialized in a single pass into the target type.
+ * toString (logged for every call to external API) writes the first LOGGED_RECORDS records of a list only.
  */
-public class EmployeeServiceDto {
+public class EmployeeServiceDto<T> {
+
+    static final int LOGGED_RECORDS = 3;
 
     @JsonProperty("status")
     private String status;
 
     @JsonProperty("data")
-    private Object data;
+    private T data;
 
     @JsonProperty("message")
     private String message;
@@ -26,11 +34,11 @@ public class EmployeeServiceDto {
         this.status = status;
     }
 
-    public Object getData() {
+    public T getData() {
         return data;
     }
 
-    public void setData(Object data) {
+    public void setData(T data) {
         this.data = data;
     }
 
@@ -46,8 +54,22 @@ public class EmployeeServiceDto {
     public String toString() {
         return "EmployeeServiceDto{" +
                 "status='" + status + '\'' +
-                ", data=" + data +
+                ", data=" + dataToString() +
                 ", message='" + message + '\'' +
                 '}';
     }
+
+    // Lists (all employees) : the first LOGGED_RECORDS records and the count of the others
+    private String dataToString() {
+        if (!(data instanceof Collection) || (((Collection<?>) data).size() <= LOGGED_RECORDS))
+            return String.valueOf(data);
+
+        Collection<?> records = (Collection<?>) data;
+        StringBuilder builder = new StringBuilder("[");
+        Iterator<?> iterator = records.iterator();
+        for (int i = 0; i < LOGGED_RECORDS; i++)
+            builder.append(iterator.next()).append(", ");
+
+        return builder.append("... ").append(records.size() - LOGGED_RECORDS).append(" more]").toString();
+    }
 }
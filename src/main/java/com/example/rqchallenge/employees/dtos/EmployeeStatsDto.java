@@ -0,0 +1,154 @@
+package com.example.rqchallenge.employees.dtos;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Class : EmployeeStatsDto
+ *
+ * Salary and age aggregates of the employees data set (GET /employees/stats).
+ * Records without a (numeric) salary or age are left out of that distribution.
+ */
+public class EmployeeStatsDto {
+
+    private final long employees;
+
+    private final Distribution salary;
+
+    private final Distribution age;
+
+    public EmployeeStatsDto(long employees, Distribution salary, Distribution age) {
+        this.employees = employees;
+        this.salary = salary;
+        this.age = age;
+    }
+
+    public long getEmployees() {
+        return employees;
+    }
+
+    public Distribution getSalary() {
+        return salary;
+    }
+
+    public Distribution getAge() {
+        return age;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeStatsDto{" +
+                "employees=" + employees +
+                ", salary=" + salary +
+                ", age=" + age +
+                '}';
+    }
+
+    /*
+     * Class : Distribution
+     *
+     * Values of one field : min, max, average, median and percentiles (nearest rank, so always values
+     * of the data set, keys p10 .. p99) are null when no record has a value.
+     * Histogram buckets are [from, to), ascending, empty buckets are left out.
+     */
+    public static class Distribution {
+
+        private final long count;
+
+        private final Long min;
+
+        private final Long max;
+
+        private final Double average;
+
+        private final Long median;
+
+        private final Map<String, Long> percentiles;
+
+        private final List<Bucket> histogram;
+
+        public Distribution(long count, Long min, Long max, Double average, Long median,
+                            Map<String, Long> percentiles, List<Bucket> histogram) {
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.average = average;
+            this.median = median;
+            this.percentiles = percentiles;
+            this.histogram = histogram;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Long getMin() {
+            return min;
+        }
+
+        public Long getMax() {
+            return max;
+        }
+
+        public Double getAverage() {
+            return average;
+        }
+
+        public Long getMedian() {
+            return median;
+        }
+
+        public Map<String, Long> getPercentiles() {
+            return percentiles;
+        }
+
+        public List<Bucket> getHistogram() {
+            return histogram;
+        }
+
+        @Override
+        public String toString() {
+            return "Distribution{" +
+                    "count=" + count +
+                    ", min=" + min +
+                    ", max=" + max +
+                    ", average=" + average +
+                    ", median=" + median +
+                    ", percentiles=" + percentiles +
+                    ", histogram=" + histogram.size() + " buckets" +
+                    '}';
+        }
+    }
+
+    public static class Bucket {
+
+        private final long from;
+
+        private final long to;
+
+        private final long count;
+
+        public Bucket(long from, long to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public long getFrom() {
+            return from;
+        }
+
+        public long getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + from + ", " + to + "): " + count;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.rqchallenge.employees.dtos;
+
+/*
+ * Class : EmployeeVersionDto
+ *
+ * Version of the employees data set currently served, sent as ETag/Last-Modified
+ * so that polling clients get a 304 (no body) while it does not change
+ */
+public class EmployeeVersionDto {
+
+    private final long version;
+
+    private final long lastModified;
+
+    public EmployeeVersionDto(long version, long lastModified) {
+        this.version = version;
+        this.lastModified = lastModified;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Strong entity tag (quoted), the same for every representation of this version
+    public String getETag() {
+        return "\"" + Long.toHexString(version) + "\"";
+    }
+
+    // Epoch millis
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeVersionDto{" +
+                "version=" + getETag() +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
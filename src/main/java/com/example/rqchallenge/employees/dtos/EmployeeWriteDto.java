@@ -0,0 +1,105 @@
+package com.example.rqchallenge.employees.dtos;
+
+/*
+ * Class : EmployeeWriteDto
+ *
+ * Used to store a create/delete waiting to be sent to the External API (write-behind mode)
+ * employee is set for a create (with its locally generated id), id for a delete.
+ * sequence identifies the write in the queue log (see EmployeeWriteBehindService).
+ */
+public class EmployeeWriteDto {
+
+    public enum Type {
+        CREATE,
+        DELETE
+    }
+
+    private long sequence;
+
+    private Type type;
+
+    private String id;
+
+    private EmployeeDto employee;
+
+    private int attempts;
+
+    private long createdAt;
+
+    public EmployeeWriteDto() {
+    }
+
+    public EmployeeWriteDto(Type type, String id, EmployeeDto employee) {
+        this.type = type;
+        this.id = id;
+        this.employee = employee;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    public static EmployeeWriteDto create(EmployeeDto employee) {
+        return new EmployeeWriteDto(Type.CREATE, employee.getId(), employee);
+    }
+
+    public static EmployeeWriteDto delete(String id) {
+        return new EmployeeWriteDto(Type.DELETE, id, null);
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public EmployeeDto getEmployee() {
+        return employee;
+    }
+
+    public void setEmployee(EmployeeDto employee) {
+        this.employee = employee;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "EmployeeWriteDto{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", id='" + id + '\'' +
+                ", attempts=" + attempts +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -51,6 +51,13 @@ public class EmployeeExceptionHandler {
         return new EmployeeExceptionDto(HttpStatus.BAD_REQUEST.value(), illegalArgumentException.getMessage());
     }
 
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler({UpstreamUnavailableException.class})
+    public EmployeeExceptionDto handleException(UpstreamUnavailableException upstreamUnavailableException) {
+        log.error(upstreamUnavailableException);
+        return new EmployeeExceptionDto(HttpStatus.SERVICE_UNAVAILABLE.value(), upstreamUnavailableException.getMessage());
+    }
+
     @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
     @ExceptionHandler({RestClientException.class})
     public EmployeeExceptionDto handleException(RestClientException restClientException) {
@@ -0,0 +1,14 @@
+package com.example.rqchallenge.employees.exceptions;
+
+/*
+ * Class : UpstreamUnavailableException
+ *
+ * Thrown when a call to the external API is not sent (no rate limit token, 429 response)
+ * EmployeeService handles it like a 5xx response : backupService is used instead
+ */
+public class UpstreamUnavailableException extends RuntimeException {
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
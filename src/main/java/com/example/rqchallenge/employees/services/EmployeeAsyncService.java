@@ -0,0 +1,441 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.controllers.CorrelationIdFilter;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import com.example.rqchallenge.employees.dtos.EmployeeVersionDto;
+import com.example.rqchallenge.employees.dtos.EmployeeWriteDto;
+import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
+import com.example.rqchallenge.employees.exceptions.UpstreamUnavailableException;
+import com.example.rqchallenge.employees.services.cache.SingleFlight;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import com.example.rqchallenge.employees.services.upstream.UpstreamCircuitBreaker;
+import com.example.rqchallenge.employees.services.upstream.UpstreamEmployeeSource;
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
+import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.ThreadContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.codec.CodecException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * Class : EmployeeAsyncService
+ *
+ * Non-blocking variant of EmployeeService (employees.api.mode=async).
+ * Same cache, rate limiter, circuit breaker, write-behind queue and backupService fallback,
+ * but the external API is called with WebClient and results are returned as futures,
+ * so no thread waits for the external API.
+ * WebClient errors are translated to the RestTemplate exceptions, error responses are unchanged.
+ * Only background workers (write-behind drain, reconciliation) wait for the external API.
+ * Callbacks of the external API futures run on Reactor Netty threads : they are wrapped (withCorrelationId)
+ * to log with the correlation id of the request that created them.
+ */
+@Service
+@ConditionalOnProperty(prefix = "employees.api", name = "mode", havingValue = "async")
+public class EmployeeAsyncService implements UpstreamEmployeeSource {
+
+    private static final Logger log = LogManager.getLogger(EmployeeAsyncService.class);
+    private final EmployeeFieldsValidator fieldsValidator;
+    private final EmployeeBackupService backupService;
+    private final EmployeeCacheService cacheService;
+    private final WebClient webClient;
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final EmployeeWriteBehindService writeBehindService;
+    private final EmployeeMetrics metrics;
+    private final String baseUrl;
+    private final EmployeeProperties.Stats statsProperties;
+    private final SingleFlight<String, List<EmployeeDto>> allEmployeesFlight = new SingleFlight<>();
+    private final SingleFlight<String, EmployeeDto> employeeByIdFlight = new SingleFlight<>();
+
+    @Autowired
+    public EmployeeAsyncService(EmployeeFieldsValidator fieldsValidator, EmployeeBackupService backupService,
+                                EmployeeCacheService cacheService, WebClient upstreamWebClient,
+                                UpstreamRateLimiter rateLimiter, UpstreamCircuitBreaker circuitBreaker,
+                                EmployeeWriteBehindService writeBehindService, EmployeeMetrics metrics,
+                                EmployeeProperties properties) {
+        this.fieldsValidator = fieldsValidator;
+        this.backupService = backupService;
+        this.cacheService = cacheService;
+        this.webClient = upstreamWebClient;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.writeBehindService = writeBehindService;
+        this.metrics = metrics;
+        this.baseUrl = EmployeeService.baseUrl(properties);
+        this.statsProperties = properties.getStats();
+
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.getPendingWrites().forEach(write -> EmployeeService.applyLocally(write, backupService));
+            writeBehindService.start(this::sendWrite);
+        }
+    }
+
+    // Fetches all employees data from the external API (served from cache while it is fresh)
+    public CompletableFuture<List<EmployeeDto>> getAllEmployees() {
+        return getEmployeeStore().thenApply(employeeStore -> (employeeStore == null) ? null : employeeStore.getAllEmployees());
+    }
+
+    // Read-only live view of all employees data (no copy), used to stream the response
+    public CompletableFuture<Collection<EmployeeDto>> getAllEmployeesView() {
+        return getEmployeeStore().thenApply(employeeStore -> (employeeStore == null) ? Collections.emptyList() : employeeStore.values());
+    }
+
+    // Fetches one page of employees data (insertion order, optionally filtered by name), see EmployeePager
+    public CompletableFuture<EmployeePageDto> getEmployeesPage(String name, Integer limit, String cursor) {
+        if (!fieldsValidator.isValidAlphaNumericString(name))
+            throw new EmployeeFieldsNotValidException("Name not valid! Only AlphaNumeric characters are allowed");
+
+        EmployeePager pager = new EmployeePager(name, limit, cursor);
+
+        return getEmployeeStore().thenApply(employeeStore -> (employeeStore == null)
+                ? new EmployeePageDto(new ArrayList<>(), null) : pager.execute(employeeStore));
+    }
+
+    // Fetches employees data matching the query (filter by id/name, order by salary, limit)
+    public CompletableFuture<List<EmployeeDto>> queryEmployees(EmployeeQueryDto query) {
+        if (!fieldsValidator.isValidNumber(query.getId()))
+            throw new EmployeeFieldsNotValidException("Id not valid! Only numbers are allowed");
+
+        if (!fieldsValidator.isValidAlphaNumericString(query.getName()))
+            throw new EmployeeFieldsNotValidException("Name not valid! Only AlphaNumeric characters are allowed");
+
+        EmployeeQueryPlanner queryPlanner = new EmployeeQueryPlanner(query);
+
+        return getEmployeeStore().thenApply(employeeStore -> (employeeStore == null) ? new ArrayList<>() : queryPlanner.execute(employeeStore));
+    }
+
+    // Filters employees by name (trigram index, no scan)
+    public CompletableFuture<List<EmployeeDto>> getEmployeesByNameSearch(String searchString) {
+        if (!fieldsValidator.isValidAlphaNumericString(searchString))
+            throw new EmployeeFieldsNotValidException("Name not valid! Only AlphaNumeric characters are allowed");
+
+        return getEmployeeStore().thenApply(employeeStore -> ((employeeStore == null) || (searchString == null))
+                ? new ArrayList<>() : employeeStore.searchByName(searchString));
+    }
+
+    // Fetches employee data specific to provided employee id (served from cache while it is fresh)
+    public CompletableFuture<EmployeeDto> getEmployeeByIdSearch(String id) {
+        String fcn = "getEmployeeByIdSearch:";
+
+        if (!fieldsValidator.isValidNumber(id))
+            throw new EmployeeFieldsNotValidException("Id not valid! Only numbers are allowed");
+
+        return orFallback(fcn, cacheService.getEmployeeByIdAsync(id,
+                        employeeId -> employeeByIdFlight.executeAsync(employeeId, this::fetchEmployeeById)),
+                () -> backupService.getEmployeeByIdSearch(id));
+    }
+
+    // Fetches (at most) count employees with highest salaries, highest first
+    public CompletableFuture<List<EmployeeDto>> getTopEarningEmployees(int count) {
+        return getEmployeeStore().thenApply(employeeStore -> (employeeStore == null) ? new ArrayList<>() : employeeStore.getTopEarningEmployees(count));
+    }
+
+    // Salary and age aggregates of the employees data (maintained by the store, no scan of the records)
+    public CompletableFuture<EmployeeStatsDto> getEmployeeStatistics() {
+        return getEmployeeStore().thenApply(employeeStore -> ((employeeStore == null) ? new EmployeeStore() : employeeStore)
+                .getStatistics(statsProperties.getSalaryBucketWidth(), statsProperties.getAgeBucketWidth()));
+    }
+
+    // Sends POST request to external API to add new employee
+    public CompletableFuture<EmployeeDto> createNewEmployee(EmployeeDto newEmployee) {
+        String fcn = "createNewEmployee:";
+
+        if (!fieldsValidator.isValidEmployeeDto(newEmployee))
+            throw new EmployeeFieldsNotValidException("Employee fields not valid!");
+
+        if (writeBehindService.isEnabled()) {
+            return backupService.whenLoaded().thenApply(loaded -> {
+                EmployeeDto createdEmployee = backupService.createNewEmployee(newEmployee);
+                cacheService.applyCreate(createdEmployee);
+                writeBehindService.enqueueCreate(createdEmployee);
+                return createdEmployee;
+            });
+        }
+
+        URI uri = URI.create(baseUrl + "/api/v1/create");
+
+        return orFallback(fcn, callUpstream(UpstreamRateLimiter.Priority.WRITE, uri,
+                        target -> webClient.post().uri(target).bodyValue(newEmployee).retrieve().bodyToMono(EmployeeService.EMPLOYEE_RESPONSE))
+                .thenApply(withCorrelationId(response -> {
+                    log.info("{}{}", fcn, response);
+                    cacheService.applyCreate(response.getData());
+                    return response.getData();
+                })), () -> backupService.createNewEmployee(newEmployee));
+    }
+
+    // Sends DELETE request with employee id to delete an employee
+    public CompletableFuture<Void> deleteEmployeeById(String id) {
+        String fcn = "deleteEmployeeById:";
+
+        if (!fieldsValidator.isValidNumber(id))
+            throw new EmployeeFieldsNotValidException("Id not valid! Only numbers are allowed");
+
+        if (writeBehindService.isEnabled()) {
+            return backupService.whenLoaded().thenApply(loaded -> {
+                backupService.deleteEmployeeById(id);
+                cacheService.applyDelete(id);
+                writeBehindService.enqueueDelete(id);
+                return null;
+            });
+        }
+
+        URI uri = URI.create(baseUrl + "/api/v1/delete/" + id);
+
+        return orFallback(fcn, callUpstream(UpstreamRateLimiter.Priority.WRITE, uri,
+                        target -> webClient.delete().uri(target).retrieve().toBodilessEntity())
+                .thenApply(withCorrelationId(response -> {
+                    cacheService.applyDelete(id);
+                    return (Void) null;
+                })), () -> {
+                    backupService.deleteEmployeeById(id);
+                    return null;
+                });
+    }
+
+    // Version of the employees data currently served (null when there is none), see EmployeeService
+    public CompletableFuture<EmployeeVersionDto> getDatasetVersion() {
+        return getEmployeeStore().thenApply(employeeStore -> (employeeStore == null)
+                ? null : new EmployeeVersionDto(employeeStore.getVersion(), employeeStore.getLastModified()));
+    }
+
+    // Version of the cached employees data when it is served without calling the external API (a stale one starts
+    // a background refresh), null otherwise, see EmployeeService
+    public EmployeeVersionDto getCachedDatasetVersion() {
+        EmployeeStore employeeStore = cacheService.getLoadedEmployeeStoreAsync(this::loadAllEmployees);
+
+        return (employeeStore == null) ? null : new EmployeeVersionDto(employeeStore.getVersion(), employeeStore.getLastModified());
+    }
+
+    // Returns the (cached) employees data of external API, or of backupService if external API is unavailable
+    private CompletableFuture<EmployeeStore> getEmployeeStore() {
+        String fcn = "getEmployeeStore:";
+
+        return orFallback(fcn, cacheService.getEmployeeStoreAsync(this::loadAllEmployees), backupService::getEmployeeStore);
+    }
+
+    // Loader of the cached employees store : concurrent callers share one external API call
+    private CompletableFuture<List<EmployeeDto>> loadAllEmployees() {
+        return allEmployeesFlight.executeAsync("/api/v1/employees", key -> fetchAllEmployees())
+                .thenApply(writeBehindService::overlay);
+    }
+
+    // Fetches all employees data from external API, bypassing the cache (pending write-behind writes applied)
+    // Waits for the response : only called by EmployeeReconciliationService (never on a Reactor Netty thread)
+    @Override
+    public List<EmployeeDto> fetchUpstreamEmployees() {
+        return join(loadAllEmployees());
+    }
+
+    // Sends GET request to external API for all employees data
+    private CompletableFuture<List<EmployeeDto>> fetchAllEmployees() {
+        String fcn = "fetchAllEmployees:";
+        URI uri = URI.create(baseUrl + "/api/v1/employees");
+
+        return callUpstream(UpstreamRateLimiter.Priority.READ, uri,
+                        target -> webClient.get().uri(target).retrieve().bodyToMono(EmployeeService.EMPLOYEES_RESPONSE))
+                .thenApply(withCorrelationId(response -> {
+                    log.info("{}{}", fcn, response);
+                    return response.getData();
+                }));
+    }
+
+    // Sends GET request to external API for the employee data of given id
+    private CompletableFuture<EmployeeDto> fetchEmployeeById(String id) {
+        String fcn = "fetchEmployeeById:";
+        URI uri = URI.create(baseUrl + "/api/v1/employee/" + id);
+
+        return callUpstream(UpstreamRateLimiter.Priority.READ, uri,
+                        target -> webClient.get().uri(target).retrieve().bodyToMono(EmployeeService.EMPLOYEE_RESPONSE))
+                .thenApply(withCorrelationId(response -> {
+                    log.info("{}{}", fcn, response);
+                    return response.getData();
+                }));
+    }
+
+    // Sends a queued create/delete to external API (write-behind worker thread, waits for the response),
+    // throws when it has to be retried
+    private void sendWrite(EmployeeWriteDto write) {
+        String fcn = "sendWrite:";
+
+        if (write.getType() == EmployeeWriteDto.Type.CREATE) {
+            // The id is generated locally, external API generates its own
+            EmployeeDto employee = write.getEmployee();
+            EmployeeDto newEmployee = new EmployeeDto("", employee.getName(), employee.getSalary(), employee.getAge(), employee.getImage());
+            EmployeeServiceDto<EmployeeDto> response = join(callUpstream(UpstreamRateLimiter.Priority.WRITE, URI.create(baseUrl + "/api/v1/create"),
+                    target -> webClient.post().uri(target).bodyValue(newEmployee).retrieve().bodyToMono(EmployeeService.EMPLOYEE_RESPONSE)));
+            log.info("{}{}", fcn, response);
+
+            EmployeeDto createdEmployee = (response == null) ? null : response.getData();
+            if ((createdEmployee != null) && EmployeeStore.hasId(createdEmployee) && !createdEmployee.getId().equals(employee.getId()))
+                EmployeeService.remapId(employee, createdEmployee.getId(), writeBehindService, backupService, cacheService);
+        } else {
+            join(callUpstream(UpstreamRateLimiter.Priority.WRITE, URI.create(baseUrl + "/api/v1/delete/" + write.getId()),
+                    target -> webClient.delete().uri(target).retrieve().toBodilessEntity()));
+        }
+    }
+
+    // Same checks as EmployeeService.callUpstream, but the rate limiter is never waited for
+    private <T> CompletableFuture<T> callUpstream(UpstreamRateLimiter.Priority priority, URI uri, Function<URI, Mono<T>> call) {
+        String fcn = "callUpstream:";
+
+        if (!circuitBreaker.tryAcquirePermission())
+            return CompletableFuture.failedFuture(new UpstreamUnavailableException("External API circuit breaker is open, call not sent"));
+
+        if (!rateLimiter.tryAcquireNow(priority)) {
+            circuitBreaker.releasePermission();
+            return CompletableFuture.failedFuture(new UpstreamUnavailableException("External API rate limit reached, call not sent"));
+        }
+
+        long startNanos = System.nanoTime();
+        return call.apply(uri).toFuture().handle(withCorrelationId((response, throwable) -> {
+            metrics.recordUpstreamCall(priority, startNanos, unwrap(throwable));
+            if (throwable == null) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+
+            RuntimeException exception = toRestClientException(unwrap(throwable));
+            if (exception instanceof HttpClientErrorException.TooManyRequests) {
+                circuitBreaker.onSuccess();
+                HttpHeaders headers = ((HttpClientErrorException) exception).getResponseHeaders();
+                String retryAfter = (headers == null) ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+                log.warn("{}429 from external API, Retry-After : {}", fcn, retryAfter);
+                rateLimiter.onTooManyRequests(UpstreamRateLimiter.parseRetryAfter(retryAfter, rateLimiter.getRefillInterval()));
+                throw new UpstreamUnavailableException("External API rate limit reached (429)");
+            }
+
+            if ((exception instanceof HttpServerErrorException) || (exception instanceof ResourceAccessException))
+                circuitBreaker.onFailure();
+            else
+                circuitBreaker.onSuccess();
+            throw exception;
+        }));
+    }
+
+    // Same fallback as EmployeeService : errors meaning the external API is unavailable are served by backupService
+    // fallback runs once the backup records are loaded, composed on whenLoaded : a Reactor Netty thread never waits
+    private <T> CompletableFuture<T> orFallback(String fcn, CompletableFuture<T> future, Supplier<T> fallback) {
+        return future.handle(withCorrelationId((T value, Throwable throwable) -> {
+            if (throwable == null)
+                return CompletableFuture.completedFuture(value);
+
+            Throwable cause = unwrap(throwable);
+            if (((cause instanceof RestClientException) && !(cause instanceof HttpClientErrorException))
+                    || (cause instanceof UpstreamUnavailableException) || (cause instanceof NullPointerException)
+                    || (cause instanceof IllegalArgumentException)) {
+                log.error(fcn, cause);
+                metrics.recordFallback(fcn);
+                return backupService.whenLoaded().thenApply(withCorrelationId(loaded -> fallback.get()));
+            }
+
+            return CompletableFuture.<T>failedFuture(cause);
+        })).thenCompose(Function.identity());
+    }
+
+    // body run with the correlation id of the thread creating the callback (the request thread),
+    // the id of the thread running it (Reactor Netty, backup loader) is restored afterwards
+    private static <T, R> Function<T, R> withCorrelationId(Function<T, R> body) {
+        String correlationId = ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY);
+
+        return value -> {
+            String previousId = setCorrelationId(correlationId);
+            try {
+                return body.apply(value);
+            } finally {
+                setCorrelationId(previousId);
+            }
+        };
+    }
+
+    private static <T, U, R> BiFunction<T, U, R> withCorrelationId(BiFunction<T, U, R> body) {
+        String correlationId = ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY);
+
+        return (value, throwable) -> {
+            String previousId = setCorrelationId(correlationId);
+            try {
+                return body.apply(value, throwable);
+            } finally {
+                setCorrelationId(previousId);
+            }
+        };
+    }
+
+    // Returns the id it replaces
+    private static String setCorrelationId(String correlationId) {
+        String previousId = ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY);
+
+        if (correlationId == null)
+            ThreadContext.remove(CorrelationIdFilter.CONTEXT_KEY);
+        else
+            ThreadContext.put(CorrelationIdFilter.CONTEXT_KEY, correlationId);
+        return previousId;
+    }
+
+    // Result of future for the callers that may wait, failures thrown as the RestTemplate exceptions
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException completionException) {
+            throw toRestClientException(unwrap(completionException));
+        }
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException) && (throwable.getCause() != null))
+            throwable = throwable.getCause();
+
+        return throwable;
+    }
+
+    // WebClient errors as the exceptions thrown by RestTemplate for the same response
+    private static RuntimeException toRestClientException(Throwable throwable) {
+        if (throwable instanceof WebClientResponseException) {
+            WebClientResponseException responseException = (WebClientResponseException) throwable;
+            HttpStatus status = HttpStatus.resolve(responseException.getRawStatusCode());
+            if ((status != null) && status.is4xxClientError())
+                return HttpClientErrorException.create(status, responseException.getStatusText(), responseException.getHeaders(),
+                        responseException.getResponseBodyAsByteArray(), null);
+            if ((status != null) && status.is5xxServerError())
+                return HttpServerErrorException.create(status, responseException.getStatusText(), responseException.getHeaders(),
+                        responseException.getResponseBodyAsByteArray(), null);
+        }
+
+        if (throwable instanceof WebClientRequestException)
+            return new ResourceAccessException(throwable.getMessage());
+
+        // Body that cannot be decoded (RestTemplate : RestClientException wrapping HttpMessageNotReadableException)
+        if (throwable instanceof CodecException)
+            return new RestClientException("Error while extracting response : " + throwable.getMessage(), throwable);
+
+        return (throwable instanceof RuntimeException) ? (RuntimeException) throwable : new CompletionException(throwable);
+    }
+}
@@ -1,6 +1,11 @@
 package com.example.rqchallenge.employees.services;
 
+import com.example.rqchallenge.EmployeeProperties;
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.services.stores.EmployeeJournal;
+import com.example.rqchallenge.employees.services.stores.EmployeeSnapshot;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
@@ -11,70 +16,235 @@ import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * Class : EmployeeBackupService
  *
  * It loads the employees data from a static file and
  * acts as an endpoint to perform various operations.
+ * Records are kept in a thread-safe EmployeeStore indexed by id.
+ * With employees.backup.enabled the records are journaled (see EmployeeJournal) :
+ * creates/deletes survive restarts, the static file only seeds the first start.
+ * Without it the static file is loaded from its binary copy (snapshot.bin in employees.backup.directory,
+ * see EmployeeSnapshot), written on the first start and again whenever the static file is newer.
+ * Records created here (external API unavailable or write-behind) are marked as local in the store :
+ * reconcile keeps them until the external API lists them (see EmployeeStore.reconcile).
+ * Records are loaded by a background thread, only callers arriving before it is done wait
+ * (async callers compose on whenLoaded instead).
  */
 @Service
 public class EmployeeBackupService {
 
     private static final Logger log = LogManager.getLogger(EmployeeBackupService.class);
     private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final EmployeeFieldsValidator fieldsValidator;
+    private final EmployeeJournal journal;
+    private final Path snapshotFile;
     private Resource resource;
     private final String employeesJsonFileName = "employees.json";
-    private List<EmployeeDto> allEmployees = new ArrayList<>();
+    private final EmployeeStore employeeStore = new EmployeeStore();
+    private final AtomicLong lastGeneratedId = new AtomicLong();
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
 
     @Autowired
-    public EmployeeBackupService(ResourceLoader resourceLoader) {
+    public EmployeeBackupService(ResourceLoader resourceLoader, ObjectMapper objectMapper, EmployeeFieldsValidator fieldsValidator,
+                                 EmployeeProperties properties) {
         this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.fieldsValidator = fieldsValidator;
+        EmployeeProperties.Backup backupProperties = properties.getBackup();
+        this.snapshotFile = Paths.get(backupProperties.getDirectory()).resolve(EmployeeJournal.SNAPSHOT_FILE);
+        this.journal = !backupProperties.isEnabled() ? null : new EmployeeJournal(Paths.get(backupProperties.getDirectory()),
+                backupProperties.getSyncInterval(), backupProperties.getCompactThreshold(), objectMapper);
 //        this.loadEmployees();
     }
 
     @PostConstruct
-    // Fetches the employee data from static file and stores it internally
+    // Starts loading the employee data in the background, the application starts without waiting for it
     public void loadEmployees() {
-        String fcn = "loadEmployees:";
-        ObjectMapper objectMapper = new ObjectMapper();
+        Thread loader = new Thread(this::loadEmployeeStore, "employee-backup-load");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Fetches the employee data from journal (binary snapshot + log) or static file and stores it internally
+    void loadEmployeeStore() {
+        String fcn = "loadEmployeeStore:";
+        long startedAt = System.nanoTime();
+
+        try {
+            if (journal == null)
+                employeeStore.replaceAll(readEmployeesSnapshot());
+            else if (!journal.hasSnapshot())
+                employeeStore.replaceAll(readEmployeesJsonFile());
+            if (journal != null)
+                journal.open(employeeStore);
+
+            for (EmployeeDto employee : employeeStore.values())
+                lastGeneratedId.accumulateAndGet(employee.getIdValue(), Math::max);
+            log.info("{}{} records in {}ms", fcn, employeeStore.size(), (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (IOException | RuntimeException exception) {
+            log.error(fcn, exception);
+        } finally {
+            loaded.complete(null);
+        }
+    }
+
+    // Requests served by backupService before the records are loaded wait for them
+    private void awaitLoaded() {
+        loaded.join();
+    }
+
+    // Completes once the records are loaded (never exceptionally) : the methods of backupService called
+    // from its completion stages do not wait
+    public CompletableFuture<Void> whenLoaded() {
+        return loaded;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (journal != null)
+            journal.close();
+    }
+
+    // Journal of the backup records (null when employees.backup.enabled is false)
+    public EmployeeJournal getJournal() {
+        return journal;
+    }
+
+    // Reads the binary copy of the static file, (re)written from the static file when missing or older than it
+    private List<EmployeeDto> readEmployeesSnapshot() throws IOException {
+        String fcn = "readEmployeesSnapshot:";
         resource = resourceLoader.getResource("classpath:" + employeesJsonFileName);
 
+        if (Files.exists(snapshotFile) && (Files.getLastModifiedTime(snapshotFile).toMillis() >= lastModified(resource)))
+            return EmployeeSnapshot.read(snapshotFile);
+
+        List<EmployeeDto> allEmployees = readEmployeesJsonFile();
         try {
-            allEmployees = objectMapper.readValue(resource.getInputStream(), new TypeReference<List<EmployeeDto>>() {});
-            log.info(fcn + allEmployees.size());
+            Files.createDirectories(snapshotFile.toAbsolutePath().getParent());
+            EmployeeSnapshot.replace(snapshotFile, allEmployees);
         } catch (IOException ioException) {
             log.error(fcn, ioException);
         }
+
+        return allEmployees;
+    }
+
+    // Last modification of the static file, Long.MAX_VALUE when it is unknown (the snapshot is then rewritten)
+    private static long lastModified(Resource resource) {
+        try {
+            return resource.lastModified();
+        } catch (IOException ioException) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    // Reads the static file, invalid records are skipped
+    private List<EmployeeDto> readEmployeesJsonFile() throws IOException {
+        String fcn = "readEmployeesJsonFile:";
+        resource = resourceLoader.getResource("classpath:" + employeesJsonFileName);
+
+        List<EmployeeDto> allEmployees = objectMapper.readValue(resource.getInputStream(), new TypeReference<List<EmployeeDto>>() {});
+        List<EmployeeDto> invalidEmployees = fieldsValidator.getInvalidEmployeeDtos(allEmployees);
+        if (!invalidEmployees.isEmpty()) {
+            log.error("{}skipping invalid records : {}", fcn, invalidEmployees);
+            allEmployees.removeAll(invalidEmployees);
+        }
+
+        return allEmployees;
     }
 
     // Returns all employees data
     public List<EmployeeDto> getAllEmployees() {
-        return allEmployees;
+        awaitLoaded();
+        return employeeStore.getAllEmployees();
+    }
+
+    // Returns the store of employees data (indexed by id and salary)
+    public EmployeeStore getEmployeeStore() {
+        awaitLoaded();
+        return employeeStore;
+    }
+
+    // Number of records, never waits for them to be loaded (0 while loading)
+    public int size() {
+        return employeeStore.size();
     }
 
     // Searches employees data by given id
     public EmployeeDto getEmployeeByIdSearch(String id) {
-        EmployeeDto defaultEmployee = null;
-        Optional<EmployeeDto> matchedEmployee = allEmployees.stream().filter(employee -> employee.getId().equals(id)).findFirst();
-
-        return matchedEmployee.orElse(defaultEmployee);
+        awaitLoaded();
+        return employeeStore.getEmployeeById(id);
     }
 
     // Creates a new employee record
     public EmployeeDto createNewEmployee(EmployeeDto newEmployee) {
-        newEmployee.setId(String.valueOf(System.currentTimeMillis()));
-        allEmployees.add(newEmployee);
+        awaitLoaded();
+        newEmployee.setIdValue(nextEmployeeId());
+        putLocalEmployee(newEmployee);
 
         return newEmployee;
     }
 
+    // Adds (or replaces) an employee record created locally keeping its id, e.g. a create restored from the write-behind queue
+    public void putLocalEmployee(EmployeeDto employee) {
+        awaitLoaded();
+        lastGeneratedId.accumulateAndGet(employee.getIdValue(), Math::max);
+        employeeStore.putLocal(employee);
+        if (journal != null)
+            journal.appendPutLocal(employee);
+    }
+
+    // Adds (or replaces) an employee record of the external API keeping its id, e.g. a sent create (see remapId)
+    public void putEmployee(EmployeeDto employee) {
+        awaitLoaded();
+        lastGeneratedId.accumulateAndGet(employee.getIdValue(), Math::max);
+        employeeStore.put(employee);
+        if (journal != null)
+            journal.appendPut(employee);
+    }
+
     // Deletes an employee record pertaining to given id
     public void deleteEmployeeById(String id) {
-        allEmployees.removeIf(employee -> employee.getId().equals(id));
+        awaitLoaded();
+        EmployeeDto removedEmployee = employeeStore.remove(id);
+        if ((removedEmployee != null) && (journal != null))
+            journal.appendDelete(removedEmployee.getIdValue());
+    }
+
+    // Makes the backup records match the external API employees (see EmployeeReconciliationService)
+    // Local records and records with a pending write (pendingIds) are not removed (see EmployeeStore.reconcile)
+    // Only the added/changed/removed records are re-indexed and journaled
+    public EmployeeStore.Delta reconcile(List<EmployeeDto> employees, Set<String> pendingIds) {
+        awaitLoaded();
+        EmployeeStore.Delta delta = employeeStore.reconcile(employees, pendingIds);
+
+        for (EmployeeDto employee : delta.getAdded())
+            lastGeneratedId.accumulateAndGet(employee.getIdValue(), Math::max);
+        if (journal != null) {
+            delta.getAdded().forEach(journal::appendPut);
+            delta.getChanged().forEach(journal::appendPut);
+            delta.getRemoved().forEach(employee -> journal.appendDelete(employee.getIdValue()));
+        }
+
+        return delta;
+    }
+
+    // Generates a unique id (current time in millis, bumped when called more than once per milli)
+    private long nextEmployeeId() {
+        long now = System.currentTimeMillis();
+
+        return lastGeneratedId.accumulateAndGet(now, (last, current) -> Math.max(last + 1, current));
     }
 }
@@ -0,0 +1,170 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.services.cache.StaleWhileRevalidateCache;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+ * Class : EmployeeCacheService
+ *
+ * Keeps the last good responses of the external API in memory.
+ * Stale responses are served while a single background refresh runs,
+ * so most requests never wait for the (rate limited) external API.
+ * The employees list is kept as an indexed EmployeeStore, built once per refresh.
+ */
+@Service
+public class EmployeeCacheService {
+
+    private static final String ALL_EMPLOYEES_KEY = "employees";
+    private final ExecutorService refreshExecutor;
+    private final StaleWhileRevalidateCache<String, EmployeeStore> allEmployeesCache;
+    private final StaleWhileRevalidateCache<String, EmployeeDto> employeeByIdCache;
+
+    @Autowired
+    public EmployeeCacheService(EmployeeProperties properties) {
+        EmployeeProperties.Cache cacheProperties = properties.getCache();
+
+        this.refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "employee-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.allEmployeesCache = new StaleWhileRevalidateCache<>("allEmployees",
+                cacheProperties.getTtl(), cacheProperties.getMaxStale(), refreshExecutor);
+        this.employeeByIdCache = new StaleWhileRevalidateCache<>("employeeById",
+                cacheProperties.getTtl(), cacheProperties.getMaxStale(), refreshExecutor);
+    }
+
+    // Returns the cached employees store, loader is called only when it has to be (re)fetched
+    // Cached store must not be modified by callers (see applyCreate/applyDelete)
+    public EmployeeStore getEmployeeStore(Supplier<List<EmployeeDto>> loader) {
+        return allEmployeesCache.get(ALL_EMPLOYEES_KEY, key -> toEmployeeStore(loader.get()));
+    }
+
+    // Returns the cached employees store without waiting for the external API : a stale store starts a background
+    // refresh (loader), null when getEmployeeStore would have to fetch it (not cached or older than max-stale)
+    public EmployeeStore getLoadedEmployeeStore(Supplier<List<EmployeeDto>> loader) {
+        return allEmployeesCache.getIfLoaded(ALL_EMPLOYEES_KEY, key -> toEmployeeStore(loader.get()));
+    }
+
+    // Returns the cached employee, it is looked up in the cached employees list before calling loader
+    public EmployeeDto getEmployeeById(String id, Function<String, EmployeeDto> loader) {
+        EmployeeDto employee = employeeByIdCache.getIfPresent(id);
+
+        if (employee == null)
+            employee = findInAllEmployees(id);
+
+        if (employee != null)
+            return employee;
+
+        return employeeByIdCache.get(id, loader);
+    }
+
+    // Non-blocking variant of getEmployeeStore (async api mode)
+    public CompletableFuture<EmployeeStore> getEmployeeStoreAsync(Supplier<CompletableFuture<List<EmployeeDto>>> loader) {
+        return allEmployeesCache.getAsync(ALL_EMPLOYEES_KEY, key -> loader.get().thenApply(this::toEmployeeStore));
+    }
+
+    // Non-blocking variant of getLoadedEmployeeStore (async api mode)
+    public EmployeeStore getLoadedEmployeeStoreAsync(Supplier<CompletableFuture<List<EmployeeDto>>> loader) {
+        return allEmployeesCache.getIfLoadedAsync(ALL_EMPLOYEES_KEY, key -> loader.get().thenApply(this::toEmployeeStore));
+    }
+
+    // Non-blocking variant of getEmployeeById (async api mode)
+    public CompletableFuture<EmployeeDto> getEmployeeByIdAsync(String id, Function<String, CompletableFuture<EmployeeDto>> loader) {
+        EmployeeDto employee = employeeByIdCache.getIfPresent(id);
+
+        if (employee == null)
+            employee = findInAllEmployees(id);
+
+        if (employee != null)
+            return CompletableFuture.completedFuture(employee);
+
+        return employeeByIdCache.getAsync(id, loader);
+    }
+
+    // Applies an acknowledged create (external API or write-behind mode) on the cached responses
+    // A record without a (numeric) id cannot be indexed : the cached employees are marked as expired instead,
+    // they are still served until the background refresh completes
+    public void applyCreate(EmployeeDto employee) {
+        if ((employee == null) || (employee.getIdValue() < 0)) {
+            allEmployeesCache.expire(ALL_EMPLOYEES_KEY);
+            return;
+        }
+
+        EmployeeStore employeeStore = allEmployeesCache.getIfPresent(ALL_EMPLOYEES_KEY);
+
+        if (employeeStore != null)
+            employeeStore.put(employee);
+        employeeByIdCache.put(employee.getId(), employee);
+    }
+
+    // Applies an acknowledged delete (external API or write-behind mode) on the cached responses
+    public void applyDelete(String id) {
+        EmployeeStore employeeStore = allEmployeesCache.getIfPresent(ALL_EMPLOYEES_KEY);
+
+        if (employeeStore != null)
+            employeeStore.remove(id);
+        employeeByIdCache.remove(id);
+    }
+
+    // Applies the difference with a freshly fetched employees list on the cached store (see EmployeeReconciliationService)
+    // The store is refreshed in place (fresh again), only the changed records are re-indexed
+    // Records with a pending write (pendingIds, applied on the cached store already) are left as they are
+    public EmployeeStore.Delta reconcile(List<EmployeeDto> employees, Set<String> pendingIds) {
+        EmployeeStore employeeStore = allEmployeesCache.getIfPresent(ALL_EMPLOYEES_KEY);
+
+        if (employeeStore == null)
+            employeeStore = new EmployeeStore();
+
+        EmployeeStore.Delta delta = employeeStore.reconcile(employees, pendingIds);
+        allEmployeesCache.put(ALL_EMPLOYEES_KEY, employeeStore);
+        delta.getChanged().forEach(employee -> employeeByIdCache.remove(employee.getId()));
+        delta.getRemoved().forEach(employee -> employeeByIdCache.remove(employee.getId()));
+        return delta;
+    }
+
+    // Records of the cached store (0 when none is cached), read by EmployeeMetricsBinder
+    public int getCachedEmployeesCount() {
+        EmployeeStore employeeStore = allEmployeesCache.getIfPresent(ALL_EMPLOYEES_KEY);
+
+        return (employeeStore == null) ? 0 : employeeStore.size();
+    }
+
+    public List<StaleWhileRevalidateCache<?, ?>> getCaches() {
+        return List.of(allEmployeesCache, employeeByIdCache);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private EmployeeDto findInAllEmployees(String id) {
+        EmployeeStore employeeStore = allEmployeesCache.getIfPresent(ALL_EMPLOYEES_KEY);
+
+        return (employeeStore == null) ? null : employeeStore.getEmployeeById(id);
+    }
+
+    // A refresh that returns the same records keeps the Last-Modified of the store it replaces
+    private EmployeeStore toEmployeeStore(List<EmployeeDto> employees) {
+        if (employees == null)
+            return null;
+
+        EmployeeStore employeeStore = new EmployeeStore(employees);
+        employeeStore.keepLastModified(allEmployeesCache.getIfPresent(ALL_EMPLOYEES_KEY));
+        return employeeStore;
+    }
+}
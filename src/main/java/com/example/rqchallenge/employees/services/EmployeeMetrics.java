@@ -0,0 +1,101 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.io.InterruptedIOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+ * Class : EmployeeMetrics
+ *
+ * Meters recorded on the request path (scraped from /actuator/prometheus) :
+ * - employees.upstream.calls : timer of the calls sent to the external API,
+ *                              tagged by priority (READ/WRITE) and outcome (2xx, 4xx, 429, 5xx, timeout, io_error, error)
+ * - employees.fallbacks      : requests served by backupService, tagged by operation
+ * Timers are registered once, recording a call is a map lookup and a histogram update.
+ * Dataset sizes and cache hit ratios are read from the services at scrape time (see EmployeeMetricsBinder).
+ */
+@Component
+public class EmployeeMetrics {
+
+    static final String[] OUTCOMES = {"2xx", "4xx", "429", "5xx", "timeout", "io_error", "error"};
+    private final MeterRegistry meterRegistry;
+    private final Map<UpstreamRateLimiter.Priority, Map<String, Timer>> upstreamTimers = new EnumMap<>(UpstreamRateLimiter.Priority.class);
+    private final ConcurrentHashMap<String, Counter> fallbackCounters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public EmployeeMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+
+        for (UpstreamRateLimiter.Priority priority : UpstreamRateLimiter.Priority.values()) {
+            Map<String, Timer> timers = new HashMap<>();
+            for (String outcome : OUTCOMES)
+                timers.put(outcome, Timer.builder("employees.upstream.calls")
+                        .description("Calls sent to the external API")
+                        .tag("priority", priority.name())
+                        .tag("outcome", outcome)
+                        .register(meterRegistry));
+            upstreamTimers.put(priority, timers);
+        }
+    }
+
+    // Records a call sent to the external API at startNanos (System.nanoTime), failure is null when it succeeded
+    public void recordUpstreamCall(UpstreamRateLimiter.Priority priority, long startNanos, Throwable failure) {
+        upstreamTimers.get(priority).get(outcome(failure)).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Counts a request served by backupService, fcn is the "method:" prefix of the caller
+    public void recordFallback(String fcn) {
+        String operation = fcn.endsWith(":") ? fcn.substring(0, fcn.length() - 1) : fcn;
+
+        fallbackCounters.computeIfAbsent(operation, key -> Counter.builder("employees.fallbacks")
+                .description("Requests served by backupService because the external API was unavailable")
+                .tag("operation", key)
+                .register(meterRegistry)).increment();
+    }
+
+    // Outcome of a call from the exception it failed with (RestTemplate or WebClient)
+    static String outcome(Throwable failure) {
+        if (failure == null)
+            return "2xx";
+
+        int status = -1;
+        if (failure instanceof HttpStatusCodeException)
+            status = ((HttpStatusCodeException) failure).getRawStatusCode();
+        else if (failure instanceof WebClientResponseException)
+            status = ((WebClientResponseException) failure).getRawStatusCode();
+
+        if (status == 429)
+            return "429";
+        if (status >= 500)
+            return "5xx";
+        if (status >= 400)
+            return "4xx";
+
+        // connect/read/pool timeouts are wrapped (ResourceAccessException, WebClientRequestException)
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if ((cause instanceof InterruptedIOException) || (cause instanceof TimeoutException)
+                    || cause.getClass().getSimpleName().endsWith("TimeoutException"))
+                return "timeout";
+        }
+
+        if ((failure instanceof ResourceAccessException) || (failure instanceof WebClientRequestException))
+            return "io_error";
+
+        return "error";
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.employees.services.cache.StaleWhileRevalidateCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/*
+ * Class : EmployeeMetricsBinder
+ *
+ * Meters read from the services when they are scraped (nothing is recorded on the request path) :
+ * - employees.dataset.size  : records of the cached store (source=cache) and of backupService (source=backup)
+ * - employees.cache.requests : lookups of each cache by result (hit, stale_hit, miss)
+ * - employees.cache.hit.ratio : (hit + stale_hit) / all lookups of each cache, NaN before the first lookup
+ */
+@Component
+public class EmployeeMetricsBinder implements MeterBinder {
+
+    private final EmployeeCacheService cacheService;
+    private final EmployeeBackupService backupService;
+
+    @Autowired
+    public EmployeeMetricsBinder(EmployeeCacheService cacheService, EmployeeBackupService backupService) {
+        this.cacheService = cacheService;
+        this.backupService = backupService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("employees.dataset.size", cacheService, EmployeeCacheService::getCachedEmployeesCount)
+                .description("Employee records of the cached store")
+                .tag("source", "cache")
+                .register(meterRegistry);
+        Gauge.builder("employees.dataset.size", backupService, EmployeeBackupService::size)
+                .description("Employee records of backupService")
+                .tag("source", "backup")
+                .register(meterRegistry);
+
+        for (StaleWhileRevalidateCache<?, ?> cache : cacheService.getCaches())
+            bindCache(meterRegistry, cache);
+    }
+
+    private static void bindCache(MeterRegistry meterRegistry, StaleWhileRevalidateCache<?, ?> cache) {
+        FunctionCounter.builder("employees.cache.requests", cache, StaleWhileRevalidateCache::getHits)
+                .tag("cache", cache.getName())
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("employees.cache.requests", cache, StaleWhileRevalidateCache::getStaleHits)
+                .tag("cache", cache.getName())
+                .tag("result", "stale_hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("employees.cache.requests", cache, StaleWhileRevalidateCache::getMisses)
+                .tag("cache", cache.getName())
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("employees.cache.hit.ratio", cache, EmployeeMetricsBinder::hitRatio)
+                .tag("cache", cache.getName())
+                .register(meterRegistry);
+    }
+
+    private static double hitRatio(StaleWhileRevalidateCache<?, ?> cache) {
+        double served = cache.getHits() + cache.getStaleHits();
+        double lookups = served + cache.getMisses();
+
+        return (lookups == 0) ? Double.NaN : served / lookups;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/*
+ * Class : EmployeePager
+ *
+ * Reads one page of an EmployeeStore (insertion order, optionally filtered by name).
+ * The cursor is opaque to clients : base64url of "<epoch>:<sequence>:<id>" of the last record returned.
+ * The next page starts right after that record (seek, the previous pages are never read again),
+ * its id is resolved first so the position survives a refresh of the store. The sequence is only
+ * used when the record is gone from the same store epoch : a record removed by a refresh leaves
+ * no position in the rebuilt store, such a cursor is rejected (the client starts over).
+ */
+public class EmployeePager {
+
+    public static final int DEFAULT_LIMIT = 100;
+    private final String name;
+    private final int limit;
+    private final long afterEpoch;
+    private final long afterSequence;
+    private final String afterId;
+
+    // Parses limit and cursor, throws EmployeeFieldsNotValidException for invalid values
+    public EmployeePager(String name, Integer limit, String cursor) {
+        this.name = name;
+
+        checkLimit(limit);
+        this.limit = (limit == null) ? DEFAULT_LIMIT : limit;
+
+        if ((cursor == null) || cursor.isEmpty()) {
+            this.afterEpoch = -1;
+            this.afterSequence = -1;
+            this.afterId = null;
+        } else {
+            String decodedCursor = decode(cursor);
+            int epochSeparator = decodedCursor.indexOf(':');
+            int sequenceSeparator = decodedCursor.indexOf(':', epochSeparator + 1);
+            if ((epochSeparator < 0) || (sequenceSeparator < 0))
+                throw new EmployeeFieldsNotValidException("cursor not valid!");
+
+            this.afterEpoch = parseNumber(decodedCursor.substring(0, epochSeparator));
+            this.afterSequence = parseNumber(decodedCursor.substring(epochSeparator + 1, sequenceSeparator));
+            this.afterId = decodedCursor.substring(sequenceSeparator + 1);
+        }
+    }
+
+    // Same rule for pages and queries (see EmployeeQueryPlanner) : a limit, when given, is at least 1
+    static void checkLimit(Integer limit) {
+        if ((limit != null) && (limit < 1))
+            throw new EmployeeFieldsNotValidException("limit not valid! Only numbers greater than 0 are allowed");
+    }
+
+    // Throws EmployeeFieldsNotValidException when the last record of the previous page was removed by a refresh
+    public EmployeePageDto execute(EmployeeStore employeeStore) {
+        long epoch = employeeStore.getEpoch();
+        long startSequence = -1;
+        if (afterId != null) {
+            startSequence = employeeStore.getSequence(afterId);
+            if ((startSequence < 0) && (afterEpoch != epoch))
+                throw new EmployeeFieldsNotValidException("cursor not valid! The employees were refreshed, request the first page again");
+            if (startSequence < 0)
+                startSequence = afterSequence;
+        }
+        EmployeeStore.Page page = (name == null) ? employeeStore.getPage(startSequence, limit)
+                : employeeStore.searchByName(name, startSequence, limit);
+
+        List<EmployeeDto> employees = page.getEmployees();
+        String nextCursor = (page.hasMore() && !employees.isEmpty())
+                ? encode(epoch, page.getLastSequence(), employees.get(employees.size() - 1).getId()) : null;
+
+        return new EmployeePageDto(employees, nextCursor);
+    }
+
+    static String encode(long epoch, long sequence, String id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((epoch + ":" + sequence + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException illegalArgumentException) {
+            throw new EmployeeFieldsNotValidException("cursor not valid!");
+        }
+    }
+
+    private static long parseNumber(String number) {
+        long value = EmployeeDto.parseLong(number);
+
+        if (value < 0)
+            throw new EmployeeFieldsNotValidException("cursor not valid!");
+
+        return value;
+    }
+}
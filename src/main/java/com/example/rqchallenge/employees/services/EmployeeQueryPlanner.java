@@ -0,0 +1,110 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+/*
+ * Class : EmployeeQueryPlanner
+ *
+ * Executes an EmployeeQueryDto against an EmployeeStore.
+ * Filters run first and use the store indexes (id : O(1), name : trigram index),
+ * ordering by salary with a limit never sorts the whole data set :
+ * - no filter : the salary index is read up to limit records
+ * - filter    : a bounded heap keeps the top limit records of the filtered ones
+ */
+public class EmployeeQueryPlanner {
+
+    private final String name;
+    private final String id;
+    private final boolean orderBySalary;
+    private final boolean descending;
+    private final int limit;
+
+    // Parses the query, throws EmployeeFieldsNotValidException for unsupported values
+    public EmployeeQueryPlanner(EmployeeQueryDto query) {
+        this.name = query.getName();
+        this.id = query.getId();
+
+        if ((query.getOrderBy() != null) && !query.getOrderBy().equalsIgnoreCase("salary"))
+            throw new EmployeeFieldsNotValidException("orderBy not valid! Only salary is supported");
+        this.orderBySalary = (query.getOrderBy() != null);
+
+        // Salary is ordered highest first unless asked otherwise
+        String direction = (query.getDirection() == null) ? "desc" : query.getDirection().toLowerCase(Locale.ROOT);
+        if (!direction.equals("desc") && !direction.equals("descending") && !direction.equals("asc") && !direction.equals("ascending"))
+            throw new EmployeeFieldsNotValidException("direction not valid! Only asc/ascending or desc/descending are allowed");
+        this.descending = direction.startsWith("desc");
+
+        EmployeePager.checkLimit(query.getLimit());
+        this.limit = (query.getLimit() == null) ? Integer.MAX_VALUE : query.getLimit();
+
+        // Pages follow the insertion order only (see EmployeePager)
+        if (query.getCursor() != null)
+            throw new EmployeeFieldsNotValidException("cursor not valid! Only supported without id, orderBy and direction");
+    }
+
+    public List<EmployeeDto> execute(EmployeeStore employeeStore) {
+        List<EmployeeDto> filteredEmployees;
+
+        if (id != null) {
+            filteredEmployees = new ArrayList<>();
+            EmployeeDto employee = employeeStore.getEmployeeById(id);
+            if ((employee != null) && nameMatches(employee))
+                filteredEmployees.add(employee);
+        } else if (name != null) {
+            filteredEmployees = employeeStore.searchByName(name);
+        } else if (orderBySalary) {
+            return employeeStore.getEmployeesBySalary(descending, limit);
+        } else {
+            return employeeStore.getEmployees(limit);
+        }
+
+        if (orderBySalary)
+            return topBySalary(filteredEmployees);
+
+        return (filteredEmployees.size() > limit) ? new ArrayList<>(filteredEmployees.subList(0, limit)) : filteredEmployees;
+    }
+
+    private boolean nameMatches(EmployeeDto employee) {
+        if (name == null)
+            return true;
+
+        return (employee.getName() != null)
+                && employee.getName().toLowerCase(Locale.ROOT).contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    // Keeps (at most) limit records in a heap whose head is the worst kept record : O(n log limit)
+    private List<EmployeeDto> topBySalary(List<EmployeeDto> employees) {
+        Comparator<EmployeeDto> bySalary = Comparator.comparingLong(EmployeeDto::getSalaryValue);
+        Comparator<EmployeeDto> order = descending ? bySalary.reversed() : bySalary;
+
+        if (limit >= employees.size()) {
+            List<EmployeeDto> orderedEmployees = new ArrayList<>(employees);
+            orderedEmployees.sort(order);
+            return orderedEmployees;
+        }
+
+        PriorityQueue<EmployeeDto> kept = new PriorityQueue<>(limit, order.reversed());
+        for (EmployeeDto employee : employees) {
+            if (kept.size() < limit) {
+                kept.add(employee);
+            } else if (order.compare(employee, kept.peek()) < 0) {
+                kept.poll();
+                kept.add(employee);
+            }
+        }
+
+        List<EmployeeDto> topEmployees = new ArrayList<>(kept);
+        topEmployees.sort(order);
+
+        return topEmployees;
+    }
+}
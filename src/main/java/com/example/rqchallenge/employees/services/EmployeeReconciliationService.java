@@ -0,0 +1,151 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import com.example.rqchallenge.employees.services.upstream.UpstreamEmployeeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Class : EmployeeReconciliationService
+ *
+ * Keeps the local records in step with the external API (see employees.reconcile.*).
+ * Every interval a background worker pulls the employees list (one READ token : the round is
+ * skipped when the rate limit/circuit breaker does not allow the call) through the service of the
+ * configured employees.api.mode (see UpstreamEmployeeSource) and applies only its
+ * difference (added, changed, removed ids) to the cached store and to the backup records,
+ * so reads are served locally from a recent copy and indexes are updated for the changed records only.
+ * The external API is the source of truth : backup records it does not know of are removed, except the ones
+ * created locally (not sent to it, see EmployeeStore.putLocal). Ids with a create/delete pending in the
+ * write-behind queue (before or during the fetch) are left as they are until the write is sent.
+ */
+@Service
+public class EmployeeReconciliationService {
+
+    private static final Logger log = LogManager.getLogger(EmployeeReconciliationService.class);
+    private final EmployeeProperties.Reconcile properties;
+    private final UpstreamEmployeeSource upstreamEmployeeSource;
+    private final EmployeeCacheService cacheService;
+    private final EmployeeBackupService backupService;
+    private final EmployeeWriteBehindService writeBehindService;
+    private ScheduledExecutorService reconcileExecutor;
+    private volatile long lastReconciledAt;
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder added = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+
+    @Autowired
+    public EmployeeReconciliationService(EmployeeProperties properties, UpstreamEmployeeSource upstreamEmployeeSource,
+                                         EmployeeCacheService cacheService, EmployeeBackupService backupService,
+                                         EmployeeWriteBehindService writeBehindService) {
+        this.properties = properties.getReconcile();
+        this.upstreamEmployeeSource = upstreamEmployeeSource;
+        this.cacheService = cacheService;
+        this.backupService = backupService;
+        this.writeBehindService = writeBehindService;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    // Starts the background worker, the first round runs right away
+    public synchronized void start() {
+        if (!isEnabled() || (reconcileExecutor != null))
+            return;
+
+        reconcileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "employee-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, properties.getInterval().toMillis());
+        reconcileExecutor.scheduleWithFixedDelay(this::reconcile, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (reconcileExecutor != null)
+            reconcileExecutor.shutdownNow();
+    }
+
+    // Pulls the employees list from external API and applies its difference to the cached and backup stores
+    // Returns the difference with the backup records (null when the round was skipped)
+    public EmployeeStore.Delta reconcile() {
+        String fcn = "reconcile:";
+        List<EmployeeDto> employees;
+        // A write sent while the list is fetched may or may not be in it
+        Set<String> pendingIds = writeBehindService.getPendingIds();
+
+        // Any failure only skips the round : an exception would cancel the next ones
+        try {
+            employees = upstreamEmployeeSource.fetchUpstreamEmployees();
+            if (employees == null)
+                throw new IllegalStateException("external API returned no employees data");
+        } catch (RuntimeException exception) {
+            skipped.increment();
+            log.warn("{}skipped : {}", fcn, exception.getMessage());
+            return null;
+        }
+
+        try {
+            pendingIds.addAll(writeBehindService.getPendingIds());
+            cacheService.reconcile(employees, pendingIds);
+            EmployeeStore.Delta delta = backupService.reconcile(employees, pendingIds);
+
+            runs.increment();
+            added.add(delta.getAdded().size());
+            changed.add(delta.getChanged().size());
+            removed.add(delta.getRemoved().size());
+            lastReconciledAt = System.currentTimeMillis();
+            log.info("{}{} records, {}", fcn, employees.size(), delta);
+            return delta;
+        } catch (RuntimeException exception) {
+            skipped.increment();
+            log.error(fcn, exception);
+            return null;
+        }
+    }
+
+    // Number of completed rounds
+    public long getRuns() {
+        return runs.sum();
+    }
+
+    // Number of rounds skipped (external API call not allowed or failed)
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public long getAdded() {
+        return added.sum();
+    }
+
+    public long getChanged() {
+        return changed.sum();
+    }
+
+    public long getRemoved() {
+        return removed.sum();
+    }
+
+    // Time (epoch millis) of the last completed round, 0 when there was none
+    public long getLastReconciledAt() {
+        return lastReconciledAt;
+    }
+}
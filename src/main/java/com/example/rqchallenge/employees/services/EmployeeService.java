@@ -1,173 +1,353 @@
 package com.example.rqchallenge.employees.services;
 
+import com.example.rqchallenge.EmployeeProperties;
 import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import com.example.rqchallenge.employees.dtos.EmployeeVersionDto;
+import com.example.rqchallenge.employees.dtos.EmployeeWriteDto;
 import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
 import com.example.rqchallenge.employees.exceptions.EmployeeNotFoundException;
+import com.example.rqchallenge.employees.exceptions.UpstreamUnavailableException;
+import com.example.rqchallenge.employees.services.cache.SingleFlight;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import com.example.rqchallenge.employees.services.upstream.UpstreamCircuitBreaker;
+import com.example.rqchallenge.employees.services.upstream.UpstreamEmployeeSource;
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
 import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 /*
  * Class : EmployeeService
  *
- * API exchange with external url (see BASE_URL)
- * If for some reason external API is unavailable (or sends 5xx response)
+ * API exchange with external url (see employees.upstream.base-url)
+ * If for some reason external API is unavailable (5xx response, connect/read timeout)
  * it will use BackupService for the specific operation.
+ * Responses of the external API are cached by CacheService and
+ * concurrent requests for the same resource share a single API call.
+ * Every call first takes a token of the RateLimiter, calls without a token (or
+ * rejected with 429) are served by the cache/backupService as well.
+ * While the CircuitBreaker is open no call is sent : backupService answers right away.
+ * In write-behind mode creates/deletes are applied locally and sent later by WriteBehindService.
+ * Only created in blocking mode (employees.api.mode=blocking, the default), see EmployeeAsyncService.
  */
 @Service
-public class EmployeeService {
+@ConditionalOnProperty(prefix = "employees.api", name = "mode", havingValue = "blocking", matchIfMissing = true)
+public class EmployeeService implements UpstreamEmployeeSource {
 
     private static final Logger log = LogManager.getLogger(EmployeeService.class);
     private final EmployeeFieldsValidator fieldsValidator;
     private final EmployeeBackupService backupService;
+    private final EmployeeCacheService cacheService;
     private final RestTemplate restTemplate;
-    private final String BASE_URL = "https://dummy.restapiexample.com";
+    private final UpstreamRateLimiter rateLimiter;
+    private final UpstreamCircuitBreaker circuitBreaker;
+    private final EmployeeWriteBehindService writeBehindService;
+    private final EmployeeMetrics metrics;
+    private final String baseUrl;
+    private final EmployeeProperties.Stats statsProperties;
+    private final SingleFlight<String, List<EmployeeDto>> allEmployeesFlight = new SingleFlight<>();
+    private final SingleFlight<String, EmployeeDto> employeeByIdFlight = new SingleFlight<>();
+    static final ParameterizedTypeReference<EmployeeServiceDto<List<EmployeeDto>>> EMPLOYEES_RESPONSE =
+            new ParameterizedTypeReference<EmployeeServiceDto<List<EmployeeDto>>>() {};
+    static final ParameterizedTypeReference<EmployeeServiceDto<EmployeeDto>> EMPLOYEE_RESPONSE =
+            new ParameterizedTypeReference<EmployeeServiceDto<EmployeeDto>>() {};
     public enum SALARY_ORDERING {
         ASCENDING,
         DESCENDING
     }
 
     @Autowired
-    public EmployeeService(EmployeeFieldsValidator fieldsValidator, EmployeeBackupService backupService, RestTemplate restTemplate) {
+    public EmployeeService(EmployeeFieldsValidator fieldsValidator, EmployeeBackupService backupService,
+                           EmployeeCacheService cacheService, RestTemplate restTemplate,
+                           UpstreamRateLimiter rateLimiter, UpstreamCircuitBreaker circuitBreaker,
+                           EmployeeWriteBehindService writeBehindService, EmployeeMetrics metrics,
+                           EmployeeProperties properties) {
         this.fieldsValidator = fieldsValidator;
         this.backupService = backupService;
+        this.cacheService = cacheService;
         this.restTemplate = restTemplate;
-
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.writeBehindService = writeBehindService;
+        this.metrics = metrics;
+        this.baseUrl = baseUrl(properties);
+        this.statsProperties = properties.getStats();
+
+        if (writeBehindService.isEnabled()) {
+            writeBehindService.getPendingWrites().forEach(write -> applyLocally(write, backupService));
+            writeBehindService.start(this::sendWrite);
+        }
     }
 
-    // Fetches all employees data from the external API
+    // Fetches all employees data from the external API (served from cache while it is fresh)
     public List<EmployeeDto> getAllEmployees() {
-        String fcn = "getAllEmployees:";
-        List<EmployeeDto> allEmployeesList = null;
-        ObjectMapper objectMapper = new ObjectMapper();
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        return (employeeStore == null) ? null : employeeStore.getAllEmployees();
+    }
+
+    // Read-only live view of all employees data (no copy), used to stream the response
+    public Collection<EmployeeDto> getAllEmployeesView() {
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        return (employeeStore == null) ? Collections.emptyList() : employeeStore.values();
+    }
+
+    // Version of the employees data currently served (null when there is none)
+    // Read it before the data : a change in between only makes the version older than the data (never the opposite)
+    public EmployeeVersionDto getDatasetVersion() {
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        return (employeeStore == null) ? null : new EmployeeVersionDto(employeeStore.getVersion(), employeeStore.getLastModified());
+    }
+
+    // Version of the cached employees data when it is served without calling the external API (fresh, or stale :
+    // a background refresh is started), null otherwise (getDatasetVersion loads it)
+    // Conditional GETs compare it with If-None-Match before anything is fetched (see EmployeeResponses.isNotModified)
+    public EmployeeVersionDto getCachedDatasetVersion() {
+        EmployeeStore employeeStore = cacheService.getLoadedEmployeeStore(this::loadAllEmployees);
+
+        return (employeeStore == null) ? null : new EmployeeVersionDto(employeeStore.getVersion(), employeeStore.getLastModified());
+    }
+
+    // Returns the (cached) employees data of external API, or of backupService if external API is unavailable
+    // 4xx responses are errors of the request, any other external API error (5xx, I/O, unreadable body) is a fallback
+    private EmployeeStore getEmployeeStore() {
+        String fcn = "getEmployeeStore:";
+        EmployeeStore employeeStore = null;
+
+        try {
+            employeeStore = cacheService.getEmployeeStore(this::loadAllEmployees);
+        } catch (HttpClientErrorException clientErrorException) {
+            throw clientErrorException;
+        } catch (RestClientException | UpstreamUnavailableException | NullPointerException | IllegalArgumentException serverErrorException) {
+            log.error(fcn, serverErrorException);
+            metrics.recordFallback(fcn);
+            employeeStore = backupService.getEmployeeStore();
+        }
+
+        return employeeStore;
+    }
+
+    // Fetches all employees data from external API, bypassing the cache (pending write-behind writes applied)
+    // Spends a READ token : throws UpstreamUnavailableException when the call is not allowed
+    @Override
+    public List<EmployeeDto> fetchUpstreamEmployees() {
+        return loadAllEmployees();
+    }
+
+    // Loader of the cached employees store : concurrent callers share one external API call
+    private List<EmployeeDto> loadAllEmployees() {
+        return writeBehindService.overlay(allEmployeesFlight.execute("/api/v1/employees", key -> fetchAllEmployees()));
+    }
+
+    // Sends GET request to external API for all employees data
+    private List<EmployeeDto> fetchAllEmployees() {
+        String fcn = "fetchAllEmployees:";
         URI uri = null;
 
         // Ideally we should never get an exception here
         // Added the try/catch to make compiler happy
         try {
-            uri = new URI (BASE_URL + "/api/v1/employees");
+            uri = new URI (baseUrl + "/api/v1/employees");
         } catch (URISyntaxException uriSyntaxException) {
             log.error(fcn, uriSyntaxException);
         }
 
-        try {
-            EmployeeServiceDto response = restTemplate.getForObject(uri, EmployeeServiceDto.class);
-            log.info(fcn + response.toString());
-            allEmployeesList = objectMapper.convertValue(response.getData(), new TypeReference<List<EmployeeDto>>() {});
-        } catch (HttpServerErrorException | NullPointerException | IllegalArgumentException serverErrorException) {
-            log.error(fcn, serverErrorException);
-            allEmployeesList = backupService.getAllEmployees();
-        }
+        EmployeeServiceDto<List<EmployeeDto>> response = callUpstream(UpstreamRateLimiter.Priority.READ, uri,
+                target -> restTemplate.exchange(target, HttpMethod.GET, null, EMPLOYEES_RESPONSE).getBody());
+        log.info("{}{}", fcn, response);
 
-        return allEmployeesList;
+        return response.getData();
     }
 
-
-    // Fetches all employees data from external API and filters it by employee name
+    // Fetches all employees data from external API and filters it by employee name (trigram index, no scan)
     public List<EmployeeDto> getEmployeesByNameSearch(String searchString) {
-        List<EmployeeDto> allEmployeesList = this.getAllEmployees();
-        List<EmployeeDto> filteredEmployeesByName = new ArrayList<>();
-
         if (!fieldsValidator.isValidAlphaNumericString(searchString))
             throw new EmployeeFieldsNotValidException("Name not valid! Only AlphaNumeric characters are allowed");
 
-        if ((allEmployeesList!= null) && (!allEmployeesList.isEmpty()) && (searchString != null)) {
-            allEmployeesList.stream().filter(employee -> employee.getName().toLowerCase()
-                    .contains(searchString.toLowerCase())).forEach(filteredEmployeesByName::add);
-        }
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        if ((employeeStore == null) || (searchString == null))
+            return new ArrayList<>();
+
+        return employeeStore.searchByName(searchString);
+    }
 
-        return filteredEmployeesByName;
+    // Fetches one page of employees data (insertion order, optionally filtered by name), see EmployeePager
+    public EmployeePageDto getEmployeesPage(String name, Integer limit, String cursor) {
+        if (!fieldsValidator.isValidAlphaNumericString(name))
+            throw new EmployeeFieldsNotValidException("Name not valid! Only AlphaNumeric characters are allowed");
+
+        EmployeePager pager = new EmployeePager(name, limit, cursor);
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        if (employeeStore == null)
+            return new EmployeePageDto(new ArrayList<>(), null);
+
+        return pager.execute(employeeStore);
     }
 
-    // Fetches employee data specific to provided employee id
+    // Fetches employees data matching the query (filter by id/name, order by salary, limit)
+    public List<EmployeeDto> queryEmployees(EmployeeQueryDto query) {
+        if (!fieldsValidator.isValidNumber(query.getId()))
+            throw new EmployeeFieldsNotValidException("Id not valid! Only numbers are allowed");
+
+        if (!fieldsValidator.isValidAlphaNumericString(query.getName()))
+            throw new EmployeeFieldsNotValidException("Name not valid! Only AlphaNumeric characters are allowed");
+
+        EmployeeQueryPlanner queryPlanner = new EmployeeQueryPlanner(query);
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        if (employeeStore == null)
+            return new ArrayList<>();
+
+        return queryPlanner.execute(employeeStore);
+    }
+
+    // Fetches employee data specific to provided employee id (served from cache while it is fresh)
     public EmployeeDto getEmployeeByIdSearch(String id) {
         String fcn = "getEmployeeByIdSearch:";
         EmployeeDto employee = null;
-        ObjectMapper objectMapper = new ObjectMapper();
-        URI uri = null;
 
         if (!fieldsValidator.isValidNumber(id)) {
             throw new EmployeeFieldsNotValidException("Id not valid! Only numbers are allowed");
         }
 
+        try {
+            employee = cacheService.getEmployeeById(id,
+                    employeeId -> employeeByIdFlight.execute(employeeId, this::fetchEmployeeById));
+        } catch (HttpClientErrorException clientErrorException) {
+            throw clientErrorException;
+        } catch (RestClientException | UpstreamUnavailableException | NullPointerException | IllegalArgumentException serverErrorException) {
+            log.error(fcn, serverErrorException);
+            metrics.recordFallback(fcn);
+            employee = backupService.getEmployeeByIdSearch(id);
+        }
+
+        return employee;
+    }
+
+    // Sends GET request to external API for the employee data of given id
+    private EmployeeDto fetchEmployeeById(String id) {
+        String fcn = "fetchEmployeeById:";
+        URI uri = null;
+
         // Ideally we should never get an exception here
         // Added the try/catch to make compiler happy
         try {
-            uri = new URI(BASE_URL + "/api/v1/employee/" + id);
+            uri = new URI(baseUrl + "/api/v1/employee/" + id);
         } catch (URISyntaxException uriSyntaxException) {
             log.error(fcn, uriSyntaxException);
         }
 
-        try {
-            EmployeeServiceDto response = restTemplate.getForObject(uri, EmployeeServiceDto.class);
-            log.info(fcn + response.toString());
-            employee = objectMapper.convertValue(response.getData(), EmployeeDto.class);
-        } catch (HttpServerErrorException | NullPointerException | IllegalArgumentException serverErrorException) {
-            log.error(fcn, serverErrorException);
-            employee = backupService.getEmployeeByIdSearch(id);
-        }
+        EmployeeServiceDto<EmployeeDto> response = callUpstream(UpstreamRateLimiter.Priority.READ, uri,
+                target -> restTemplate.exchange(target, HttpMethod.GET, null, EMPLOYEE_RESPONSE).getBody());
+        log.info("{}{}", fcn, response);
 
-        return employee;
+        return response.getData();
     }
 
-    // Fetches all employees data and sorts it as per salary of each employee
-    // Takes argument order and sorts it accordingly
+    // Fetches all employees data ordered as per salary of each employee
+    // Takes argument order and orders it accordingly (read from the salary index, no sorting)
     public List<EmployeeDto> getEmployeesBySalaryOrdering(SALARY_ORDERING order) {
-        List<EmployeeDto> orderedEmployeesBySalary = this.getAllEmployees();
-        Comparator<EmployeeDto> sortBySalaryLength = Comparator.comparingInt(e -> e.getSalary().length());
-        Comparator<EmployeeDto> sortBySalary = sortBySalaryLength.thenComparing(EmployeeDto::getSalary);
+        EmployeeStore employeeStore = this.getEmployeeStore();
 
-        if ((orderedEmployeesBySalary != null) && (!orderedEmployeesBySalary.isEmpty())) {
-            if (order == SALARY_ORDERING.ASCENDING)
-                orderedEmployeesBySalary.sort(sortBySalary);
-            else
-                orderedEmployeesBySalary.sort(sortBySalary.reversed());
-        }
+        if (employeeStore == null)
+            return null;
 
-        return orderedEmployeesBySalary;
+        return employeeStore.getEmployeesBySalary(order == SALARY_ORDERING.DESCENDING);
+    }
+
+    // Fetches (at most) limit employees ordered as per salary, the rest is never read
+    public List<EmployeeDto> getEmployeesBySalaryOrdering(SALARY_ORDERING order, int limit) {
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        if (employeeStore == null)
+            return null;
+
+        return employeeStore.getEmployeesBySalary(order == SALARY_ORDERING.DESCENDING, limit);
+    }
+
+    // Fetches (at most) count employees with highest salaries, highest first
+    public List<EmployeeDto> getTopEarningEmployees(int count) {
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        if (employeeStore == null)
+            return new ArrayList<>();
+
+        return employeeStore.getTopEarningEmployees(count);
+    }
+
+    // Salary and age aggregates of the employees data (maintained by the store, no scan of the records)
+    public EmployeeStatsDto getEmployeeStatistics() {
+        EmployeeStore employeeStore = this.getEmployeeStore();
+
+        return ((employeeStore == null) ? new EmployeeStore() : employeeStore)
+                .getStatistics(statsProperties.getSalaryBucketWidth(), statsProperties.getAgeBucketWidth());
     }
 
     // Sends POST request to external API to add  new employee
     public EmployeeDto createNewEmployee(EmployeeDto newEmployee) {
         String fcn = "createNewEmployee:";
         EmployeeDto createdEmployee = null;
-        ObjectMapper objectMapper = new ObjectMapper();
         URI uri = null;
 
         if (!fieldsValidator.isValidEmployeeDto(newEmployee))
             throw new EmployeeFieldsNotValidException("Employee fields not valid!");
 
+        if (writeBehindService.isEnabled()) {
+            createdEmployee = backupService.createNewEmployee(newEmployee);
+            cacheService.applyCreate(createdEmployee);
+            writeBehindService.enqueueCreate(createdEmployee);
+            return createdEmployee;
+        }
+
         // Ideally we should never get an exception here
         // Added the try/catch to make compiler happy
         try {
-            uri = new URI(BASE_URL + "/api/v1/create");
+            uri = new URI(baseUrl + "/api/v1/create");
         } catch (URISyntaxException uriSyntaxException) {
             log.error(fcn, uriSyntaxException);
         }
 
         try {
-            EmployeeServiceDto response = restTemplate.postForObject(uri, newEmployee, EmployeeServiceDto.class);
-            log.info(fcn + response.toString());
-            createdEmployee = objectMapper.convertValue(response.getData(), EmployeeDto.class);
-        } catch (HttpServerErrorException | NullPointerException | IllegalArgumentException serverErrorException) {
+            EmployeeServiceDto<EmployeeDto> response = callUpstream(UpstreamRateLimiter.Priority.WRITE, uri,
+                    target -> restTemplate.exchange(target, HttpMethod.POST, new HttpEntity<>(newEmployee), EMPLOYEE_RESPONSE).getBody());
+            log.info("{}{}", fcn, response);
+            createdEmployee = response.getData();
+            cacheService.applyCreate(createdEmployee);
+        } catch (HttpClientErrorException clientErrorException) {
+            throw clientErrorException;
+        } catch (RestClientException | UpstreamUnavailableException | NullPointerException | IllegalArgumentException serverErrorException) {
             log.error(fcn, serverErrorException);
+            metrics.recordFallback(fcn);
             createdEmployee = backupService.createNewEmployee(newEmployee);
         }
 
@@ -182,7 +362,7 @@ public class EmployeeService {
         // Ideally we should never get an exception here
         // Added the try/catch to make compiler happy
         try {
-            uri = new URI(BASE_URL + "/api/v1/delete/" + id);
+            uri = new URI(baseUrl + "/api/v1/delete/" + id);
         } catch (URISyntaxException uriSyntaxException) {
             log.error(fcn, uriSyntaxException);
         }
@@ -190,11 +370,131 @@ public class EmployeeService {
         if (!fieldsValidator.isValidNumber(id))
             throw new EmployeeFieldsNotValidException("Id not valid! Only numbers are allowed");
 
+        if (writeBehindService.isEnabled()) {
+            backupService.deleteEmployeeById(id);
+            cacheService.applyDelete(id);
+            writeBehindService.enqueueDelete(id);
+            return;
+        }
+
         try {
-            restTemplate.delete(uri);
-        } catch (HttpServerErrorException | NullPointerException | IllegalArgumentException serverErrorException) {
+            callUpstream(UpstreamRateLimiter.Priority.WRITE, uri, target -> {
+                restTemplate.delete(target);
+                return null;
+            });
+            cacheService.applyDelete(id);
+        } catch (HttpClientErrorException clientErrorException) {
+            throw clientErrorException;
+        } catch (RestClientException | UpstreamUnavailableException | NullPointerException | IllegalArgumentException serverErrorException) {
             log.error(fcn, serverErrorException);
+            metrics.recordFallback(fcn);
             backupService.deleteEmployeeById(id);
         }
     }
+
+    // Sends a queued create/delete to external API (write-behind worker), throws when it has to be retried
+    private void sendWrite(EmployeeWriteDto write) {
+        String fcn = "sendWrite:";
+        URI uri = null;
+
+        // Ideally we should never get an exception here
+        // Added the try/catch to make compiler happy
+        try {
+            uri = (write.getType() == EmployeeWriteDto.Type.CREATE) ? new URI(baseUrl + "/api/v1/create")
+                    : new URI(baseUrl + "/api/v1/delete/" + write.getId());
+        } catch (URISyntaxException uriSyntaxException) {
+            log.error(fcn, uriSyntaxException);
+        }
+
+        if (write.getType() == EmployeeWriteDto.Type.CREATE) {
+            // The id is generated locally, external API generates its own
+            EmployeeDto employee = write.getEmployee();
+            EmployeeDto newEmployee = new EmployeeDto("", employee.getName(), employee.getSalary(), employee.getAge(), employee.getImage());
+            EmployeeServiceDto<EmployeeDto> response = callUpstream(UpstreamRateLimiter.Priority.WRITE, uri,
+                    target -> restTemplate.exchange(target, HttpMethod.POST, new HttpEntity<>(newEmployee), EMPLOYEE_RESPONSE).getBody());
+            log.info("{}{}", fcn, response);
+
+            EmployeeDto createdEmployee = (response == null) ? null : response.getData();
+            if ((createdEmployee != null) && EmployeeStore.hasId(createdEmployee) && !createdEmployee.getId().equals(employee.getId()))
+                remapId(employee, createdEmployee.getId(), writeBehindService, backupService, cacheService);
+        } else {
+            callUpstream(UpstreamRateLimiter.Priority.WRITE, uri, target -> {
+                restTemplate.delete(target);
+                return null;
+            });
+        }
+    }
+
+    // The local id of a sent create is replaced by the one generated by the external API : in the queued deletes,
+    // the backup records and the cached responses (the local id was returned to the client that created it)
+    // Shared with EmployeeAsyncService
+    static void remapId(EmployeeDto employee, String upstreamId, EmployeeWriteBehindService writeBehindService,
+                        EmployeeBackupService backupService, EmployeeCacheService cacheService) {
+        String fcn = "remapId:";
+        EmployeeDto upstreamEmployee = new EmployeeDto(upstreamId, employee.getName(), employee.getSalary(), employee.getAge(), employee.getImage());
+
+        log.info("{}{} -> {}", fcn, employee.getId(), upstreamId);
+        boolean deleted = writeBehindService.remapId(employee.getId(), upstreamId);
+        backupService.deleteEmployeeById(employee.getId());
+        cacheService.applyDelete(employee.getId());
+        if (!deleted) {
+            backupService.putEmployee(upstreamEmployee);
+            cacheService.applyCreate(upstreamEmployee);
+        }
+    }
+
+    // Re-applies a pending create/delete on the local data (write-behind queue reloaded after a restart)
+    static void applyLocally(EmployeeWriteDto write, EmployeeBackupService backupService) {
+        if (write.getType() == EmployeeWriteDto.Type.CREATE)
+            backupService.putLocalEmployee(write.getEmployee());
+        else
+            backupService.deleteEmployeeById(write.getId());
+    }
+
+    // Root of the external API URIs, without trailing '/'
+    static String baseUrl(EmployeeProperties properties) {
+        String baseUrl = properties.getUpstream().getBaseUrl().trim();
+
+        return baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    // Sends the call only when the circuit breaker is not open and the rate limiter grants a token
+    // 429 responses pause the rate limiter for the Retry-After delay
+    // connect/read timeouts and 5xx responses are failures for the circuit breaker
+    // Sent calls are timed by outcome (see EmployeeMetrics)
+    private <T> T callUpstream(UpstreamRateLimiter.Priority priority, URI uri, Function<URI, T> call) {
+        String fcn = "callUpstream:";
+
+        if (!circuitBreaker.tryAcquirePermission())
+            throw new UpstreamUnavailableException("External API circuit breaker is open, call not sent");
+
+        if (!rateLimiter.tryAcquire(priority)) {
+            circuitBreaker.releasePermission();
+            throw new UpstreamUnavailableException("External API rate limit reached, call not sent");
+        }
+
+        long startNanos = System.nanoTime();
+        try {
+            T response = call.apply(uri);
+            metrics.recordUpstreamCall(priority, startNanos, null);
+            circuitBreaker.onSuccess();
+            return response;
+        } catch (HttpClientErrorException.TooManyRequests tooManyRequests) {
+            metrics.recordUpstreamCall(priority, startNanos, tooManyRequests);
+            circuitBreaker.onSuccess();
+            HttpHeaders headers = tooManyRequests.getResponseHeaders();
+            String retryAfter = (headers == null) ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+            log.warn("{}429 from external API, Retry-After : {}", fcn, retryAfter);
+            rateLimiter.onTooManyRequests(UpstreamRateLimiter.parseRetryAfter(retryAfter, rateLimiter.getRefillInterval()));
+            throw new UpstreamUnavailableException("External API rate limit reached (429)");
+        } catch (HttpServerErrorException | ResourceAccessException upstreamException) {
+            metrics.recordUpstreamCall(priority, startNanos, upstreamException);
+            circuitBreaker.onFailure();
+            throw upstreamException;
+        } catch (RuntimeException runtimeException) {
+            metrics.recordUpstreamCall(priority, startNanos, runtimeException);
+            circuitBreaker.onSuccess();
+            throw runtimeException;
+        }
+    }
 }
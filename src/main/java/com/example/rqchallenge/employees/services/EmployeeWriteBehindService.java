@@ -0,0 +1,587 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeWriteDto;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/*
+ * Class : EmployeeWriteBehindService
+ *
+ * Queue of creates/deletes waiting to be sent to the external API (see employees.write-behind.*).
+ * - a delete of an employee whose create is still queued cancels both (coalesced)
+ * - once a create is sent, the queued deletes of its local id use the id generated by the external API
+ * - writes are sent in order by a single background worker, a failed write is retried
+ *   with an exponential backoff and blocks the ones queued after it
+ * - every change of the queue is appended to queue-file (one JSON record per line : ADD of a write,
+ *   REMOVE / ATTEMPT / REMAP of the write with that sequence), fsync'ed in batches every sync-interval
+ *   (sync-interval=0 : every append is fsync'ed before returning). Once compact-threshold records
+ *   are logged, the file is rewritten with the pending writes only (temporary file + atomic rename).
+ *   On startup the log is replayed, a torn record at its end (crash while appending) is cut off.
+ * Writes rejected with a 4xx response are dropped (they would never succeed).
+ */
+@Service
+public class EmployeeWriteBehindService {
+
+    private static final Logger log = LogManager.getLogger(EmployeeWriteBehindService.class);
+    private static final String ADD = "ADD";
+    private static final String REMOVE = "REMOVE";
+    private static final String ATTEMPT = "ATTEMPT";
+    private static final String REMAP = "REMAP";
+    private final EmployeeProperties.WriteBehind properties;
+    private final ObjectMapper objectMapper;
+    private final Path queueFile;
+    private final ArrayDeque<EmployeeWriteDto> pendingWrites = new ArrayDeque<>();
+    private EmployeeWriteDto inFlightWrite;
+    private long nextSequence;
+    private FileChannel channel;
+    private boolean dirty;
+    private int loggedRecords;
+    private ByteArrayOutputStream appendedWhileCompacting;
+    private boolean compacting;
+    private ScheduledExecutorService logExecutor;
+    private ScheduledExecutorService drainExecutor;
+    private Consumer<EmployeeWriteDto> upstreamWriter;
+    private long backoffMillis;
+    private long nextAttemptAt;
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder retried = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public EmployeeWriteBehindService(EmployeeProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties.getWriteBehind();
+        this.objectMapper = objectMapper;
+        this.queueFile = Paths.get(this.properties.getQueueFile());
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @PostConstruct
+    // Reloads the writes that were still pending at the last shutdown (replays the queue log), then accepts appends
+    public synchronized void loadPendingWrites() {
+        String fcn = "loadPendingWrites:";
+
+        if (!isEnabled())
+            return;
+
+        try {
+            Files.createDirectories(queueFile.toAbsolutePath().getParent());
+            byte[] queueLog = Files.exists(queueFile) ? Files.readAllBytes(queueFile) : new byte[0];
+
+            // A JSON array (written before the log format) is imported once, then replaced by a log
+            boolean legacyQueue = (queueLog.length > 0) && (queueLog[0] == '[');
+            int validLength = 0;
+            if (legacyQueue)
+                pendingWrites.addAll(objectMapper.readValue(queueLog, new TypeReference<List<EmployeeWriteDto>>() {}));
+            else
+                validLength = replay(queueLog);
+            for (EmployeeWriteDto write : pendingWrites) {
+                if (legacyQueue)
+                    write.setSequence(nextSequence);
+                nextSequence = Math.max(nextSequence, write.getSequence() + 1);
+            }
+
+            channel = FileChannel.open(queueFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (validLength < channel.size()) {
+                log.warn("{}cutting off {} bytes of torn records", fcn, channel.size() - validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+
+            logExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "employee-write-behind-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long syncIntervalMillis = properties.getSyncInterval().toMillis();
+            if (syncIntervalMillis > 0)
+                logExecutor.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+
+            if (legacyQueue || (loggedRecords >= properties.getCompactThreshold())) {
+                compacting = true;
+                compact();
+            }
+            log.info("{}{}", fcn, pendingWrites.size());
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+        }
+    }
+
+    // Starts the background worker, upstreamWriter sends one write (throws when it failed)
+    public synchronized void start(Consumer<EmployeeWriteDto> upstreamWriter) {
+        if (!isEnabled() || (drainExecutor != null))
+            return;
+
+        this.upstreamWriter = upstreamWriter;
+        this.drainExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "employee-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = Math.max(1, properties.getDrainInterval().toMillis());
+        drainExecutor.scheduleWithFixedDelay(this::drain, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        String fcn = "shutdown:";
+
+        if (drainExecutor != null)
+            drainExecutor.shutdownNow();
+        if (logExecutor != null)
+            logExecutor.shutdownNow();
+
+        synchronized (this) {
+            if (channel == null)
+                return;
+            try {
+                channel.force(false);
+                channel.close();
+            } catch (IOException ioException) {
+                log.error(fcn, ioException);
+            }
+            channel = null;
+        }
+    }
+
+    public synchronized void enqueueCreate(EmployeeDto employee) {
+        enqueue(EmployeeWriteDto.create(employee));
+    }
+
+    // A queued (not yet sent) create of the same employee is cancelled instead of sending both
+    public synchronized void enqueueDelete(String id) {
+        for (Iterator<EmployeeWriteDto> iterator = pendingWrites.iterator(); iterator.hasNext(); ) {
+            EmployeeWriteDto write = iterator.next();
+            if (!id.equals(write.getId()) || (write == inFlightWrite))
+                continue;
+
+            if (write.getType() == EmployeeWriteDto.Type.CREATE) {
+                iterator.remove();
+                coalesced.increment();
+                append(LogRecord.of(REMOVE, write));
+                return;
+            }
+            if (write.getType() == EmployeeWriteDto.Type.DELETE) {
+                coalesced.increment();
+                return;
+            }
+        }
+
+        enqueue(EmployeeWriteDto.delete(id));
+    }
+
+    // The external API acknowledged the create of localId with its own id : queued deletes of localId use it
+    // Returns true when a delete of the employee is still queued (it was deleted locally meanwhile)
+    public synchronized boolean remapId(String localId, String upstreamId) {
+        boolean deleted = false;
+
+        for (EmployeeWriteDto write : pendingWrites) {
+            if ((write.getType() == EmployeeWriteDto.Type.DELETE) && localId.equals(write.getId())) {
+                write.setId(upstreamId);
+                append(LogRecord.of(REMAP, write));
+                deleted = true;
+            }
+        }
+
+        return deleted;
+    }
+
+    // Applies the pending writes on employees fetched from the external API (they are not there yet)
+    public synchronized List<EmployeeDto> overlay(List<EmployeeDto> employees) {
+        if ((employees == null) || pendingWrites.isEmpty())
+            return employees;
+
+        Set<String> deletedIds = new HashSet<>();
+        List<EmployeeDto> createdEmployees = new ArrayList<>();
+        for (EmployeeWriteDto write : pendingWrites) {
+            if (write.getType() == EmployeeWriteDto.Type.DELETE)
+                deletedIds.add(write.getId());
+            else
+                createdEmployees.add(write.getEmployee());
+        }
+
+        List<EmployeeDto> overlaidEmployees = new ArrayList<>(employees.size() + createdEmployees.size());
+        for (EmployeeDto employee : employees) {
+            if (!deletedIds.contains(employee.getId()))
+                overlaidEmployees.add(employee);
+        }
+        for (EmployeeDto employee : createdEmployees) {
+            if (!deletedIds.contains(employee.getId()))
+                overlaidEmployees.add(employee);
+        }
+
+        return overlaidEmployees;
+    }
+
+    public synchronized List<EmployeeWriteDto> getPendingWrites() {
+        return new ArrayList<>(pendingWrites);
+    }
+
+    // Ids of the employees created/deleted by the pending writes (the one being sent included)
+    public synchronized Set<String> getPendingIds() {
+        Set<String> pendingIds = new HashSet<>();
+        for (EmployeeWriteDto write : pendingWrites)
+            pendingIds.add(write.getId());
+
+        return pendingIds;
+    }
+
+    // Sends (at most) batch-size writes, stops at the first failure
+    public void drain() {
+        String fcn = "drain:";
+
+        for (int i = 0; i < properties.getBatchSize(); i++) {
+            EmployeeWriteDto write;
+            synchronized (this) {
+                write = pendingWrites.peekFirst();
+                if ((write == null) || (System.currentTimeMillis() < nextAttemptAt))
+                    return;
+                inFlightWrite = write;
+            }
+
+            boolean completed = false;
+            try {
+                upstreamWriter.accept(write);
+                sent.increment();
+                completed = true;
+            } catch (HttpClientErrorException clientErrorException) {
+                log.error("{}dropping {}", fcn, write, clientErrorException);
+                dropped.increment();
+                completed = true;
+            } catch (RuntimeException runtimeException) {
+                log.warn("{}retrying {} : {}", fcn, write, runtimeException.getMessage());
+                retried.increment();
+            }
+
+            synchronized (this) {
+                inFlightWrite = null;
+                if (completed) {
+                    pendingWrites.remove(write);
+                    backoffMillis = 0;
+                    append(LogRecord.of(REMOVE, write));
+                } else {
+                    write.setAttempts(write.getAttempts() + 1);
+                    backoffMillis = (backoffMillis == 0) ? properties.getInitialBackoff().toMillis()
+                            : Math.min(backoffMillis * 2, properties.getMaxBackoff().toMillis());
+                    nextAttemptAt = System.currentTimeMillis() + backoffMillis;
+                    append(LogRecord.of(ATTEMPT, write));
+                    return;
+                }
+            }
+        }
+    }
+
+    public long getSent() {
+        return sent.sum();
+    }
+
+    public long getRetried() {
+        return retried.sum();
+    }
+
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    // fsyncs the records appended since the last sync (one fsync for all of them)
+    // dirty is only reset once force succeeded, a failed fsync is retried on the next run
+    public void sync() {
+        String fcn = "sync:";
+        FileChannel syncedChannel;
+
+        synchronized (this) {
+            if ((channel == null) || !dirty)
+                return;
+            syncedChannel = channel;
+            dirty = false;
+        }
+
+        try {
+            syncedChannel.force(false);
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    // Rewrites the log with an ADD record per pending write : the records are encoded under the lock,
+    // written and fsync'ed outside of it, the records appended meanwhile are copied after them before the rename
+    void compact() {
+        String fcn = "compact:";
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        Path tempFile = null;
+
+        try {
+            synchronized (this) {
+                if (channel == null)
+                    return;
+                for (EmployeeWriteDto write : pendingWrites)
+                    snapshot.write(encode(LogRecord.of(ADD, write)));
+                appendedWhileCompacting = new ByteArrayOutputStream();
+            }
+
+            Path directory = queueFile.toAbsolutePath().getParent();
+            tempFile = Files.createTempFile(directory, queueFile.getFileName().toString(), ".tmp");
+            try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                write(tempChannel, snapshot.toByteArray());
+                tempChannel.force(true);
+            }
+
+            synchronized (this) {
+                if (channel == null)
+                    return;
+                byte[] appended = appendedWhileCompacting.toByteArray();
+                try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    write(tempChannel, appended);
+                    tempChannel.force(true);
+                }
+                Files.move(tempFile, queueFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                tempFile = null;
+
+                channel.close();
+                channel = FileChannel.open(queueFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                loggedRecords = pendingWrites.size() + countRecords(appended);
+                dirty = false;
+            }
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+        } finally {
+            synchronized (this) {
+                appendedWhileCompacting = null;
+                compacting = false;
+            }
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ioException) {
+                    log.error(fcn, ioException);
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock
+    private void enqueue(EmployeeWriteDto write) {
+        write.setSequence(nextSequence++);
+        pendingWrites.addLast(write);
+        append(LogRecord.of(ADD, write));
+    }
+
+    // Appends one record to the log (caller holds the lock), fsync'ed by sync unless sync-interval is 0
+    private void append(LogRecord record) {
+        String fcn = "append:";
+
+        if (channel == null)
+            return;
+
+        try {
+            byte[] encodedRecord = encode(record);
+            write(channel, encodedRecord);
+            if (appendedWhileCompacting != null)
+                appendedWhileCompacting.write(encodedRecord);
+
+            loggedRecords++;
+            if (properties.getSyncInterval().toMillis() > 0)
+                dirty = true;
+            else
+                channel.force(false);
+
+            if ((loggedRecords >= properties.getCompactThreshold()) && !compacting) {
+                compacting = true;
+                logExecutor.execute(this::compact);
+            }
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+        }
+    }
+
+    // Applies the log records to pendingWrites, stops at the first incomplete/unreadable one
+    // Returns the length of the valid part of the log
+    private int replay(byte[] queueLog) {
+        Map<Long, EmployeeWriteDto> writes = new LinkedHashMap<>();
+        int validLength = 0;
+
+        for (int end = indexOf(queueLog, validLength); end >= 0; end = indexOf(queueLog, validLength)) {
+            LogRecord record;
+            try {
+                record = objectMapper.readValue(queueLog, validLength, end - validLength, LogRecord.class);
+            } catch (IOException ioException) {
+                break;
+            }
+
+            EmployeeWriteDto write = (record.getWrite() != null) ? record.getWrite() : writes.get(record.getSequence());
+            if (ADD.equals(record.getType()) && (write != null))
+                writes.put(write.getSequence(), write);
+            else if (REMOVE.equals(record.getType()))
+                writes.remove(record.getSequence());
+            else if (ATTEMPT.equals(record.getType()) && (write != null))
+                write.setAttempts(record.getAttempts());
+            else if (REMAP.equals(record.getType()) && (write != null))
+                write.setId(record.getId());
+
+            validLength = end + 1;
+            loggedRecords++;
+        }
+
+        pendingWrites.addAll(writes.values());
+        return validLength;
+    }
+
+    private byte[] encode(LogRecord record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        byte[] line = Arrays.copyOf(json, json.length + 1);
+
+        line[json.length] = '\n';
+        return line;
+    }
+
+    private static void write(FileChannel fileChannel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        while (buffer.hasRemaining())
+            fileChannel.write(buffer);
+    }
+
+    // Position of the next line end at or after from (-1 : none, the rest is a torn record)
+    private static int indexOf(byte[] bytes, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == '\n')
+                return i;
+        }
+
+        return -1;
+    }
+
+    private static int countRecords(byte[] bytes) {
+        int records = 0;
+
+        for (byte b : bytes) {
+            if (b == '\n')
+                records++;
+        }
+
+        return records;
+    }
+
+    /*
+     * Class : LogRecord
+     *
+     * One change of the queue : ADD holds the write, the other types refer to it by sequence
+     * (ATTEMPT : its attempts, REMAP : its id)
+     */
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    static final class LogRecord {
+
+        private String type;
+
+        private long sequence;
+
+        private EmployeeWriteDto write;
+
+        private int attempts;
+
+        private String id;
+
+        public LogRecord() {
+        }
+
+        private static LogRecord of(String type, EmployeeWriteDto write) {
+            LogRecord record = new LogRecord();
+            record.type = type;
+            if (ADD.equals(type))
+                record.write = write;
+            else
+                record.sequence = write.getSequence();
+            if (ATTEMPT.equals(type))
+                record.attempts = write.getAttempts();
+            else if (REMAP.equals(type))
+                record.id = write.getId();
+
+            return record;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public void setSequence(long sequence) {
+            this.sequence = sequence;
+        }
+
+        public EmployeeWriteDto getWrite() {
+            return write;
+        }
+
+        public void setWrite(EmployeeWriteDto write) {
+            this.write = write;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+
+        public void setAttempts(int attempts) {
+            this.attempts = attempts;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.rqchallenge.employees.services.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Class : SingleFlight
+ *
+ * Coalesces concurrent calls for the same key.
+ * The first caller executes the call, callers arriving while it is in flight
+ * wait for it and receive the same result (or the same exception).
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executedCalls = new LongAdder();
+    private final LongAdder sharedCalls = new LongAdder();
+
+    // Executes call for key, unless a call for the same key is already in flight
+    public V execute(K key, Function<K, V> call) {
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> existingCall = inFlight.putIfAbsent(key, ownCall);
+
+        if (existingCall != null) {
+            sharedCalls.increment();
+            return await(existingCall);
+        }
+
+        executedCalls.increment();
+        try {
+            V value = call.apply(key);
+            ownCall.complete(value);
+            return value;
+        } catch (RuntimeException | Error throwable) {
+            ownCall.completeExceptionally(throwable);
+            throw throwable;
+        } finally {
+            inFlight.remove(key, ownCall);
+        }
+    }
+
+    // Non-blocking variant : callers arriving while the call is in flight get the same future
+    public CompletableFuture<V> executeAsync(K key, Function<K, CompletableFuture<V>> call) {
+        CompletableFuture<V> ownCall = new CompletableFuture<>();
+        CompletableFuture<V> existingCall = inFlight.putIfAbsent(key, ownCall);
+
+        if (existingCall != null) {
+            sharedCalls.increment();
+            return existingCall;
+        }
+
+        executedCalls.increment();
+        try {
+            call.apply(key).whenComplete((value, throwable) -> {
+                inFlight.remove(key, ownCall);
+                if (throwable != null)
+                    ownCall.completeExceptionally(throwable);
+                else
+                    ownCall.complete(value);
+            });
+        } catch (RuntimeException | Error throwable) {
+            inFlight.remove(key, ownCall);
+            ownCall.completeExceptionally(throwable);
+        }
+
+        return ownCall;
+    }
+
+    // Number of calls that were actually executed
+    public long getExecutedCalls() {
+        return executedCalls.sum();
+    }
+
+    // Number of calls that were served by an in-flight call
+    public long getSharedCalls() {
+        return sharedCalls.sum();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.join();
+        } catch (CompletionException completionException) {
+            Throwable cause = completionException.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw completionException;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.rqchallenge.employees.services.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+ * Class : StaleWhileRevalidateCache
+ *
+ * Key/value cache with a time-to-live.
+ * - age < ttl              : value is served as is (hit)
+ * - age < ttl + maxStale   : value is served and one background refresh is started (stale hit)
+ * - otherwise / not cached : value is loaded by the caller thread (miss)
+ * Loads of a key are single-flighted (misses and refreshes alike) : concurrent callers wait for the
+ * load in flight and share the value it built and cached, loader runs once.
+ * Null values and failed loads are never cached.
+ */
+public class StaleWhileRevalidateCache<K, V> {
+
+    private static final Logger log = LogManager.getLogger(StaleWhileRevalidateCache.class);
+    private final String name;
+    private final long ttlNanos;
+    private final long maxAgeNanos;
+    private final Executor refreshExecutor;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final SingleFlight<K, V> loads = new SingleFlight<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public StaleWhileRevalidateCache(String name, Duration ttl, Duration maxStale, Executor refreshExecutor) {
+        this.name = name;
+        this.ttlNanos = ttl.toNanos();
+        this.maxAgeNanos = ttlNanos + maxStale.toNanos();
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    // Returns the cached value for key, loading it with loader when missing or too old
+    public V get(K key, Function<K, V> loader) {
+        V value = getIfLoaded(key, loader);
+        if (value != null)
+            return value;
+
+        misses.increment();
+        return load(key, loader);
+    }
+
+    // Returns the value get serves without loading it : fresh, or stale (one background refresh is started),
+    // null when missing or older than max-stale (get would load it on the caller thread)
+    public V getIfLoaded(K key, Function<K, V> loader) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < maxAgeNanos) {
+                staleHits.increment();
+                refreshInBackground(key, loader);
+                return entry.value;
+            }
+        }
+
+        return null;
+    }
+
+    // Non-blocking variant of get, loader returns a future (a stale refresh needs no executor thread)
+    public CompletableFuture<V> getAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        V value = getIfLoadedAsync(key, loader);
+        if (value != null)
+            return CompletableFuture.completedFuture(value);
+
+        misses.increment();
+        return loadAsync(key, loader);
+    }
+
+    // Variant of getIfLoaded for a loader returning a future (see getAsync)
+    public V getIfLoadedAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry != null) {
+            long age = System.nanoTime() - entry.loadedAt;
+            if (age < ttlNanos) {
+                hits.increment();
+                return entry.value;
+            }
+            if (age < maxAgeNanos) {
+                staleHits.increment();
+                refreshAsync(key, loader);
+                return entry.value;
+            }
+        }
+
+        return null;
+    }
+
+    // Returns the cached value (fresh or stale) without loading it
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if ((entry == null) || (System.nanoTime() - entry.loadedAt >= maxAgeNanos))
+            return null;
+
+        return entry.value;
+    }
+
+    // Stores value as a freshly loaded entry
+    public void put(K key, V value) {
+        if (value != null)
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    // Marks the entry as expired, it is still served (stale) until it is refreshed
+    public void expire(K key) {
+        entries.computeIfPresent(key, (k, entry) -> new Entry<>(entry.value, System.nanoTime() - ttlNanos));
+    }
+
+    public void expireAll() {
+        entries.replaceAll((k, entry) -> new Entry<>(entry.value, System.nanoTime() - ttlNanos));
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Callers arriving while a load of key is in flight get its value, the value is cached before they do
+    private V load(K key, Function<K, V> loader) {
+        return loads.execute(key, k -> {
+            // Loaded by a flight that completed after the caller missed
+            V value = getIfFresh(k);
+            if (value != null)
+                return value;
+
+            value = loader.apply(k);
+            put(k, value);
+            return value;
+        });
+    }
+
+    private CompletableFuture<V> loadAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        return loads.executeAsync(key, k -> {
+            V value = getIfFresh(k);
+            if (value != null)
+                return CompletableFuture.completedFuture(value);
+
+            return loader.apply(k).thenApply(loadedValue -> {
+                put(k, loadedValue);
+                return loadedValue;
+            });
+        });
+    }
+
+    private V getIfFresh(K key) {
+        Entry<V> entry = entries.get(key);
+
+        return ((entry == null) || (System.nanoTime() - entry.loadedAt >= ttlNanos)) ? null : entry.value;
+    }
+
+    // At most one background refresh per key is in flight
+    private void refreshInBackground(K key, Function<K, V> loader) {
+        String fcn = "refreshInBackground:";
+
+        if (!refreshing.add(key))
+            return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (RuntimeException runtimeException) {
+                    log.error("{}{} : {}", fcn, name, key, runtimeException);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException rejectedExecutionException) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void refreshAsync(K key, Function<K, CompletableFuture<V>> loader) {
+        String fcn = "refreshAsync:";
+
+        if (!refreshing.add(key))
+            return;
+
+        try {
+            loadAsync(key, loader).whenComplete((value, throwable) -> {
+                if (throwable != null)
+                    log.error("{}{} : {}", fcn, name, key, throwable);
+                refreshing.remove(key);
+            });
+        } catch (RuntimeException runtimeException) {
+            log.error("{}{} : {}", fcn, name, key, runtimeException);
+            refreshing.remove(key);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+        private final long loadedAt;
+
+        private Entry(V value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
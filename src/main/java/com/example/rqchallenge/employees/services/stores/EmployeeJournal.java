@@ -0,0 +1,392 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/*
+ * Class : EmployeeJournal
+ *
+ * Durable storage of an EmployeeStore (see employees.backup.*) :
+ * - journal.log   : append-only log of put/delete records, written through a FileChannel
+ *                   (put local : record created locally, see EmployeeStore.putLocal)
+ * - snapshot.bin  : compacted copy of all records (see EmployeeSnapshot), the log only holds the changes made after it
+ * Appends are fsync'ed in batches every sync-interval by a background thread (sync-interval=0 :
+ * every append is fsync'ed before returning). Once compact-threshold records are logged a new
+ * snapshot is written (temporary file + atomic rename) and the log is rotated : the records appended
+ * while the snapshot was written are kept (replaying a put/delete the snapshot already holds is harmless),
+ * so appends only wait for the rotation, not for the snapshot. The snapshot holds the records only :
+ * the rotated log starts with a put local of each record created locally, so their origin survives a restart.
+ * On open the snapshot is loaded and the log is replayed from a read-only memory map,
+ * a torn/corrupted record at the end of the log (crash while appending) is cut off.
+ *
+ * Record : int length, int crc32 (of type + payload), byte type, payload (see EmployeeRecordCodec)
+ */
+public class EmployeeJournal {
+
+    private static final Logger log = LogManager.getLogger(EmployeeJournal.class);
+    private static final String LOG_FILE = "journal.log";
+    public static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String JSON_SNAPSHOT_FILE = "snapshot.json";
+    private static final int HEADER_SIZE = 8;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte PUT_LOCAL = 3;
+    private final Path logFile;
+    private final Path snapshotFile;
+    private final Path jsonSnapshotFile;
+    private final long syncIntervalMillis;
+    private final int compactThreshold;
+    private final ObjectMapper objectMapper;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Held for a whole compaction (one at a time), lock only while the log is rotated
+    private final ReentrantLock compactLock = new ReentrantLock();
+    private final CRC32 checksum = new CRC32();
+    private ByteBuffer recordBuffer = ByteBuffer.allocate(512);
+    private FileChannel channel;
+    private EmployeeStore employeeStore;
+    private ScheduledExecutorService journalExecutor;
+    private long writtenRecords;
+    private long syncedRecords;
+    private boolean compacting;
+    private int loggedRecords;
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    public EmployeeJournal(Path directory, Duration syncInterval, int compactThreshold, ObjectMapper objectMapper) {
+        this.logFile = directory.resolve(LOG_FILE);
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.jsonSnapshotFile = directory.resolve(JSON_SNAPSHOT_FILE);
+        this.syncIntervalMillis = syncInterval.toMillis();
+        this.compactThreshold = Math.max(1, compactThreshold);
+        this.objectMapper = objectMapper;
+    }
+
+    // False on first start (the store has to be seeded before open)
+    public boolean hasSnapshot() {
+        return Files.exists(snapshotFile) || Files.exists(jsonSnapshotFile);
+    }
+
+    // Loads the snapshot (if any) and replays the log into employeeStore, then accepts appends
+    // Returns the number of replayed log records
+    public int open(EmployeeStore employeeStore) throws IOException {
+        String fcn = "open:";
+        int replayedRecords;
+
+        lock.lock();
+        try {
+            Files.createDirectories(logFile.toAbsolutePath().getParent());
+            this.employeeStore = employeeStore;
+
+            // A JSON snapshot (written before the binary format) is imported once, then replaced by a binary one
+            boolean snapshotFound = Files.exists(snapshotFile);
+            if (snapshotFound)
+                employeeStore.replaceAll(EmployeeSnapshot.read(snapshotFile));
+            else if (Files.exists(jsonSnapshotFile))
+                employeeStore.replaceAll(objectMapper.readValue(jsonSnapshotFile.toFile(), new TypeReference<List<EmployeeDto>>() {}));
+
+            channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long validLength = replay(employeeStore);
+            if (validLength < channel.size()) {
+                log.warn("{}cutting off {} bytes of torn/corrupted records", fcn, channel.size() - validLength);
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+            channel.position(validLength);
+            replayedRecords = loggedRecords;
+
+            journalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "employee-journal");
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (syncIntervalMillis > 0)
+                journalExecutor.scheduleWithFixedDelay(this::sync, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+
+            log.info("{}{} records, {} replayed", fcn, employeeStore.size(), replayedRecords);
+        } finally {
+            lock.unlock();
+        }
+
+        // First start (or JSON snapshot) : the loaded records are written as the first binary snapshot
+        if (!Files.exists(snapshotFile)) {
+            compact();
+            Files.deleteIfExists(jsonSnapshotFile);
+        }
+
+        return replayedRecords;
+    }
+
+    public void appendPut(EmployeeDto employee) {
+        append(PUT, employee, employee.getIdValue());
+    }
+
+    public void appendPutLocal(EmployeeDto employee) {
+        append(PUT_LOCAL, employee, employee.getIdValue());
+    }
+
+    public void appendDelete(long id) {
+        append(DELETE, null, id);
+    }
+
+    // fsyncs the appends made since the last sync (one fsync for all of them)
+    // They count as synced only once force succeeded : a failed fsync is retried by the next sync
+    public void sync() {
+        String fcn = "sync:";
+        FileChannel syncChannel;
+        long syncedUpTo;
+
+        lock.lock();
+        try {
+            if ((channel == null) || (syncedRecords == writtenRecords))
+                return;
+            syncChannel = channel;
+            syncedUpTo = writtenRecords;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            syncChannel.force(false);
+        } catch (IOException ioException) {
+            // A channel closed meanwhile was rotated (its records fsync'ed) or the journal was closed
+            if (syncChannel.isOpen())
+                log.error(fcn, ioException);
+            return;
+        }
+
+        lock.lock();
+        try {
+            syncedRecords = Math.max(syncedRecords, syncedUpTo);
+            syncs.increment();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes a snapshot of the store then rotates the log (the snapshot holds every change logged before it)
+    // The store is copied and the snapshot written without lock, appends go on meanwhile
+    public void compact() {
+        String fcn = "compact:";
+        long rotatePosition;
+        int rotatedRecords;
+
+        compactLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (channel == null)
+                    return;
+                rotatePosition = channel.position();
+                rotatedRecords = loggedRecords;
+            } finally {
+                lock.unlock();
+            }
+
+            // A record appended from here on is in the store before it is logged : it may or may not be in
+            // the copy, it stays in the log either way
+            EmployeeSnapshot.replace(snapshotFile, employeeStore.getAllEmployees());
+            rotateLog(rotatePosition, rotatedRecords);
+            compactions.increment();
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+        } finally {
+            lock.lock();
+            compacting = false;
+            lock.unlock();
+            compactLock.unlock();
+        }
+    }
+
+    public void close() {
+        String fcn = "close:";
+
+        if (journalExecutor != null)
+            journalExecutor.shutdownNow();
+
+        lock.lock();
+        try {
+            if (channel == null)
+                return;
+            channel.force(false);
+            channel.close();
+            channel = null;
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Records written to the log since the last snapshot
+    public int getLoggedRecords() {
+        lock.lock();
+        try {
+            return loggedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getSyncs() {
+        return syncs.sum();
+    }
+
+    public long getCompactions() {
+        return compactions.sum();
+    }
+
+    private void append(byte type, EmployeeDto employee, long id) {
+        String fcn = "append:";
+
+        lock.lock();
+        try {
+            if (channel == null)
+                return;
+
+            writeRecord(channel, type, employee, id);
+            appended.increment();
+            loggedRecords++;
+            writtenRecords++;
+            if (syncIntervalMillis <= 0) {
+                channel.force(false);
+                syncedRecords = writtenRecords;
+                syncs.increment();
+            }
+
+            if ((loggedRecords >= compactThreshold) && !compacting) {
+                compacting = true;
+                journalExecutor.execute(this::compact);
+            }
+        } catch (IOException ioException) {
+            log.error(fcn, ioException);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Applies the log records to employeeStore, stops at the first incomplete/corrupted one
+    // Returns the length of the valid part of the log
+    private long replay(EmployeeStore employeeStore) throws IOException {
+        long size = channel.size();
+
+        if (size == 0)
+            return 0;
+        if (size > Integer.MAX_VALUE)
+            throw new IOException(logFile + " is too large to be replayed (" + size + " bytes)");
+
+        MappedByteBuffer mappedLog = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 recordChecksum = new CRC32();
+        int validLength = 0;
+
+        while (mappedLog.remaining() >= HEADER_SIZE) {
+            int length = mappedLog.getInt();
+            int expectedChecksum = mappedLog.getInt();
+            if ((length < 1) || (length > mappedLog.remaining()))
+                break;
+
+            ByteBuffer record = mappedLog.slice();
+            record.limit(length);
+            recordChecksum.reset();
+            recordChecksum.update(record.duplicate());
+            if ((int) recordChecksum.getValue() != expectedChecksum)
+                break;
+
+            byte type = record.get();
+            if (type == PUT)
+                employeeStore.put(EmployeeRecordCodec.read(record));
+            else if (type == PUT_LOCAL)
+                employeeStore.putLocal(EmployeeRecordCodec.read(record));
+            else if (type == DELETE)
+                employeeStore.remove(record.getLong());
+            else
+                break;
+
+            mappedLog.position(mappedLog.position() + length);
+            validLength = mappedLog.position();
+            loggedRecords++;
+        }
+
+        return validLength;
+    }
+
+    // Appends one record to logChannel, called under lock (recordBuffer and checksum are shared)
+    private void writeRecord(FileChannel logChannel, byte type, EmployeeDto employee, long id) throws IOException {
+        int maxLength = 1 + ((employee == null) ? 8 : EmployeeRecordCodec.maxSize(employee));
+        if (recordBuffer.capacity() < HEADER_SIZE + maxLength)
+            recordBuffer = ByteBuffer.allocate(HEADER_SIZE + maxLength);
+
+        recordBuffer.clear();
+        recordBuffer.position(HEADER_SIZE);
+        recordBuffer.put(type);
+        if (employee == null)
+            recordBuffer.putLong(id);
+        else
+            EmployeeRecordCodec.write(recordBuffer, employee);
+
+        int length = recordBuffer.position() - HEADER_SIZE;
+        checksum.reset();
+        checksum.update(recordBuffer.array(), HEADER_SIZE, length);
+        recordBuffer.putInt(0, length);
+        recordBuffer.putInt(4, (int) checksum.getValue());
+        recordBuffer.flip();
+        while (recordBuffer.hasRemaining())
+            logChannel.write(recordBuffer);
+    }
+
+    // Replaces the log by the records appended after rotatePosition (temporary file + atomic rename) :
+    // a crash leaves either the whole log or its tail, both replay to the same records over the new snapshot
+    private void rotateLog(long rotatePosition, int rotatedRecords) throws IOException {
+        lock.lock();
+        try {
+            if (channel == null)
+                return;
+
+            Path tempFile = Files.createTempFile(logFile.toAbsolutePath().getParent(), LOG_FILE, ".tmp");
+            try (FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                long tailLength = channel.position() - rotatePosition;
+                for (long copied = 0; copied < tailLength; )
+                    copied += channel.transferTo(rotatePosition + copied, tailLength - copied, tempChannel);
+                // Origin of the local records (the snapshot does not hold it), replayed after the tail :
+                // the store already holds the changes of the tail
+                tempChannel.position(tailLength);
+                for (EmployeeDto employee : employeeStore.getLocalEmployees())
+                    writeRecord(tempChannel, PUT_LOCAL, employee, employee.getIdValue());
+                tempChannel.force(true);
+            }
+            Files.move(tempFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            channel.close();
+            channel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+            loggedRecords -= rotatedRecords;
+            syncedRecords = writtenRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Class : EmployeeRecordCodec
+ *
+ * Binary layout of an employee record (see EmployeeJournal) :
+ * long id, long salary, int age, name, image [, id text, salary text, age text]
+ * Strings are an int byte length (-1 for null) followed by their UTF-8 bytes.
+ * Numeric fields are kept as parsed (NOT_SET / NOT_A_NUMBER included), no text is parsed on reload.
+ * The texts of the numeric fields are only written when they are not the formatted values
+ * (leading zeros, non-numeric, see EmployeeDto.hasCanonicalNumbers), records are length-delimited
+ * so a record without them (the common case, and every record written before) ends after image.
+ */
+final class EmployeeRecordCodec {
+
+    private EmployeeRecordCodec() {
+    }
+
+    // Upper bound of the encoded size (UTF-8 needs at most 3 bytes per UTF-16 char)
+    static int maxSize(EmployeeDto employee) {
+        int size = 8 + 8 + 4 + maxSize(employee.getName()) + maxSize(employee.getImage());
+
+        return employee.hasCanonicalNumbers() ? size
+                : size + maxSize(employee.getId()) + maxSize(employee.getSalary()) + maxSize(employee.getAge());
+    }
+
+    static void write(ByteBuffer buffer, EmployeeDto employee) {
+        buffer.putLong(employee.getIdValue());
+        buffer.putLong(employee.getSalaryValue());
+        buffer.putInt(employee.getAgeValue());
+        write(buffer, employee.getName());
+        write(buffer, employee.getImage());
+        if (!employee.hasCanonicalNumbers()) {
+            write(buffer, employee.getId());
+            write(buffer, employee.getSalary());
+            write(buffer, employee.getAge());
+        }
+    }
+
+    static EmployeeDto read(ByteBuffer buffer) {
+        EmployeeDto employee = new EmployeeDto();
+
+        employee.setIdValue(buffer.getLong());
+        employee.setSalaryValue(buffer.getLong());
+        employee.setAgeValue(buffer.getInt());
+        employee.setName(readString(buffer));
+        employee.setImage(readString(buffer));
+        if (buffer.hasRemaining()) {
+            employee.setId(readString(buffer));
+            employee.setSalary(readString(buffer));
+            employee.setAge(readString(buffer));
+        }
+
+        return employee;
+    }
+
+    private static int maxSize(String value) {
+        return 4 + ((value == null) ? 0 : value.length() * 3);
+    }
+
+    private static void write(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
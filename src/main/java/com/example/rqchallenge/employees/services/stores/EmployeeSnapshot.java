@@ -0,0 +1,110 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Class : EmployeeSnapshot
+ *
+ * Binary snapshot of employee records (startup format, JSON stays the import format) :
+ * - header : int magic ("EMPS"), int format version, int record count
+ * - record : int length, payload (see EmployeeRecordCodec)
+ * Written through a FileChannel in 64KB chunks, read back from a read-only memory map :
+ * records are decoded in place, there is no text to tokenize and no numeric field to parse.
+ */
+public final class EmployeeSnapshot {
+
+    private static final int MAGIC = 0x454D5053;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private EmployeeSnapshot() {
+    }
+
+    // Writes (and fsyncs) the records to file, callers rename it into place
+    public static void write(Path file, Collection<EmployeeDto> employees) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+            chunk.putInt(MAGIC);
+            chunk.putInt(FORMAT_VERSION);
+            chunk.putInt(employees.size());
+
+            for (EmployeeDto employee : employees) {
+                int maxLength = 4 + EmployeeRecordCodec.maxSize(employee);
+                if (chunk.remaining() < maxLength) {
+                    flush(channel, chunk);
+                    if (chunk.capacity() < maxLength)
+                        chunk = ByteBuffer.allocate(maxLength);
+                }
+
+                int start = chunk.position();
+                chunk.position(start + 4);
+                EmployeeRecordCodec.write(chunk, employee);
+                chunk.putInt(start, chunk.position() - start - 4);
+            }
+
+            flush(channel, chunk);
+            channel.force(true);
+        }
+    }
+
+    // Writes the records to a temporary file (fsync'ed) then renames it to file :
+    // a crash leaves either the old or the new snapshot
+    public static void replace(Path file, Collection<EmployeeDto> employees) throws IOException {
+        Path tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+
+        write(tempFile, employees);
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Decodes all the records of file (in the order they were written)
+    public static List<EmployeeDto> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if ((size < HEADER_SIZE) || (size > Integer.MAX_VALUE))
+                throw new IOException(file + " is not a valid snapshot (" + size + " bytes)");
+
+            MappedByteBuffer mappedSnapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if ((mappedSnapshot.getInt() != MAGIC) || (mappedSnapshot.getInt() != FORMAT_VERSION))
+                throw new IOException(file + " is not a valid snapshot (unknown magic/format version)");
+
+            int recordCount = mappedSnapshot.getInt();
+            List<EmployeeDto> employees = new ArrayList<>(recordCount);
+            for (int i = 0; i < recordCount; i++) {
+                if (mappedSnapshot.remaining() < 4)
+                    throw new IOException(file + " is truncated (" + i + "/" + recordCount + " records)");
+
+                int length = mappedSnapshot.getInt();
+                if ((length < 0) || (length > mappedSnapshot.remaining()))
+                    throw new IOException(file + " is truncated (" + i + "/" + recordCount + " records)");
+
+                ByteBuffer record = mappedSnapshot.slice();
+                record.limit(length);
+                employees.add(EmployeeRecordCodec.read(record));
+                mappedSnapshot.position(mappedSnapshot.position() + length);
+            }
+
+            return employees;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer chunk) throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining())
+            channel.write(chunk);
+        chunk.clear();
+    }
+}
@@ -0,0 +1,527 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Class : EmployeeStore
+ *
+ * Thread-safe in-memory store of employee records.
+ * - id index : O(1) lookup by employee id (numeric id)
+ * - ordering : records in insertion order, iteration never throws
+ *              ConcurrentModificationException (weakly consistent),
+ *              pages are read from a sequence number (see Page)
+ * - salary   : records ordered by salary (see SalaryIndex)
+ * - name     : trigram index for substring search on names (see NameSearchIndex)
+ * - stats    : salary and age distributions (see ValueDistribution), aggregates computed once per version
+ * - version  : hash of the records and their positions, kept up to date on every write
+ *              (same records in the same order give the same version, see getVersion)
+ * Writers are serialized to keep both structures in sync, readers never block.
+ * Records are keyed by id : a record without a (numeric) id cannot be stored, replaceAll/reconcile skip it.
+ * Records created locally (putLocal, e.g. while the external API was unavailable) are kept by reconcile
+ * until the external API lists their id.
+ */
+public class EmployeeStore {
+
+    private final ConcurrentHashMap<Long, Entry> employeesById = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, EmployeeDto> employeesInOrder = new ConcurrentSkipListMap<>();
+    private final Set<Long> localIds = ConcurrentHashMap.newKeySet();
+    private final SalaryIndex salaryIndex = new SalaryIndex();
+    private final NameSearchIndex nameSearchIndex = new NameSearchIndex();
+    // Salaries are counted per 1000 (percentile lookups walk the salaries of one such bucket)
+    private final ValueDistribution salaries = new ValueDistribution(1000);
+    private final ValueDistribution ages = new ValueDistribution(1);
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Epochs of the stores of this process follow a random start, epochs of a previous run do not match
+    private static final AtomicLong EPOCHS = new AtomicLong(ThreadLocalRandom.current().nextLong(1L << 40));
+    private long nextSequence;
+    private volatile long epoch = EPOCHS.incrementAndGet();
+    private volatile long version;
+    private volatile long lastModified = System.currentTimeMillis();
+    private volatile Statistics statistics;
+
+    public EmployeeStore() {
+    }
+
+    public EmployeeStore(Collection<EmployeeDto> employees) {
+        replaceAll(employees);
+    }
+
+    // Returns a copy of all employee records (insertion order)
+    public List<EmployeeDto> getAllEmployees() {
+        return new ArrayList<>(employeesInOrder.values());
+    }
+
+    // Returns (at most) limit employee records (insertion order), stops reading after limit records
+    public List<EmployeeDto> getEmployees(int limit) {
+        return first(employeesInOrder.values(), limit);
+    }
+
+    // Returns (at most) limit employee records following afterSequence (insertion order, -1 for the first page),
+    // seeks to afterSequence instead of reading the previous pages
+    public Page getPage(long afterSequence, int limit) {
+        List<EmployeeDto> employees = new ArrayList<>();
+        long lastSequence = afterSequence;
+
+        Iterator<Map.Entry<Long, EmployeeDto>> iterator = employeesInOrder.tailMap(afterSequence, false).entrySet().iterator();
+        while ((employees.size() < limit) && iterator.hasNext()) {
+            Map.Entry<Long, EmployeeDto> entry = iterator.next();
+            employees.add(entry.getValue());
+            lastSequence = entry.getKey();
+        }
+
+        return new Page(employees, lastSequence, iterator.hasNext());
+    }
+
+    // Sequence of the record with given id, -1 when it is not stored
+    // (a refresh rebuilds the store, the id keeps a page boundary stable across it)
+    public long getSequence(String id) {
+        Entry entry = employeesById.get(EmployeeDto.parseLong(id));
+
+        return (entry == null) ? -1 : entry.sequence;
+    }
+
+    // Changes whenever the sequences are renumbered (new store, replaceAll) : sequences read in
+    // another epoch do not point to the same position
+    public long getEpoch() {
+        return epoch;
+    }
+
+    // Read-only live view of all employee records (insertion order)
+    public Collection<EmployeeDto> values() {
+        return Collections.unmodifiableCollection(employeesInOrder.values());
+    }
+
+    public EmployeeDto getEmployeeById(String id) {
+        return getEmployeeById(EmployeeDto.parseLong(id));
+    }
+
+    public EmployeeDto getEmployeeById(long id) {
+        Entry entry = employeesById.get(id);
+
+        return (entry == null) ? null : entry.employee;
+    }
+
+    public boolean containsId(long id) {
+        return employeesById.containsKey(id);
+    }
+
+    public int size() {
+        return employeesById.size();
+    }
+
+    // Returns the employee with highest salary (or null if store is empty)
+    public EmployeeDto getHighestEarningEmployee() {
+        return salaryIndex.getHighestEarningEmployee();
+    }
+
+    // Returns (at most) k employees with highest salaries, highest first
+    public List<EmployeeDto> getTopEarningEmployees(int k) {
+        return salaryIndex.getTopEarningEmployees(k);
+    }
+
+    // Returns the employee records whose name contains searchString (case insensitive, insertion order)
+    public List<EmployeeDto> searchByName(String searchString) {
+        List<EmployeeDto> matchedEmployees = new ArrayList<>();
+
+        for (Long sequence : nameSearchIndex.search(searchString)) {
+            EmployeeDto employee = employeesInOrder.get(sequence);
+            if (employee != null)
+                matchedEmployees.add(employee);
+        }
+
+        return matchedEmployees;
+    }
+
+    // Returns (at most) limit employee records following afterSequence whose name contains searchString
+    public Page searchByName(String searchString, long afterSequence, int limit) {
+        List<EmployeeDto> matchedEmployees = new ArrayList<>();
+        long lastSequence = afterSequence;
+
+        // One more match tells whether a next page exists
+        List<Long> sequences = nameSearchIndex.search(searchString, afterSequence, limit + 1);
+        for (Long sequence : sequences.subList(0, Math.min(limit, sequences.size()))) {
+            EmployeeDto employee = employeesInOrder.get(sequence);
+            if (employee != null)
+                matchedEmployees.add(employee);
+            lastSequence = sequence;
+        }
+
+        return new Page(matchedEmployees, lastSequence, sequences.size() > limit);
+    }
+
+    // Returns a copy of all employee records ordered by salary
+    public List<EmployeeDto> getEmployeesBySalary(boolean descending) {
+        return new ArrayList<>(salaryIndex.getEmployeesBySalary(descending));
+    }
+
+    // Returns (at most) limit employee records ordered by salary, stops reading after limit records
+    public List<EmployeeDto> getEmployeesBySalary(boolean descending, int limit) {
+        return first(salaryIndex.getEmployeesBySalary(descending), limit);
+    }
+
+    // Adds the employee record (of the external API), a record with the same id is replaced (keeping its position)
+    public void put(EmployeeDto employee) {
+        put(employee, false);
+    }
+
+    // Adds the employee record as created locally (the external API does not know it, see reconcile)
+    public void putLocal(EmployeeDto employee) {
+        put(employee, true);
+    }
+
+    public boolean isLocal(long id) {
+        return localIds.contains(id);
+    }
+
+    // Records created locally (see putLocal), read for each id of the local records only
+    public List<EmployeeDto> getLocalEmployees() {
+        List<EmployeeDto> localEmployees = new ArrayList<>();
+
+        for (Long id : localIds) {
+            EmployeeDto employee = getEmployeeById(id);
+            if (employee != null)
+                localEmployees.add(employee);
+        }
+
+        return localEmployees;
+    }
+
+    private void put(EmployeeDto employee, boolean local) {
+        if (!hasId(employee))
+            throw new IllegalArgumentException("Employee id not valid : " + employee.getId());
+
+        writeLock.lock();
+        try {
+            if (local)
+                localIds.add(employee.getIdValue());
+            else
+                localIds.remove(employee.getIdValue());
+
+            Entry existing = employeesById.get(employee.getIdValue());
+            long sequence = (existing == null) ? nextSequence++ : existing.sequence;
+
+            if (existing != null) {
+                salaryIndex.remove(existing.salaryKey);
+                nameSearchIndex.remove(sequence);
+                salaries.remove(existing.employee.getSalaryValue());
+                ages.remove(existing.employee.getAgeValue());
+            }
+            SalaryIndex.Key salaryKey = salaryIndex.add(sequence, employee);
+            nameSearchIndex.add(sequence, employee.getName());
+            salaries.add(employee.getSalaryValue());
+            ages.add(employee.getAgeValue());
+            updateVersion(version - ((existing == null) ? 0 : recordHash(sequence, existing.employee)) + recordHash(sequence, employee));
+
+            employeesById.put(employee.getIdValue(), new Entry(sequence, employee, salaryKey));
+            employeesInOrder.put(sequence, employee);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Removes the employee record of given id, returns the removed record (or null)
+    public EmployeeDto remove(String id) {
+        return remove(EmployeeDto.parseLong(id));
+    }
+
+    public EmployeeDto remove(long id) {
+        writeLock.lock();
+        try {
+            Entry removed = employeesById.remove(id);
+            if (removed == null)
+                return null;
+
+            employeesInOrder.remove(removed.sequence);
+            localIds.remove(id);
+            salaryIndex.remove(removed.salaryKey);
+            nameSearchIndex.remove(removed.sequence);
+            salaries.remove(removed.employee.getSalaryValue());
+            ages.remove(removed.employee.getAgeValue());
+            updateVersion(version - recordHash(removed.sequence, removed.employee));
+            return removed.employee;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Replaces all employee records with the given ones
+    public void replaceAll(Collection<EmployeeDto> employees) {
+        writeLock.lock();
+        try {
+            employeesById.clear();
+            employeesInOrder.clear();
+            localIds.clear();
+            salaryIndex.clear();
+            nameSearchIndex.clear();
+            salaries.clear();
+            ages.clear();
+            nextSequence = 0;
+            epoch = EPOCHS.incrementAndGet();
+            updateVersion(0);
+            for (EmployeeDto employee : employees) {
+                if (hasId(employee))
+                    put(employee);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Salary and age aggregates with histograms of the given bucket widths
+    // Computed (under the write lock) on the first call after a change, later calls return the same result
+    public EmployeeStatsDto getStatistics(long salaryBucketWidth, int ageBucketWidth) {
+        Statistics current = statistics;
+        if ((current != null) && current.matches(version, salaryBucketWidth, ageBucketWidth))
+            return current.stats;
+
+        writeLock.lock();
+        try {
+            current = new Statistics(version, salaryBucketWidth, ageBucketWidth,
+                    new EmployeeStatsDto(employeesById.size(), salaries.toDto(salaryBucketWidth), ages.toDto(ageBucketWidth)));
+            statistics = current;
+            return current.stats;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Changes whenever a record is added, replaced (with different fields) or removed
+    public long getVersion() {
+        return version;
+    }
+
+    // Time (epoch millis) of the last change of version
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    // Keeps the lastModified of previous when both hold the same records (a refresh that changed nothing)
+    public void keepLastModified(EmployeeStore previous) {
+        if ((previous != null) && (previous.version == version))
+            lastModified = Math.min(lastModified, previous.lastModified);
+    }
+
+    private void updateVersion(long newVersion) {
+        if (newVersion != version) {
+            version = newVersion;
+            lastModified = System.currentTimeMillis();
+        }
+    }
+
+    // Sum of the record hashes is order independent, the sequence makes a moved record change it
+    private static long recordHash(long sequence, EmployeeDto employee) {
+        long hash = sequence;
+        hash = (hash * 31) + employee.getIdValue();
+        hash = (hash * 31) + Objects.hashCode(employee.getName());
+        // Texts of the numeric fields : they are what the responses hold ("0123" and "123" differ)
+        hash = (hash * 31) + Objects.hashCode(employee.getSalary());
+        hash = (hash * 31) + Objects.hashCode(employee.getAge());
+        hash = (hash * 31) + Objects.hashCode(employee.getImage());
+
+        // 64-bit finalizer (splitmix64) spreads close values over all bits
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+
+    // Makes the store hold employees (matched by id) : only the added, changed and removed records
+    // are written, so the indexes are updated for the size of the difference (not of the data set)
+    public Delta reconcile(Collection<EmployeeDto> employees) {
+        return reconcile(employees, Collections.emptySet());
+    }
+
+    // Same as reconcile, except for :
+    // - records missing from employees created locally (see putLocal) : kept, employees will list them once sent
+    // - records whose id is in pendingIds (create/delete not yet sent to the external API) : left as they are,
+    //   employees does not hold the pending write yet, a later round applies the change once it is sent
+    // Records listed in employees are of the external API from now on
+    public Delta reconcile(Collection<EmployeeDto> employees, Set<String> pendingIds) {
+        List<EmployeeDto> added = new ArrayList<>();
+        List<EmployeeDto> changed = new ArrayList<>();
+        List<EmployeeDto> removed = new ArrayList<>();
+
+        Set<Long> pending = new HashSet<>();
+        for (String id : pendingIds)
+            pending.add(EmployeeDto.parseLong(id));
+
+        writeLock.lock();
+        try {
+            Set<Long> ids = new HashSet<>();
+            for (EmployeeDto employee : employees) {
+                if (!hasId(employee))
+                    continue;
+
+                ids.add(employee.getIdValue());
+                if (pending.contains(employee.getIdValue()))
+                    continue;
+
+                Entry existing = employeesById.get(employee.getIdValue());
+                if (existing == null) {
+                    put(employee, false);
+                    added.add(employee);
+                } else if (!sameFields(existing.employee, employee)) {
+                    put(employee, false);
+                    changed.add(employee);
+                } else {
+                    localIds.remove(employee.getIdValue());
+                }
+            }
+
+            for (Long id : employeesById.keySet()) {
+                if (!ids.contains(id) && !localIds.contains(id) && !pending.contains(id))
+                    removed.add(remove(id.longValue()));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+
+        return new Delta(added, changed, removed);
+    }
+
+    public static boolean hasId(EmployeeDto employee) {
+        return employee.getIdValue() >= 0;
+    }
+
+    private static boolean sameFields(EmployeeDto employee, EmployeeDto other) {
+        return (employee.getIdValue() == other.getIdValue())
+                && Objects.equals(employee.getId(), other.getId())
+                && Objects.equals(employee.getSalary(), other.getSalary())
+                && Objects.equals(employee.getAge(), other.getAge())
+                && Objects.equals(employee.getName(), other.getName())
+                && Objects.equals(employee.getImage(), other.getImage());
+    }
+
+    private static List<EmployeeDto> first(Collection<EmployeeDto> employees, int limit) {
+        List<EmployeeDto> firstEmployees = new ArrayList<>();
+
+        for (EmployeeDto employee : employees) {
+            if (firstEmployees.size() >= limit)
+                break;
+            firstEmployees.add(employee);
+        }
+
+        return firstEmployees;
+    }
+
+    /*
+     * Class : Page
+     *
+     * Records of one page, lastSequence is where the next page starts
+     */
+    public static final class Page {
+
+        private final List<EmployeeDto> employees;
+        private final long lastSequence;
+        private final boolean hasMore;
+
+        private Page(List<EmployeeDto> employees, long lastSequence, boolean hasMore) {
+            this.employees = employees;
+            this.lastSequence = lastSequence;
+            this.hasMore = hasMore;
+        }
+
+        public List<EmployeeDto> getEmployees() {
+            return employees;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public boolean hasMore() {
+            return hasMore;
+        }
+    }
+
+    /*
+     * Class : Delta
+     *
+     * Records written by reconcile (removed : the records as they were before removal)
+     */
+    public static final class Delta {
+
+        private final List<EmployeeDto> added;
+        private final List<EmployeeDto> changed;
+        private final List<EmployeeDto> removed;
+
+        private Delta(List<EmployeeDto> added, List<EmployeeDto> changed, List<EmployeeDto> removed) {
+            this.added = added;
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        public List<EmployeeDto> getAdded() {
+            return added;
+        }
+
+        public List<EmployeeDto> getChanged() {
+            return changed;
+        }
+
+        public List<EmployeeDto> getRemoved() {
+            return removed;
+        }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "Delta{" +
+                    "added=" + added.size() +
+                    ", changed=" + changed.size() +
+                    ", removed=" + removed.size() +
+                    '}';
+        }
+    }
+
+    // Aggregates computed for one version of the records
+    private static final class Statistics {
+
+        private final long version;
+        private final long salaryBucketWidth;
+        private final int ageBucketWidth;
+        private final EmployeeStatsDto stats;
+
+        private Statistics(long version, long salaryBucketWidth, int ageBucketWidth, EmployeeStatsDto stats) {
+            this.version = version;
+            this.salaryBucketWidth = salaryBucketWidth;
+            this.ageBucketWidth = ageBucketWidth;
+            this.stats = stats;
+        }
+
+        private boolean matches(long version, long salaryBucketWidth, int ageBucketWidth) {
+            return (this.version == version) && (this.salaryBucketWidth == salaryBucketWidth) && (this.ageBucketWidth == ageBucketWidth);
+        }
+    }
+
+    private static final class Entry {
+
+        private final long sequence;
+        private final EmployeeDto employee;
+        private final SalaryIndex.Key salaryKey;
+
+        private Entry(long sequence, EmployeeDto employee, SalaryIndex.Key salaryKey) {
+            this.sequence = sequence;
+            this.employee = employee;
+            this.salaryKey = salaryKey;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/*
+ * Class : NameSearchIndex
+ *
+ * Trigram inverted index over normalized (lower case) employee names.
+ * Each trigram maps to the (ordered) sequence numbers of the records whose name contains it.
+ * A substring search only visits the records of the rarest trigram of the search string
+ * (each posting keeps its size, the skip list would count its nodes), candidates are then checked against the normalized name (no allocation per record).
+ * Search strings shorter than a trigram fall back to a scan of the normalized names.
+ */
+public class NameSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private final ConcurrentHashMap<Long, Posting> postings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, String> normalizedNames = new ConcurrentSkipListMap<>();
+
+    // Returns the sequence numbers (ascending) of the records whose name contains searchString
+    public List<Long> search(String searchString) {
+        return search(searchString, -1, Integer.MAX_VALUE);
+    }
+
+    // Returns (at most) limit sequence numbers (ascending) greater than afterSequence,
+    // the postings are ordered so the records before afterSequence are never visited
+    public List<Long> search(String searchString, long afterSequence, int limit) {
+        String normalizedSearch = normalize(searchString);
+        List<Long> matches = new ArrayList<>();
+
+        if (normalizedSearch.length() < GRAM_LENGTH) {
+            for (Map.Entry<Long, String> entry : normalizedNames.tailMap(afterSequence, false).entrySet()) {
+                if (matches.size() >= limit)
+                    break;
+                if (entry.getValue().contains(normalizedSearch))
+                    matches.add(entry.getKey());
+            }
+            return matches;
+        }
+
+        Posting candidates = null;
+        for (int i = 0; i + GRAM_LENGTH <= normalizedSearch.length(); i++) {
+            Posting posting = postings.get(gram(normalizedSearch, i));
+            if (posting == null)
+                return matches;
+            if ((candidates == null) || (posting.size < candidates.size))
+                candidates = posting;
+        }
+
+        for (Long sequence : candidates.sequences.tailSet(afterSequence, false)) {
+            if (matches.size() >= limit)
+                break;
+            String normalizedName = normalizedNames.get(sequence);
+            if ((normalizedName != null) && normalizedName.contains(normalizedSearch))
+                matches.add(sequence);
+        }
+
+        return matches;
+    }
+
+    // Callers (EmployeeStore) serialize add/remove/clear
+    void add(long sequence, String name) {
+        String normalizedName = normalize(name);
+
+        normalizedNames.put(sequence, normalizedName);
+        for (Long gram : grams(normalizedName))
+            postings.computeIfAbsent(gram, key -> new Posting()).add(sequence);
+    }
+
+    void remove(long sequence) {
+        String normalizedName = normalizedNames.remove(sequence);
+
+        if (normalizedName == null)
+            return;
+
+        for (Long gram : grams(normalizedName)) {
+            Posting posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(sequence);
+                if (posting.size == 0)
+                    postings.remove(gram, posting);
+            }
+        }
+    }
+
+    void clear() {
+        postings.clear();
+        normalizedNames.clear();
+    }
+
+    private static String normalize(String name) {
+        return (name == null) ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static Collection<Long> grams(String normalizedName) {
+        List<Long> grams = new ArrayList<>();
+
+        for (int i = 0; i + GRAM_LENGTH <= normalizedName.length(); i++)
+            grams.add(gram(normalizedName, i));
+
+        return grams;
+    }
+
+    // Packs three UTF-16 chars into a long key
+    private static long gram(String normalizedName, int start) {
+        return ((long) normalizedName.charAt(start) << 32)
+                | ((long) normalizedName.charAt(start + 1) << 16)
+                | normalizedName.charAt(start + 2);
+    }
+
+    /*
+     * Class : Posting
+     *
+     * Sequence numbers of the records containing one trigram, with their count
+     * Written under the EmployeeStore write lock, size is volatile for the (unlocked) readers
+     */
+    private static final class Posting {
+
+        private final NavigableSet<Long> sequences = new ConcurrentSkipListSet<>();
+        private volatile int size;
+
+        // A name repeating a trigram adds its sequence once
+        private void add(long sequence) {
+            if (sequences.add(sequence))
+                size++;
+        }
+
+        private void remove(long sequence) {
+            if (sequences.remove(sequence))
+                size--;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * Class : SalaryIndex
+ *
+ * Keeps employee records ordered by salary (highest first).
+ * Salaries are compared as numbers (no parsing/string comparison per request).
+ * - highest salary : O(1)
+ * - top K earners  : O(K)
+ * - add / remove   : O(log n)
+ */
+public class SalaryIndex {
+
+    private final ConcurrentSkipListMap<Key, EmployeeDto> employeesBySalary = new ConcurrentSkipListMap<>();
+
+    // Returns the employee with highest salary (or null if index is empty)
+    public EmployeeDto getHighestEarningEmployee() {
+        Map.Entry<Key, EmployeeDto> first = employeesBySalary.firstEntry();
+
+        return (first == null) ? null : first.getValue();
+    }
+
+    // Returns (at most) k employees with highest salaries, highest first
+    public List<EmployeeDto> getTopEarningEmployees(int k) {
+        // size() of a skip list is O(n), it is not used to presize the result
+        List<EmployeeDto> topEarningEmployees = new ArrayList<>();
+
+        for (EmployeeDto employee : employeesBySalary.values()) {
+            if (topEarningEmployees.size() >= k)
+                break;
+            topEarningEmployees.add(employee);
+        }
+
+        return topEarningEmployees;
+    }
+
+    // Read-only live view of all employees, ordered by salary
+    public Collection<EmployeeDto> getEmployeesBySalary(boolean descending) {
+        Collection<EmployeeDto> employees = descending ? employeesBySalary.values() : employeesBySalary.descendingMap().values();
+
+        return Collections.unmodifiableCollection(employees);
+    }
+
+    Key add(long sequence, EmployeeDto employee) {
+        // Missing or non-numeric salaries are negative, so they are ranked lowest
+        Key key = new Key(employee.getSalaryValue(), sequence);
+        employeesBySalary.put(key, employee);
+
+        return key;
+    }
+
+    void remove(Key key) {
+        employeesBySalary.remove(key);
+    }
+
+    void clear() {
+        employeesBySalary.clear();
+    }
+
+    // Salary descending, then insertion order
+    static final class Key implements Comparable<Key> {
+
+        private final long salary;
+        private final long sequence;
+
+        private Key(long salary, long sequence) {
+            this.salary = salary;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            int bySalary = Long.compare(other.salary, salary);
+
+            return (bySalary != 0) ? bySalary : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/*
+ * Class : ValueDistribution
+ *
+ * Counts the values of one numeric field (salary, age) of the records of EmployeeStore,
+ * updated on every add/remove so no aggregate needs a scan of the records :
+ * - count, sum (average) : O(1)
+ * - min, max             : O(log n), first/last distinct value
+ * - percentiles          : values are also counted per bucket of resolution in an order-statistic tree (BucketTree,
+ *                          subtree counts) : the bucket of a rank is found in O(log buckets), then the distinct
+ *                          values of that bucket only are walked (bounded by resolution, not by n)
+ * - histogram            : bucket counts added up per width (a multiple of resolution), in bucket order
+ * Missing values (negative, see EmployeeDto.NOT_SET) are not counted.
+ * Not thread-safe : EmployeeStore reads and writes it under its write lock.
+ */
+final class ValueDistribution {
+
+    static final int[] PERCENTILES = {10, 25, 50, 75, 90, 95, 99};
+    private final long resolution;
+    private final TreeMap<Long, Integer> valueCounts = new TreeMap<>();
+    private final BucketTree bucketCounts = new BucketTree();
+    private long count;
+    private long sum;
+
+    ValueDistribution(long resolution) {
+        this.resolution = resolution;
+    }
+
+    void add(long value) {
+        if (value < 0)
+            return;
+
+        valueCounts.merge(value, 1, Integer::sum);
+        bucketCounts.add(value / resolution, 1);
+        count++;
+        sum += value;
+    }
+
+    void remove(long value) {
+        if (value < 0)
+            return;
+
+        decrement(valueCounts, value);
+        bucketCounts.add(value / resolution, -1);
+        count--;
+        sum -= value;
+    }
+
+    void clear() {
+        valueCounts.clear();
+        bucketCounts.clear();
+        count = 0;
+        sum = 0;
+    }
+
+    // Aggregates of the values counted, histogram buckets of histogramWidth (rounded up to a multiple of resolution)
+    EmployeeStatsDto.Distribution toDto(long histogramWidth) {
+        if (count == 0)
+            return new EmployeeStatsDto.Distribution(0, null, null, null, null, new LinkedHashMap<>(), new ArrayList<>());
+
+        Map<String, Long> percentiles = new LinkedHashMap<>();
+        for (int percentile : PERCENTILES)
+            percentiles.put("p" + percentile, valueAtRank(rank(percentile)));
+
+        return new EmployeeStatsDto.Distribution(count, valueCounts.firstKey(), valueCounts.lastKey(), (double) sum / count,
+                percentiles.get("p50"), percentiles, histogram(histogramWidth));
+    }
+
+    // Nearest rank (1-based) of the percentile
+    private long rank(int percentile) {
+        return Math.max(1, (count * percentile + 99) / 100);
+    }
+
+    private long valueAtRank(long rank) {
+        // rank is in [1, count] : the bucket holding it, then its distinct values only
+        long bucket = bucketCounts.bucketAtRank(rank);
+        long seen = bucketCounts.countBelow(bucket);
+
+        for (Map.Entry<Long, Integer> value : valueCounts.tailMap(bucket * resolution, true).entrySet()) {
+            seen += value.getValue();
+            if (seen >= rank)
+                return value.getKey();
+        }
+
+        return valueCounts.lastKey();
+    }
+
+    private List<EmployeeStatsDto.Bucket> histogram(long histogramWidth) {
+        long width = Math.max(1, (histogramWidth + resolution - 1) / resolution) * resolution;
+        List<EmployeeStatsDto.Bucket> histogram = new ArrayList<>();
+        long[] current = {-1, 0};
+
+        bucketCounts.forEach((bucket, bucketCount) -> {
+            long bucketFrom = ((bucket * resolution) / width) * width;
+            if (bucketFrom != current[0]) {
+                if (current[1] > 0)
+                    histogram.add(new EmployeeStatsDto.Bucket(current[0], current[0] + width, current[1]));
+                current[0] = bucketFrom;
+                current[1] = 0;
+            }
+            current[1] += bucketCount;
+        });
+        histogram.add(new EmployeeStatsDto.Bucket(current[0], current[0] + width, current[1]));
+
+        return histogram;
+    }
+
+    private static void decrement(TreeMap<Long, Integer> counts, long key) {
+        counts.computeIfPresent(key, (value, valueCount) -> (valueCount == 1) ? null : valueCount - 1);
+    }
+
+    /*
+     * Class : BucketTree
+     *
+     * Counts per bucket in a treap (binary search tree on the bucket, heap on a priority hashed from it)
+     * where each node also holds the count of its subtree : add, bucketAtRank and countBelow walk a single
+     * path, O(log buckets) expected. Buckets whose count drops to 0 are removed.
+     */
+    static final class BucketTree {
+
+        private Node root;
+
+        void add(long bucket, long delta) {
+            root = add(root, bucket, delta);
+        }
+
+        void clear() {
+            root = null;
+        }
+
+        // Bucket holding the value of rank (1-based, values in bucket order), rank in [1, total count]
+        long bucketAtRank(long rank) {
+            Node node = root;
+
+            while (true) {
+                long leftTotal = total(node.left);
+                if (rank <= leftTotal) {
+                    node = node.left;
+                } else if (rank <= leftTotal + node.count) {
+                    return node.bucket;
+                } else {
+                    rank -= leftTotal + node.count;
+                    node = node.right;
+                }
+            }
+        }
+
+        // Count of the values in the buckets lower than bucket
+        long countBelow(long bucket) {
+            long below = 0;
+
+            for (Node node = root; node != null; ) {
+                if (bucket <= node.bucket) {
+                    node = node.left;
+                } else {
+                    below += total(node.left) + node.count;
+                    node = node.right;
+                }
+            }
+
+            return below;
+        }
+
+        // Buckets (with their count) in ascending order
+        void forEach(BiConsumer<Long, Long> action) {
+            List<Node> path = new ArrayList<>();
+
+            for (Node node = root; (node != null) || !path.isEmpty(); node = node.right) {
+                for (; node != null; node = node.left)
+                    path.add(node);
+                node = path.remove(path.size() - 1);
+                action.accept(node.bucket, node.count);
+            }
+        }
+
+        private static Node add(Node node, long bucket, long delta) {
+            if (node == null)
+                return (delta > 0) ? new Node(bucket, delta) : null;
+
+            if (bucket == node.bucket) {
+                node.count += delta;
+                if (node.count <= 0)
+                    return merge(node.left, node.right);
+            } else if (bucket < node.bucket) {
+                node.left = add(node.left, bucket, delta);
+                if ((node.left != null) && (node.left.priority > node.priority))
+                    return rotateRight(node);
+            } else {
+                node.right = add(node.right, bucket, delta);
+                if ((node.right != null) && (node.right.priority > node.priority))
+                    return rotateLeft(node);
+            }
+
+            node.update();
+            return node;
+        }
+
+        // Joins two treaps, all buckets of left lower than the ones of right
+        private static Node merge(Node left, Node right) {
+            if ((left == null) || (right == null))
+                return (left == null) ? right : left;
+
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                left.update();
+                return left;
+            }
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            node.update();
+            left.update();
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            node.update();
+            right.update();
+            return right;
+        }
+
+        private static long total(Node node) {
+            return (node == null) ? 0 : node.total;
+        }
+
+        private static final class Node {
+
+            private final long bucket;
+            // Hashed from the bucket (splitmix64 finalizer) : the same buckets always give the same tree
+            private final long priority;
+            private long count;
+            private long total;
+            private Node left;
+            private Node right;
+
+            private Node(long bucket, long count) {
+                long hash = (bucket ^ (bucket >>> 30)) * 0xbf58476d1ce4e5b9L;
+                hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+                this.bucket = bucket;
+                this.priority = hash ^ (hash >>> 31);
+                this.count = count;
+                this.total = count;
+            }
+
+            private void update() {
+                total = total(left) + count + total(right);
+            }
+        }
+    }
+}
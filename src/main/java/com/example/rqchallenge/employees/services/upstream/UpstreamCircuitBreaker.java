@@ -0,0 +1,201 @@
+package com.example.rqchallenge.employees.services.upstream;
+
+import com.example.rqchallenge.EmployeeProperties;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Class : UpstreamCircuitBreaker
+ *
+ * Circuit breaker in front of the external API (see employees.circuit-breaker.*).
+ * - CLOSED    : calls are sent, outcomes of the last window-size calls are recorded,
+ *               it opens once the failure rate reaches failure-rate-threshold
+ * - OPEN      : calls are rejected (served by backupService) for open-duration
+ * - HALF_OPEN : half-open-probes calls are sent, it closes when they all succeed
+ *               and opens again on the first failure
+ */
+@Component
+public class UpstreamCircuitBreaker {
+
+    private static final Logger log = LogManager.getLogger(UpstreamCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] outcomes;
+    private int bufferedCalls;
+    private int nextOutcome;
+    private int failedCalls;
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    @Autowired
+    public UpstreamCircuitBreaker(EmployeeProperties properties) {
+        this(properties.getCircuitBreaker().getWindowSize(), properties.getCircuitBreaker().getMinimumCalls(),
+                properties.getCircuitBreaker().getFailureRateThreshold(), properties.getCircuitBreaker().getOpenDuration(),
+                properties.getCircuitBreaker().getHalfOpenProbes());
+    }
+
+    public UpstreamCircuitBreaker(int windowSize, int minimumCalls, int failureRateThreshold,
+                                  Duration openDuration, int halfOpenProbes) {
+        if ((windowSize < 1) || (halfOpenProbes < 1))
+            throw new IllegalArgumentException("employees.circuit-breaker window-size and half-open-probes must be at least 1");
+
+        this.outcomes = new boolean[windowSize];
+        this.minimumCalls = Math.min(Math.max(1, minimumCalls), windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+    }
+
+    // False when the call must not be sent (OPEN, or HALF_OPEN with all probes in flight)
+    public boolean tryAcquirePermission() {
+        lock.lock();
+        try {
+            if ((state == State.OPEN) && (System.nanoTime() - openedAt >= openNanos))
+                transitionTo(State.HALF_OPEN);
+
+            if ((state == State.OPEN) || ((state == State.HALF_OPEN) && (probesInFlight >= halfOpenProbes))) {
+                rejected.increment();
+                return false;
+            }
+
+            if (state == State.HALF_OPEN)
+                probesInFlight++;
+
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Gives back a permission whose call was finally not sent
+    public void releasePermission() {
+        lock.lock();
+        try {
+            if ((state == State.HALF_OPEN) && (probesInFlight > 0))
+                probesInFlight--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // External API answered (any response other than 5xx)
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+                if (++probeSuccesses >= halfOpenProbes)
+                    transitionTo(State.CLOSED);
+            } else if (state == State.CLOSED) {
+                record(false);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // External API did not answer (connect/read timeout) or answered with a 5xx
+    public void onFailure() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.OPEN);
+            } else if (state == State.CLOSED) {
+                record(true);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // Failure rate (%) of the recorded calls, -1 until minimum-calls are recorded
+    public float getFailureRate() {
+        lock.lock();
+        try {
+            return (bufferedCalls < minimumCalls) ? -1 : getFailureRateLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBufferedCalls() {
+        lock.lock();
+        try {
+            return bufferedCalls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of calls not sent because the circuit was open
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    // Number of times the circuit opened
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    // Records the outcome of a call sent while CLOSED, opens the circuit once the failure rate is reached
+    private void record(boolean failed) {
+        if (bufferedCalls == outcomes.length) {
+            if (outcomes[nextOutcome])
+                failedCalls--;
+        } else {
+            bufferedCalls++;
+        }
+
+        outcomes[nextOutcome] = failed;
+        if (failed)
+            failedCalls++;
+        nextOutcome = (nextOutcome + 1) % outcomes.length;
+
+        if ((bufferedCalls >= minimumCalls) && (getFailureRateLocked() >= failureRateThreshold))
+            transitionTo(State.OPEN);
+    }
+
+    private float getFailureRateLocked() {
+        return (bufferedCalls == 0) ? 0 : (failedCalls * 100.0f) / bufferedCalls;
+    }
+
+    private void transitionTo(State newState) {
+        String fcn = "transitionTo:";
+        log.warn("{}{} -> {}", fcn, state, newState);
+
+        state = newState;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+            opened.increment();
+        } else if (newState == State.CLOSED) {
+            bufferedCalls = nextOutcome = failedCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.rqchallenge.employees.services.upstream;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+
+import java.util.List;
+
+/*
+ * Interface : UpstreamEmployeeSource
+ *
+ * Employees list of the external API, bypassing the cache (see EmployeeReconciliationService)
+ * Implemented by the service of the configured employees.api.mode
+ */
+public interface UpstreamEmployeeSource {
+
+    // Pending write-behind writes applied, spends a READ token :
+    // throws UpstreamUnavailableException when the call is not allowed
+    List<EmployeeDto> fetchUpstreamEmployees();
+}
@@ -0,0 +1,230 @@
+package com.example.rqchallenge.employees.services.upstream;
+
+import com.example.rqchallenge.EmployeeProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Class : UpstreamRateLimiter
+ *
+ * Token bucket in front of the external API (see employees.rate-limit.*).
+ * - writes (create/delete) wait up to write-max-wait for a token and are served first
+ * - reads never wait : without a token (or while writes are waiting) they are diverted
+ *   to the cache/backupService instead of spending a call the external API would reject
+ * A 429 response empties the bucket until its Retry-After has passed.
+ */
+@Component
+public class UpstreamRateLimiter {
+
+    public enum Priority {
+        WRITE,
+        READ
+    }
+
+    private final int capacity;
+    private final long refillNanos;
+    private final long writeMaxWaitNanos;
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition tokenAvailable = lock.newCondition();
+    private long tokens;
+    private long lastRefill;
+    private long blockedUntil;
+    private int waitingWrites;
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder diverted = new LongAdder();
+
+    @Autowired
+    public UpstreamRateLimiter(EmployeeProperties properties) {
+        this(properties.getRateLimit().getRequests(), properties.getRateLimit().getPeriod(),
+                properties.getRateLimit().getWriteMaxWait());
+    }
+
+    // requests per period, the bucket starts full
+    public UpstreamRateLimiter(int requests, Duration period, Duration writeMaxWait) {
+        if (requests < 1)
+            throw new IllegalArgumentException("employees.rate-limit.requests must be at least 1");
+
+        this.capacity = requests;
+        this.refillNanos = Math.max(1, period.toNanos() / requests);
+        this.writeMaxWaitNanos = writeMaxWait.toNanos();
+        this.tokens = requests;
+        this.lastRefill = System.nanoTime();
+        this.blockedUntil = lastRefill;
+    }
+
+    // Takes a token for an external API call, false when the call must not be sent
+    public boolean tryAcquire(Priority priority) {
+        lock.lock();
+        try {
+            return (priority == Priority.WRITE) ? acquireWrite() : acquireRead();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Never waits (non-blocking callers), a write is only given precedence over reads
+    public boolean tryAcquireNow(Priority priority) {
+        lock.lock();
+        try {
+            if (priority == Priority.READ)
+                return acquireRead();
+
+            long now = System.nanoTime();
+            refill(now);
+            if ((now < blockedUntil) || (tokens == 0)) {
+                diverted.increment();
+                return false;
+            }
+
+            tokens--;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called on a 429 response, no call is sent before retryAfter has passed
+    public void onTooManyRequests(Duration retryAfter) {
+        throttled.increment();
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = 0;
+            lastRefill = now;
+            blockedUntil = Math.max(blockedUntil, now + retryAfter.toNanos());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Number of 429 responses received from the external API
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    // Number of writes that had to wait for a token
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    // Number of calls that were not sent (served by cache/backupService instead)
+    public long getDiverted() {
+        return diverted.sum();
+    }
+
+    public long getAvailableTokens() {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+            return (now < blockedUntil) ? 0 : tokens;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Time needed to earn one token
+    public Duration getRefillInterval() {
+        return Duration.ofNanos(refillNanos);
+    }
+
+    public int getWaitingWrites() {
+        lock.lock();
+        try {
+            return waitingWrites;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean acquireRead() {
+        long now = System.nanoTime();
+        refill(now);
+
+        if ((waitingWrites > 0) || (now < blockedUntil) || (tokens == 0)) {
+            diverted.increment();
+            return false;
+        }
+
+        tokens--;
+        return true;
+    }
+
+    private boolean acquireWrite() {
+        long deadline = System.nanoTime() + writeMaxWaitNanos;
+        boolean counted = false;
+
+        waitingWrites++;
+        try {
+            while (true) {
+                long now = System.nanoTime();
+                refill(now);
+
+                if ((now >= blockedUntil) && (tokens > 0)) {
+                    tokens--;
+                    return true;
+                }
+
+                long nextToken = Math.max(blockedUntil, lastRefill + refillNanos);
+                long remaining = deadline - now;
+                if ((remaining <= 0) || (nextToken - deadline > 0)) {
+                    diverted.increment();
+                    return false;
+                }
+
+                if (!counted) {
+                    queued.increment();
+                    counted = true;
+                }
+
+                tokenAvailable.awaitNanos(Math.min(remaining, nextToken - now));
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            diverted.increment();
+            return false;
+        } finally {
+            waitingWrites--;
+            tokenAvailable.signal();
+        }
+    }
+
+    // Adds the tokens earned since lastRefill, the bucket never holds more than capacity
+    private void refill(long now) {
+        long earned = (now - lastRefill) / refillNanos;
+
+        if (earned <= 0)
+            return;
+
+        tokens = Math.min(capacity, tokens + earned);
+        lastRefill = (tokens == capacity) ? now : lastRefill + (earned * refillNanos);
+    }
+
+    // Retry-After is either delay-seconds or an HTTP date, defaultDelay is used when it is missing/invalid
+    public static Duration parseRetryAfter(String retryAfter, Duration defaultDelay) {
+        if ((retryAfter == null) || retryAfter.isBlank())
+            return defaultDelay;
+
+        String value = retryAfter.trim();
+        try {
+            if (value.chars().allMatch(Character::isDigit))
+                return Duration.ofSeconds(Long.parseLong(value));
+
+            ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (NumberFormatException | DateTimeParseException parseException) {
+            return defaultDelay;
+        }
+    }
+}
@@ -1,60 +1,107 @@
 package com.example.rqchallenge.employees.services.validators;
 
+import com.example.rqchallenge.EmployeeProperties;
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /*
  * Class : EmployeeFieldsValidator
  *
  * It validates various fields of Employee record
+ * Character classes are checked with a plain scan (no regex, no allocation),
+ * per-field limits are read once from employees.validation.*
  */
 @Service
 public class EmployeeFieldsValidator {
 
+    private final int nameMaxLength;
+    private final int imageMaxLength;
+    private final long salaryMin;
+    private final long salaryMax;
+    private final int ageMin;
+    private final int ageMax;
+
+    @Autowired
+    public EmployeeFieldsValidator(EmployeeProperties properties) {
+        EmployeeProperties.Validation validation = properties.getValidation();
+
+        this.nameMaxLength = validation.getNameMaxLength();
+        this.imageMaxLength = validation.getImageMaxLength();
+        this.salaryMin = validation.getSalaryMin();
+        this.salaryMax = validation.getSalaryMax();
+        this.ageMin = validation.getAgeMin();
+        this.ageMax = validation.getAgeMax();
+    }
+
     // Checks if field is null or ""
     public boolean isNullString (String field) {
         return ((field == null) || (field.isEmpty()));
     }
 
-    // Checks if the field contains only alphanumeric characters
+    // Checks if the field contains only alphanumeric characters (or spaces)
     public boolean isValidAlphaNumericString (String field) {
-        String regex = "^[a-zA-Z0-9 ]+$";
-
         if (isNullString(field))
             return true;
 
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(field);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (!(((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')) || (c == ' ')))
+                return false;
+        }
 
-        return matcher.find();
+        return true;
     }
 
     // Checks if field contains only numeric characters
     public boolean isValidNumber (String field) {
-        String regex = "^[0-9]+$";
-
         if (isNullString(field))
             return true;
 
-        Pattern pattern = Pattern.compile(regex);
-        Matcher matcher = pattern.matcher(field);
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if ((c < '0') || (c > '9'))
+                return false;
+        }
 
-        return matcher.find();
+        return true;
     }
 
     // Performs field validation on all fields of Employee
+    // Numeric fields are already parsed by EmployeeDto, missing ones are accepted
     public boolean isValidEmployeeDto (EmployeeDto employeeDto) {
         boolean valid;
 
-        valid = isValidNumber(employeeDto.getId())
-                    && isValidAlphaNumericString(employeeDto.getName())
-                    && isValidNumber(employeeDto.getSalary())
-                    && isValidNumber(employeeDto.getAge())
-                    && isValidAlphaNumericString(employeeDto.getImage());
+        valid = (employeeDto.getIdValue() != EmployeeDto.NOT_A_NUMBER)
+                    && isValidText(employeeDto.getName(), nameMaxLength)
+                    && isValidNumber(employeeDto.getSalaryValue(), salaryMin, salaryMax)
+                    && isValidNumber(employeeDto.getAgeValue(), ageMin, ageMax)
+                    && isValidText(employeeDto.getImage(), imageMaxLength);
 
         return valid;
     }
+
+    // Validates a batch of Employee records in one pass, returns the invalid ones
+    public List<EmployeeDto> getInvalidEmployeeDtos (Collection<EmployeeDto> employeeDtos) {
+        List<EmployeeDto> invalidEmployeeDtos = new ArrayList<>();
+
+        for (EmployeeDto employeeDto : employeeDtos) {
+            if (!isValidEmployeeDto(employeeDto))
+                invalidEmployeeDtos.add(employeeDto);
+        }
+
+        return invalidEmployeeDtos;
+    }
+
+    private boolean isValidText (String field, int maxLength) {
+        return ((field == null) || (field.length() <= maxLength)) && isValidAlphaNumericString(field);
+    }
+
+    private boolean isValidNumber (long field, long min, long max) {
+        return (field == EmployeeDto.NOT_SET) || ((field >= min) && (field <= max));
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.rqchallenge.employees.controllers;
+
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdFilterTest {
+
+    private final CorrelationIdFilter underTestFilter = new CorrelationIdFilter();
+
+    @Test
+    void doFilter() throws Exception {
+
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        // 1 : id of the request is kept, in the ThreadContext while the request is handled only
+        MockHttpServletRequest request1 = new MockHttpServletRequest("GET", "/api/v1/employees");
+        request1.addHeader(CorrelationIdFilter.HEADER, "load-test.42");
+        MockHttpServletResponse response1 = new MockHttpServletResponse();
+        underTestFilter.doFilter(request1, response1, (request, response) -> logged.set(ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY)));
+
+        assertAll(
+                () -> assertEquals("load-test.42", logged.get()),
+                () -> assertEquals("load-test.42", response1.getHeader(CorrelationIdFilter.HEADER)),
+                () -> assertNull(ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY))
+        );
+
+        // 2 : missing or invalid ids are replaced by a generated one
+        MockHttpServletRequest request2 = new MockHttpServletRequest("GET", "/api/v1/employees");
+        request2.addHeader(CorrelationIdFilter.HEADER, "forged\nERROR line");
+        MockHttpServletResponse response2 = new MockHttpServletResponse();
+        underTestFilter.doFilter(request2, response2, (request, response) -> logged.set(ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY)));
+
+        assertAll(
+                () -> assertEquals(16, logged.get().length()),
+                () -> assertEquals(logged.get(), response2.getHeader(CorrelationIdFilter.HEADER)),
+                () -> assertNotEquals(CorrelationIdFilter.newCorrelationId(), CorrelationIdFilter.newCorrelationId())
+        );
+    }
+
+    @Test
+    void isValid() {
+        assertAll(
+                () -> assertTrue(CorrelationIdFilter.isValid("8ddc571020ab50d8")),
+                () -> assertTrue(CorrelationIdFilter.isValid("req_1.A-b")),
+                () -> assertFalse(CorrelationIdFilter.isValid(null)),
+                () -> assertFalse(CorrelationIdFilter.isValid("")),
+                () -> assertFalse(CorrelationIdFilter.isValid("a b")),
+                () -> assertFalse(CorrelationIdFilter.isValid("x".repeat(65)))
+        );
+    }
+}
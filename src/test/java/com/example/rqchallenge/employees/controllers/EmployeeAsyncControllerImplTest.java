@@ -0,0 +1,148 @@
+package com.example.rqchallenge.employees.controllers;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
+import com.example.rqchallenge.employees.services.EmployeeAsyncService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeAsyncControllerImplTest {
+
+    @Mock
+    private EmployeeAsyncService mockEmployeeService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final WebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/v1/employees"));
+
+    @InjectMocks
+    private EmployeeAsyncControllerImpl underTestController;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(mockEmployeeService.getDatasetVersion()).thenReturn(CompletableFuture.completedFuture(null));
+    }
+
+    @Test
+    void getAllEmployees() {
+
+        // 1 : getAllEmployees Success (response completes once the service future completes)
+        CompletableFuture<List<EmployeeDto>> pendingEmployees = new CompletableFuture<>();
+        when(mockEmployeeService.getAllEmployees()).thenReturn(pendingEmployees);
+        CompletableFuture<ResponseEntity<List<EmployeeDto>>> response1 = underTestController.getAllEmployees(new EmployeeQueryDto(), webRequest);
+
+        assertFalse(response1.isDone());
+        List<EmployeeDto> expected1 = new ArrayList<>();
+        expected1.add(new EmployeeDto("1", "a", "", "", ""));
+        pendingEmployees.complete(expected1);
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response1.join().getStatusCode()),
+                () -> assertEquals(1, response1.join().getBody().size())
+        );
+
+        // 2 : getAllEmployees Success (query parameters are handed to queryEmployees)
+        EmployeeQueryDto query2 = new EmployeeQueryDto(null, null, "salary", "desc", 1);
+        when(mockEmployeeService.queryEmployees(query2)).thenReturn(CompletableFuture.completedFuture(expected1));
+        ResponseEntity<List<EmployeeDto>> response2 = underTestController.getAllEmployees(query2, webRequest).join();
+
+        assertEquals(HttpStatus.OK, response2.getStatusCode());
+    }
+
+    @Test
+    void getEmployeesByNameSearch() {
+
+        // 1 : getEmployeesByNameSearch Failure (name not found in employee records)
+        when(mockEmployeeService.getEmployeesByNameSearch("abcde")).thenReturn(CompletableFuture.completedFuture(new ArrayList<>()));
+        ResponseEntity<List<EmployeeDto>> response1 = underTestController.getEmployeesByNameSearch("abcde", null, null).join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response1.getStatusCode());
+
+        // 2 : getEmployeesByNameSearch Failure (name not valid)
+        when(mockEmployeeService.getEmployeesByNameSearch("ab!")).thenThrow(new EmployeeFieldsNotValidException("Name not valid!"));
+
+        assertThrows(EmployeeFieldsNotValidException.class, () -> underTestController.getEmployeesByNameSearch("ab!", null, null));
+    }
+
+    @Test
+    void getEmployeeByIdSearch() {
+
+        // 1 : getEmployeeByIdSearch Failure (Id is not present)
+        when(mockEmployeeService.getEmployeeByIdSearch("10000")).thenReturn(CompletableFuture.completedFuture(null));
+        ResponseEntity<EmployeeDto> response1 = underTestController.getEmployeeByIdSearch("10000").join();
+
+        assertEquals(HttpStatus.NOT_FOUND, response1.getStatusCode());
+    }
+
+    @Test
+    void getHighestSalaryOfEmployees() {
+
+        // 1 : getHighestSalaryOfEmployees Success
+        List<EmployeeDto> expected1 = new ArrayList<>();
+        expected1.add(new EmployeeDto("1", "a", "320800", "", ""));
+        when(mockEmployeeService.getTopEarningEmployees(1)).thenReturn(CompletableFuture.completedFuture(expected1));
+        ResponseEntity<Integer> response1 = underTestController.getHighestSalaryOfEmployees(webRequest).join();
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response1.getStatusCode()),
+                () -> assertEquals(320800, response1.getBody())
+        );
+
+        // 2 : getHighestSalaryOfEmployees Success (salary above Integer.MAX_VALUE is answered as Integer.MAX_VALUE)
+        List<EmployeeDto> expected2 = new ArrayList<>();
+        expected2.add(new EmployeeDto("1", "a", "3000000000", "", ""));
+        when(mockEmployeeService.getTopEarningEmployees(1)).thenReturn(CompletableFuture.completedFuture(expected2));
+        ResponseEntity<Integer> response2 = underTestController.getHighestSalaryOfEmployees(webRequest).join();
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response2.getStatusCode()),
+                () -> assertEquals(Integer.MAX_VALUE, response2.getBody())
+        );
+    }
+
+    @Test
+    void createEmployee() {
+
+        // 1 : createEmployee Success
+        EmployeeDto employeeInput = new EmployeeDto("", "abc", "2345", "35", "");
+        when(mockEmployeeService.createNewEmployee(employeeInput)).thenReturn(CompletableFuture.completedFuture(employeeInput));
+        ResponseEntity<EmployeeDto> response1 = underTestController.createEmployee(employeeInput).join();
+
+        assertEquals(HttpStatus.CREATED, response1.getStatusCode());
+    }
+
+    @Test
+    void deleteEmployeeById() {
+
+        // 1 : deleteEmployeeById Success
+        when(mockEmployeeService.deleteEmployeeById("1")).thenReturn(CompletableFuture.completedFuture(null));
+        ResponseEntity<String> response1 = underTestController.deleteEmployeeById("1").join();
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response1.getStatusCode()),
+                () -> assertEquals("Success!", response1.getBody())
+        );
+    }
+}
@@ -1,6 +1,10 @@
 package com.example.rqchallenge.employees.controllers;
 
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import com.example.rqchallenge.employees.dtos.EmployeeVersionDto;
 import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
 import com.example.rqchallenge.employees.services.EmployeeService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -8,17 +12,37 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.lang.reflect.Executable;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
 class EmployeeControllerImplTest {
@@ -26,6 +50,11 @@ class EmployeeControllerImplTest {
     @Mock
     private EmployeeService mockEmployeeService;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private final WebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest("GET", "/api/v1/employees"));
+
     @InjectMocks
     private EmployeeControllerImpl underTestController;
 
@@ -36,7 +65,7 @@ class EmployeeControllerImplTest {
         List<EmployeeDto> expected1 = new ArrayList<>();
         expected1.add(new EmployeeDto("", "a", "", "", ""));
         when(mockEmployeeService.getAllEmployees()).thenReturn(expected1);
-        ResponseEntity<List<EmployeeDto>> response1 = underTestController.getAllEmployees();
+        ResponseEntity<List<EmployeeDto>> response1 = underTestController.getAllEmployees(new EmployeeQueryDto(), webRequest);
         List<EmployeeDto> actual1 = response1.getBody();
 
         assertAll(
@@ -47,12 +76,88 @@ class EmployeeControllerImplTest {
         // 2 : getAllEmployees Success (zero records)
         List<EmployeeDto> expected2 = new ArrayList<>();
         when(mockEmployeeService.getAllEmployees()).thenReturn(expected2);
-        ResponseEntity<List<EmployeeDto>> response2 = underTestController.getAllEmployees();
+        ResponseEntity<List<EmployeeDto>> response2 = underTestController.getAllEmployees(new EmployeeQueryDto(), webRequest);
         List<EmployeeDto> actual2 = response2.getBody();
 
         assertAll(
                 () -> assertEquals(HttpStatus.OK, response2.getStatusCode())
         );
+
+        // 3 : getAllEmployees Success (query parameters are handed to queryEmployees)
+        EmployeeQueryDto query3 = new EmployeeQueryDto(null, null, "salary", "desc", 1);
+        List<EmployeeDto> expected3 = new ArrayList<>();
+        expected3.add(new EmployeeDto("1", "a", "100", "", ""));
+        when(mockEmployeeService.queryEmployees(query3)).thenReturn(expected3);
+        ResponseEntity<List<EmployeeDto>> response3 = underTestController.getAllEmployees(query3, webRequest);
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response3.getStatusCode()),
+                () -> assertEquals(1, response3.getBody().size())
+        );
+    }
+
+    @Test
+    void streamAllEmployees() throws IOException {
+
+        // 1 : streamAllEmployees Success (one JSON record per line)
+        List<EmployeeDto> expected1 = new ArrayList<>();
+        expected1.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        expected1.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        when(mockEmployeeService.getAllEmployeesView()).thenReturn(expected1);
+        ResponseEntity<StreamingResponseBody> response1 = underTestController.streamAllEmployees(new EmployeeQueryDto());
+        ByteArrayOutputStream output1 = new ByteArrayOutputStream();
+        response1.getBody().writeTo(output1);
+        String[] lines1 = output1.toString().split("\n");
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response1.getStatusCode()),
+                () -> assertEquals(MediaType.APPLICATION_NDJSON, response1.getHeaders().getContentType()),
+                () -> assertEquals(2, lines1.length),
+                () -> assertEquals("Garrett Winters", objectMapper.readValue(lines1[1], EmployeeDto.class).getName())
+        );
+
+        // 2 : streamAllEmployees Success (query parameters are honoured, next page cursor as header)
+        EmployeeQueryDto query2 = new EmployeeQueryDto(null, null, null, null, 1);
+        when(mockEmployeeService.getEmployeesPage(null, 1, null)).thenReturn(new EmployeePageDto(expected1.subList(0, 1), "2"));
+        ResponseEntity<StreamingResponseBody> response2 = underTestController.streamAllEmployees(query2);
+        ByteArrayOutputStream output2 = new ByteArrayOutputStream();
+        response2.getBody().writeTo(output2);
+
+        assertAll(
+                () -> assertEquals(MediaType.APPLICATION_NDJSON, response2.getHeaders().getContentType()),
+                () -> assertEquals("2", response2.getHeaders().getFirst(EmployeePageDto.NEXT_CURSOR_HEADER)),
+                () -> assertEquals(1, output2.toString().split("\n").length)
+        );
+    }
+
+    @Test
+    void contentNegotiation() throws Exception {
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(underTestController).build();
+        EmployeeDto employee = new EmployeeDto("1", "Tiger Nixon", "320800", "61", "");
+        when(mockEmployeeService.getAllEmployees()).thenReturn(List.of(employee));
+        when(mockEmployeeService.getAllEmployeesView()).thenReturn(List.of(employee));
+
+        // 1 : Accept */*, application/json or no Accept header : JSON array
+        mockMvc.perform(get("/api/v1/employees").accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].employee_name").value("Tiger Nixon"));
+        mockMvc.perform(get("/api/v1/employees").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mockMvc.perform(get("/api/v1/employees"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        // 2 : Accept application/x-ndjson : one JSON record per line
+        MvcResult result2 = mockMvc.perform(get("/api/v1/employees").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result2))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(objectMapper.writeValueAsString(employee) + "\n"));
     }
 
     @Test
@@ -63,7 +168,7 @@ class EmployeeControllerImplTest {
         List<EmployeeDto> expected1 = new ArrayList<>();
         expected1.add(new EmployeeDto("", name1, "", "", ""));
         when(mockEmployeeService.getEmployeesByNameSearch(name1)).thenReturn(expected1);
-        ResponseEntity<List<EmployeeDto>> response1 = underTestController.getEmployeesByNameSearch(name1);
+        ResponseEntity<List<EmployeeDto>> response1 = underTestController.getEmployeesByNameSearch(name1, null, null);
         List<EmployeeDto> actual1 = response1.getBody();
 
         assertAll(
@@ -76,7 +181,7 @@ class EmployeeControllerImplTest {
         String name2 = "abcde";
         List<EmployeeDto> expected2 = new ArrayList<>();
         when(mockEmployeeService.getEmployeesByNameSearch(name2)).thenReturn(expected2);
-        ResponseEntity<List<EmployeeDto>> response2 = underTestController.getEmployeesByNameSearch(name2);
+        ResponseEntity<List<EmployeeDto>> response2 = underTestController.getEmployeesByNameSearch(name2, null, null);
 
         assertAll(
                 () -> assertEquals(HttpStatus.NOT_FOUND, response2.getStatusCode())
@@ -115,8 +220,8 @@ class EmployeeControllerImplTest {
         Integer salary1 = 12345;
         List<EmployeeDto> expected1 = new ArrayList<>();
         expected1.add(new EmployeeDto("", "", salary1.toString(), "", ""));
-        when(mockEmployeeService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING)).thenReturn(expected1);
-        ResponseEntity<Integer> response1 = underTestController.getHighestSalaryOfEmployees();
+        when(mockEmployeeService.getTopEarningEmployees(1)).thenReturn(expected1);
+        ResponseEntity<Integer> response1 = underTestController.getHighestSalaryOfEmployees(webRequest);
         Integer actual1 = response1.getBody();
 
         assertAll(
@@ -127,13 +232,42 @@ class EmployeeControllerImplTest {
 
         // 2 : getHighestSalaryOfEmployees Success (zero records)
         List<EmployeeDto> expected2 = new ArrayList<>();
-        when(mockEmployeeService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING)).thenReturn(expected2);
-        ResponseEntity<Integer> response2 = underTestController.getHighestSalaryOfEmployees();
+        when(mockEmployeeService.getTopEarningEmployees(1)).thenReturn(expected2);
+        ResponseEntity<Integer> response2 = underTestController.getHighestSalaryOfEmployees(webRequest);
         Integer actual2 = response2.getBody();
 
         assertAll(
                 () -> assertEquals(HttpStatus.OK, response2.getStatusCode())
         );
+
+        // 3 : getHighestSalaryOfEmployees Success (salary above Integer.MAX_VALUE is answered as Integer.MAX_VALUE)
+        List<EmployeeDto> expected3 = new ArrayList<>();
+        expected3.add(new EmployeeDto("1", "a", "3000000000", "", ""));
+        when(mockEmployeeService.getTopEarningEmployees(1)).thenReturn(expected3);
+        ResponseEntity<Integer> response3 = underTestController.getHighestSalaryOfEmployees(webRequest);
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response3.getStatusCode()),
+                () -> assertEquals(Integer.MAX_VALUE, response3.getBody())
+        );
+    }
+
+    @Test
+    void getEmployeeStatistics() {
+
+        // 1 : getEmployeeStatistics Success, tagged with the version of the data set
+        EmployeeStatsDto.Distribution distribution = new EmployeeStatsDto.Distribution(0, null, null, null, null,
+                new LinkedHashMap<>(), new ArrayList<>());
+        EmployeeStatsDto expected1 = new EmployeeStatsDto(0, distribution, distribution);
+        when(mockEmployeeService.getDatasetVersion()).thenReturn(new EmployeeVersionDto(42, 1000));
+        when(mockEmployeeService.getEmployeeStatistics()).thenReturn(expected1);
+        ResponseEntity<EmployeeStatsDto> response1 = underTestController.getEmployeeStatistics(webRequest);
+
+        assertAll(
+                () -> assertEquals(HttpStatus.OK, response1.getStatusCode()),
+                () -> assertSame(expected1, response1.getBody()),
+                () -> assertEquals("\"2a\"", response1.getHeaders().getETag())
+        );
     }
 
     @Test
@@ -142,8 +276,8 @@ class EmployeeControllerImplTest {
         // 1 : getTopTenHighestEarningEmployeeNames Success (non-zero records)
         List<EmployeeDto> expected1 = new ArrayList<>();
         expected1.add(new EmployeeDto("", "", "12345", "", ""));
-        when(mockEmployeeService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING)).thenReturn(expected1);
-        ResponseEntity<List<String>> response1 = underTestController.getTopTenHighestEarningEmployeeNames();
+        when(mockEmployeeService.getTopEarningEmployees(10)).thenReturn(expected1);
+        ResponseEntity<List<String>> response1 = underTestController.getTopTenHighestEarningEmployeeNames(webRequest);
         List<String> actual1 = response1.getBody();
 
         assertAll(
@@ -153,8 +287,8 @@ class EmployeeControllerImplTest {
 
         // 2 : getTopTenHighestEarningEmployeeNames Success (zero records)
         List<EmployeeDto> expected2 = new ArrayList<>();
-        when(mockEmployeeService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING)).thenReturn(expected2);
-        ResponseEntity<List<String>> response2 = underTestController.getTopTenHighestEarningEmployeeNames();
+        when(mockEmployeeService.getTopEarningEmployees(10)).thenReturn(expected2);
+        ResponseEntity<List<String>> response2 = underTestController.getTopTenHighestEarningEmployeeNames(webRequest);
         List<String> actual2 = response2.getBody();
 
         assertAll(
@@ -162,16 +296,50 @@ class EmployeeControllerImplTest {
         );
     }
 
+    @Test
+    void datasetVersionHeaders() {
+
+        // 1 : responses carry the version of the data set as ETag/Last-Modified
+        EmployeeVersionDto version1 = new EmployeeVersionDto(0xabcdefL, 1_600_000_000_000L);
+        when(mockEmployeeService.getDatasetVersion()).thenReturn(version1);
+        when(mockEmployeeService.getAllEmployees()).thenReturn(new ArrayList<>());
+        when(mockEmployeeService.getTopEarningEmployees(10)).thenReturn(new ArrayList<>());
+        ResponseEntity<List<EmployeeDto>> response1 = underTestController.getAllEmployees(new EmployeeQueryDto(), webRequest);
+        ResponseEntity<List<String>> response2 = underTestController.getTopTenHighestEarningEmployeeNames(webRequest);
+
+        assertAll(
+                () -> assertEquals("\"abcdef\"", response1.getHeaders().getETag()),
+                () -> assertEquals(1_600_000_000_000L, response1.getHeaders().getLastModified()),
+                () -> assertEquals("\"abcdef\"", response2.getHeaders().getETag())
+        );
+
+        // 2 : no data set (no version) : no ETag
+        when(mockEmployeeService.getDatasetVersion()).thenReturn(null);
+        ResponseEntity<List<EmployeeDto>> response3 = underTestController.getAllEmployees(new EmployeeQueryDto(), webRequest);
+
+        assertNull(response3.getHeaders().getETag());
+
+        // 3 : If-None-Match of the cached version : 304 before the data set is read (no external API call)
+        MockHttpServletRequest request4 = new MockHttpServletRequest("GET", "/api/v1/employees");
+        request4.addHeader("If-None-Match", version1.getETag());
+        MockHttpServletResponse servletResponse4 = new MockHttpServletResponse();
+        when(mockEmployeeService.getCachedDatasetVersion()).thenReturn(version1);
+        ResponseEntity<List<EmployeeDto>> response4 = underTestController.getAllEmployees(new EmployeeQueryDto(),
+                new ServletWebRequest(request4, servletResponse4));
+
+        assertAll(
+                () -> assertNull(response4),
+                () -> assertEquals(304, servletResponse4.getStatus()),
+                () -> verify(mockEmployeeService, times(3)).getDatasetVersion()
+        );
+    }
+
     @Test
     void createEmployee() {
 
         // 1 : createEmployee Success (new record)
-        ObjectMapper objectMapper = new ObjectMapper();
-        Map<String, Object> employee1 = new HashMap<>();
-        employee1.put("employee_name", "dummy");
-        employee1.put("employee_salary", "12345");
-        employee1.put("employee_age", "30");
-        EmployeeDto expected1 = objectMapper.convertValue(employee1, EmployeeDto.class);
+        EmployeeDto employee1 = new EmployeeDto("", "dummy", "12345", "30", "");
+        EmployeeDto expected1 = new EmployeeDto("25", "dummy", "12345", "30", "");
         when(mockEmployeeService.createNewEmployee(any(EmployeeDto.class))).thenReturn(expected1);
         ResponseEntity<EmployeeDto> response1 = underTestController.createEmployee(employee1);
         EmployeeDto actual1 = response1.getBody();
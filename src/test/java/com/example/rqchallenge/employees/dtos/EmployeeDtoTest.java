@@ -0,0 +1,74 @@
+package com.example.rqchallenge.employees.dtos;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeDtoTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void jsonMapping() throws Exception {
+
+        // 1 : numeric fields are parsed once (strings or numbers on the wire)
+        String json1 = "{\"id\":\"1\",\"employee_name\":\"Tiger Nixon\",\"employee_salary\":320800,\"employee_age\":\"61\",\"profile_image\":\"\"}";
+        EmployeeDto actual1 = objectMapper.readValue(json1, EmployeeDto.class);
+
+        assertAll(
+                () -> assertEquals(1L, actual1.getIdValue()),
+                () -> assertEquals(320800L, actual1.getSalaryValue()),
+                () -> assertEquals(61, actual1.getAgeValue()),
+                () -> assertEquals("320800", actual1.getSalary())
+        );
+
+        // 2 : wire format is unchanged (numeric fields as strings)
+        JsonNode actual2 = objectMapper.readTree(objectMapper.writeValueAsString(actual1));
+
+        assertAll(
+                () -> assertEquals(5, actual2.size()),
+                () -> assertEquals("1", actual2.get("id").asText()),
+                () -> assertTrue(actual2.get("employee_salary").isTextual()),
+                () -> assertEquals("320800", actual2.get("employee_salary").asText()),
+                () -> assertEquals("61", actual2.get("employee_age").asText())
+        );
+
+        // 3 : missing / non-numeric values
+        EmployeeDto actual3 = new EmployeeDto("", "abc", "35a", null, "");
+
+        assertAll(
+                () -> assertEquals(EmployeeDto.NOT_SET, actual3.getIdValue()),
+                () -> assertEquals("", actual3.getId()),
+                () -> assertEquals(EmployeeDto.NOT_A_NUMBER, actual3.getSalaryValue()),
+                () -> assertEquals(EmployeeDto.NOT_SET, actual3.getAgeValue())
+        );
+
+        // 4 : numeric fields go back on the wire as received (leading zeros, non-numeric, null)
+        EmployeeDto actual4 = new EmployeeDto("0123", "abc", "35a", null, "");
+        JsonNode actual4Json = objectMapper.readTree(objectMapper.writeValueAsString(actual4));
+
+        assertAll(
+                () -> assertEquals(123L, actual4.getIdValue()),
+                () -> assertEquals("0123", actual4Json.get("id").asText()),
+                () -> assertEquals("35a", actual4Json.get("employee_salary").asText()),
+                () -> assertTrue(actual4Json.get("employee_age").isNull()),
+                () -> assertFalse(actual4.hasCanonicalNumbers()),
+                () -> assertTrue(actual1.hasCanonicalNumbers())
+        );
+
+        // 5 : canonical texts are not kept (formatted from the primitives), a value set replaces a kept text
+        EmployeeDto actual5 = new EmployeeDto("7", "Airi Satou", "0162700", "", "");
+        actual5.setSalaryValue(162700);
+
+        assertAll(
+                () -> assertTrue(actual5.hasCanonicalNumbers()),
+                () -> assertEquals("7", actual5.getId()),
+                () -> assertEquals("162700", actual5.getSalary()),
+                () -> assertEquals("", actual5.getAge()),
+                () -> assertTrue(new EmployeeDto().hasCanonicalNumbers()),
+                () -> assertEquals("", new EmployeeDto().getId())
+        );
+    }
+}
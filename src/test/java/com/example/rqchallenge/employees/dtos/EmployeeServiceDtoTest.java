@@ -0,0 +1,43 @@
+package com.example.rqchallenge.employees.dtos;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeServiceDtoTest {
+
+    @Test
+    void toStringOfLists() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++)
+            employees.add(new EmployeeDto(String.valueOf(i), "Employee " + i, "1000", "30", ""));
+
+        // 1 : large lists are cut to the first records
+        EmployeeServiceDto<List<EmployeeDto>> response1 = new EmployeeServiceDto<>();
+        response1.setStatus("success");
+        response1.setData(employees);
+        String actual1 = response1.toString();
+
+        assertAll(
+                () -> assertTrue(actual1.contains("Employee 3")),
+                () -> assertFalse(actual1.contains("Employee 4")),
+                () -> assertTrue(actual1.contains("... 997 more]")),
+                () -> assertTrue(actual1.length() < 1000)
+        );
+
+        // 2 : small lists and single records are written as they are
+        EmployeeServiceDto<List<EmployeeDto>> response2 = new EmployeeServiceDto<>();
+        response2.setData(employees.subList(0, 2));
+        EmployeeServiceDto<EmployeeDto> response3 = new EmployeeServiceDto<>();
+        response3.setData(employees.get(0));
+
+        assertAll(
+                () -> assertTrue(response2.toString().contains(employees.subList(0, 2).toString())),
+                () -> assertTrue(response3.toString().contains(employees.get(0).toString()))
+        );
+    }
+}
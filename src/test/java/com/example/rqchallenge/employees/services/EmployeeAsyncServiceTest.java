@@ -0,0 +1,87 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.controllers.CorrelationIdFilter;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import com.example.rqchallenge.employees.services.upstream.UpstreamCircuitBreaker;
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
+import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.logging.log4j.ThreadContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeAsyncServiceTest {
+
+    @Mock
+    private EmployeeFieldsValidator mockFieldsValidator;
+
+    @Mock
+    private EmployeeBackupService mockBackupService;
+
+    private EmployeeAsyncService newEmployeeService(WebClient webClient) {
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setMaxStale(Duration.ZERO);
+
+        return new EmployeeAsyncService(mockFieldsValidator, mockBackupService, new EmployeeCacheService(properties), webClient,
+                new UpstreamRateLimiter(1000, Duration.ofSeconds(1), Duration.ZERO),
+                new UpstreamCircuitBreaker(10, 10, 101, Duration.ZERO, 1),
+                new EmployeeWriteBehindService(properties, new ObjectMapper()), new EmployeeMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    @Test
+    void correlationId() throws Exception {
+
+        // External API answers 503 on a Reactor thread (not the request thread)
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> Mono.delay(Duration.ofMillis(20))
+                        .map(tick -> ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build()))
+                .build();
+        EmployeeAsyncService underTestService = newEmployeeService(webClient);
+        AtomicReference<String> fallbackCorrelationId = new AtomicReference<>();
+        AtomicReference<String> fallbackThread = new AtomicReference<>();
+
+        when(mockBackupService.whenLoaded()).thenReturn(CompletableFuture.completedFuture(null));
+        when(mockBackupService.getEmployeeStore()).thenAnswer(invocation -> {
+            fallbackCorrelationId.set(ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY));
+            fallbackThread.set(Thread.currentThread().getName());
+            return new EmployeeStore(List.of(new EmployeeDto("1", "Tiger Nixon", "320800", "61", "")));
+        });
+
+        // 1 : the fallback (and its error log) runs on the Reactor thread with the id of the request
+        CompletableFuture<List<EmployeeDto>> actual;
+        ThreadContext.put(CorrelationIdFilter.CONTEXT_KEY, "request-1");
+        try {
+            actual = underTestService.getAllEmployees();
+        } finally {
+            ThreadContext.remove(CorrelationIdFilter.CONTEXT_KEY);
+        }
+        List<EmployeeDto> employees = actual.get(5, TimeUnit.SECONDS);
+
+        assertAll(
+                () -> assertEquals(1, employees.size()),
+                () -> assertEquals("request-1", fallbackCorrelationId.get()),
+                () -> assertNotEquals(Thread.currentThread().getName(), fallbackThread.get()),
+                () -> assertNull(ThreadContext.get(CorrelationIdFilter.CONTEXT_KEY))
+        );
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeMetricsTest {
+
+    @Test
+    void outcome() {
+
+        // 1 : responses by status
+        assertAll(
+                () -> assertEquals("2xx", EmployeeMetrics.outcome(null)),
+                () -> assertEquals("429", EmployeeMetrics.outcome(HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS,
+                        "Too Many Requests", null, null, null))),
+                () -> assertEquals("4xx", EmployeeMetrics.outcome(HttpClientErrorException.create(HttpStatus.NOT_FOUND,
+                        "Not Found", null, null, null))),
+                () -> assertEquals("5xx", EmployeeMetrics.outcome(HttpServerErrorException.create(HttpStatus.BAD_GATEWAY,
+                        "Bad Gateway", null, null, null)))
+        );
+
+        // 2 : I/O errors, timeouts are found in the wrapped cause
+        assertAll(
+                () -> assertEquals("timeout", EmployeeMetrics.outcome(new ResourceAccessException("I/O error",
+                        new SocketTimeoutException("Read timed out")))),
+                () -> assertEquals("io_error", EmployeeMetrics.outcome(new ResourceAccessException("I/O error",
+                        new ConnectException("Connection refused")))),
+                () -> assertEquals("error", EmployeeMetrics.outcome(new IllegalStateException(new IOException("bad body"))))
+        );
+    }
+
+    @Test
+    void recordUpstreamCallAndFallback() {
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EmployeeMetrics underTestMetrics = new EmployeeMetrics(meterRegistry);
+
+        underTestMetrics.recordUpstreamCall(UpstreamRateLimiter.Priority.READ, System.nanoTime(), null);
+        underTestMetrics.recordUpstreamCall(UpstreamRateLimiter.Priority.READ, System.nanoTime(),
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", null, null, null));
+        underTestMetrics.recordFallback("getEmployeeStore:");
+        underTestMetrics.recordFallback("getEmployeeStore:");
+
+        assertAll(
+                () -> assertEquals(1, meterRegistry.get("employees.upstream.calls")
+                        .tag("priority", "READ").tag("outcome", "2xx").timer().count()),
+                () -> assertEquals(1, meterRegistry.get("employees.upstream.calls")
+                        .tag("priority", "READ").tag("outcome", "5xx").timer().count()),
+                () -> assertEquals(0, meterRegistry.get("employees.upstream.calls")
+                        .tag("priority", "WRITE").tag("outcome", "2xx").timer().count()),
+                () -> assertEquals(2, meterRegistry.get("employees.fallbacks")
+                        .tag("operation", "getEmployeeStore").counter().count())
+        );
+    }
+}
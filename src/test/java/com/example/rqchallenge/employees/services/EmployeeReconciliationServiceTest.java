@@ -0,0 +1,106 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.exceptions.UpstreamUnavailableException;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeReconciliationServiceTest {
+
+    @Mock
+    private EmployeeService mockEmployeeService;
+
+    @Mock
+    private EmployeeBackupService mockBackupService;
+
+    @Mock
+    private EmployeeWriteBehindService mockWriteBehindService;
+
+    private EmployeeCacheService cacheService;
+
+    private EmployeeReconciliationService underTestService;
+
+    @BeforeEach
+    void setUp() {
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(Duration.ofHours(1));
+
+        cacheService = new EmployeeCacheService(properties);
+        underTestService = new EmployeeReconciliationService(properties, mockEmployeeService, cacheService, mockBackupService,
+                mockWriteBehindService);
+    }
+
+    @Test
+    void reconcile() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        cacheService.getEmployeeStore(() -> employees);
+
+        List<EmployeeDto> upstreamEmployees = new ArrayList<>();
+        upstreamEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        upstreamEmployees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        EmployeeStore.Delta backupDelta = new EmployeeStore(employees).reconcile(upstreamEmployees);
+
+        when(mockWriteBehindService.getPendingIds()).thenAnswer(invocation -> new HashSet<>());
+        when(mockEmployeeService.fetchUpstreamEmployees()).thenReturn(upstreamEmployees);
+        when(mockBackupService.reconcile(eq(upstreamEmployees), any())).thenReturn(backupDelta);
+
+        // 1 : the difference is applied to the cached store (served without calling the loader) and to backupService
+        EmployeeStore.Delta delta = underTestService.reconcile();
+        EmployeeStore cachedStore = cacheService.getEmployeeStore(() -> fail("cached store expected"));
+
+        assertAll(
+                () -> assertSame(backupDelta, delta),
+                () -> assertEquals(2, cachedStore.size()),
+                () -> assertNull(cachedStore.getEmployeeById("2")),
+                () -> assertEquals("Ashton Cox", cachedStore.getEmployeeById("3").getName()),
+                () -> assertEquals(1, underTestService.getRuns()),
+                () -> assertEquals(1, underTestService.getAdded()),
+                () -> assertEquals(1, underTestService.getRemoved()),
+                () -> assertTrue(underTestService.getLastReconciledAt() > 0)
+        );
+
+        // 2 : external API call not allowed, the round is skipped and local records are kept
+        when(mockEmployeeService.fetchUpstreamEmployees()).thenThrow(new UpstreamUnavailableException("External API unavailable"));
+
+        assertAll(
+                () -> assertNull(underTestService.reconcile()),
+                () -> assertEquals(1, underTestService.getSkipped()),
+                () -> assertEquals(1, underTestService.getRuns()),
+                () -> assertEquals(2, cacheService.getEmployeeStore(() -> fail("cached store expected")).size())
+        );
+
+        // 3 : ids with a pending write (queued before or during the fetch) are left as they are
+        List<EmployeeDto> upstreamEmployees3 = new ArrayList<>();
+        upstreamEmployees3.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+
+        when(mockWriteBehindService.getPendingIds()).thenAnswer(invocation -> new HashSet<>(Set.of("3")))
+                .thenAnswer(invocation -> new HashSet<>(Set.of("5")));
+        doReturn(upstreamEmployees3).when(mockEmployeeService).fetchUpstreamEmployees();
+        when(mockBackupService.reconcile(upstreamEmployees3, Set.of("3", "5"))).thenReturn(backupDelta);
+        underTestService.reconcile();
+
+        assertAll(
+                () -> assertEquals(2, underTestService.getRuns()),
+                () -> assertEquals("Ashton Cox", cacheService.getEmployeeStore(() -> fail("cached store expected")).getEmployeeById("3").getName())
+        );
+        verify(mockBackupService, times(2)).reconcile(any(), any());
+    }
+}
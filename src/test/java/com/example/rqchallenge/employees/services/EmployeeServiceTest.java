@@ -1,28 +1,50 @@
 package com.example.rqchallenge.employees.services;
 
+import com.example.rqchallenge.EmployeeProperties;
 import com.example.rqchallenge.employees.controllers.EmployeeController;
 import com.example.rqchallenge.employees.controllers.EmployeeControllerImpl;
 import com.example.rqchallenge.employees.dtos.EmployeeDto;
 import com.example.rqchallenge.employees.dtos.EmployeeExceptionDto;
+import com.example.rqchallenge.employees.dtos.EmployeePageDto;
+import com.example.rqchallenge.employees.dtos.EmployeeQueryDto;
 import com.example.rqchallenge.employees.dtos.EmployeeServiceDto;
 import com.example.rqchallenge.employees.exceptions.EmployeeFieldsNotValidException;
+import com.example.rqchallenge.employees.services.stores.EmployeeStore;
+import com.example.rqchallenge.employees.services.upstream.UpstreamCircuitBreaker;
+import com.example.rqchallenge.employees.services.upstream.UpstreamRateLimiter;
 import com.example.rqchallenge.employees.services.validators.EmployeeFieldsValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.lang.reflect.Executable;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,18 +59,69 @@ class EmployeeServiceTest {
     @Mock
     private RestTemplate mockRestTemplate;
 
-    @InjectMocks
     private EmployeeService underTestService;
 
     private final String BASE_URL = "https://dummy.restapiexample.com";
 
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        // Cache disabled : every call reaches the (mocked) external API
+        underTestService = newEmployeeService(Duration.ZERO, Duration.ZERO);
+    }
+
+    private EmployeeService newEmployeeService(Duration ttl, Duration maxStale) {
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(ttl);
+        properties.getCache().setMaxStale(maxStale);
+
+        // Rate limit high enough to never divert a call
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(1000, Duration.ofSeconds(1), Duration.ZERO);
+
+        return newEmployeeService(properties, rateLimiter);
+    }
+
+    private EmployeeService newEmployeeService(EmployeeProperties properties, UpstreamRateLimiter rateLimiter) {
+        // Circuit breaker that never opens
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(10, 10, 101, Duration.ZERO, 1);
+
+        return newEmployeeService(properties, rateLimiter, circuitBreaker);
+    }
+
+    private EmployeeService newEmployeeService(EmployeeProperties properties, UpstreamRateLimiter rateLimiter,
+                                               UpstreamCircuitBreaker circuitBreaker) {
+        return new EmployeeService(mockFieldsValidator, mockBackupService, new EmployeeCacheService(properties),
+                mockRestTemplate, rateLimiter, circuitBreaker, new EmployeeWriteBehindService(properties, new ObjectMapper()),
+                new EmployeeMetrics(new SimpleMeterRegistry()), properties);
+    }
+
+    // GET all employees request sent to external API
+    private ResponseEntity<EmployeeServiceDto<List<EmployeeDto>>> exchangeEmployees(RestTemplate restTemplate, URI uri) {
+        return restTemplate.exchange(eq(uri), eq(HttpMethod.GET), isNull(),
+                ArgumentMatchers.<ParameterizedTypeReference<EmployeeServiceDto<List<EmployeeDto>>>>any());
+    }
+
+    // GET employee by id request sent to external API
+    private ResponseEntity<EmployeeServiceDto<EmployeeDto>> exchangeEmployee(RestTemplate restTemplate, URI uri) {
+        return restTemplate.exchange(eq(uri), eq(HttpMethod.GET), isNull(),
+                ArgumentMatchers.<ParameterizedTypeReference<EmployeeServiceDto<EmployeeDto>>>any());
+    }
+
+    // POST create employee request sent to external API
+    private ResponseEntity<EmployeeServiceDto<EmployeeDto>> exchangeCreate(RestTemplate restTemplate, URI uri, EmployeeDto employee) {
+        return restTemplate.exchange(eq(uri), eq(HttpMethod.POST), eq(new HttpEntity<>(employee)),
+                ArgumentMatchers.<ParameterizedTypeReference<EmployeeServiceDto<EmployeeDto>>>any());
+    }
+
     @Test
     void getAllEmployees() throws URISyntaxException {
 
         URI uri = new URI (BASE_URL + "/api/v1/employees");
 
         // 1 : getAllEmployees Success (Returned from external API)
-        EmployeeServiceDto expected1 = new EmployeeServiceDto();
+        EmployeeServiceDto<List<EmployeeDto>> expected1 = new EmployeeServiceDto<>();
         List<EmployeeDto> expectedEmployees1 = new ArrayList<>();
         expectedEmployees1.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
         expectedEmployees1.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
@@ -56,7 +129,7 @@ class EmployeeServiceTest {
         expected1.setStatus("Success");
         expected1.setMessage("All messages are retrieved");
 
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenReturn(expected1);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected1));
         List<EmployeeDto> actualEmployees1 = underTestService.getAllEmployees();
 
         assertAll(
@@ -65,13 +138,13 @@ class EmployeeServiceTest {
         );
 
         // 2 : getAllEmployees Success (Empty list but valid - from external API)
-        EmployeeServiceDto expected2 = new EmployeeServiceDto();
+        EmployeeServiceDto<List<EmployeeDto>> expected2 = new EmployeeServiceDto<>();
         List<EmployeeDto> expectedEmployees2 = null;
         expected2.setData(expectedEmployees2);
         expected2.setStatus("Success");
         expected2.setMessage("All messages are retrieved");
 
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenReturn(expected2);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected2));
         List<EmployeeDto> actualEmployees2 = underTestService.getAllEmployees();
 
         assertAll(
@@ -83,14 +156,188 @@ class EmployeeServiceTest {
         expectedEmployees3.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
         expectedEmployees3.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
 
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenThrow(HttpServerErrorException.class);
-        when(mockBackupService.getAllEmployees()).thenReturn(expectedEmployees3);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenThrow(HttpServerErrorException.class);
+        when(mockBackupService.getEmployeeStore()).thenReturn(new EmployeeStore(expectedEmployees3));
         List<EmployeeDto> actualEmployees3 = underTestService.getAllEmployees();
 
         assertAll(
                 () -> assertNotNull(actualEmployees3),
                 () -> assertFalse(actualEmployees3.isEmpty())
         );
+
+        // 4 : getAllEmployees Success (unreadable response body, fetches the data from backupService)
+        when(exchangeEmployees(mockRestTemplate, uri)).thenThrow(new RestClientException("Error while extracting response"));
+        List<EmployeeDto> actualEmployees4 = underTestService.getAllEmployees();
+
+        assertEquals(2, actualEmployees4.size());
+
+        // 5 : getAllEmployees Failure (4xx response from external API is not served by backupService)
+        when(exchangeEmployees(mockRestTemplate, uri)).thenThrow(HttpClientErrorException.class);
+
+        assertThrows(HttpClientErrorException.class, () -> underTestService.getAllEmployees());
+        verify(mockBackupService, times(2)).getEmployeeStore();
+    }
+
+    @Test
+    void getAllEmployeesFromCache() throws URISyntaxException {
+
+        URI uri = new URI (BASE_URL + "/api/v1/employees");
+        EmployeeService cachingService = newEmployeeService(Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        // 1 : getAllEmployees Success (second call is served from cache)
+        EmployeeServiceDto<List<EmployeeDto>> expected1 = new EmployeeServiceDto<>();
+        List<EmployeeDto> expectedEmployees1 = new ArrayList<>();
+        expectedEmployees1.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        expectedEmployees1.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        expected1.setData(expectedEmployees1);
+        expected1.setStatus("Success");
+
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected1));
+        List<EmployeeDto> actualEmployees1 = cachingService.getAllEmployees();
+        List<EmployeeDto> actualEmployees2 = cachingService.getAllEmployees();
+
+        assertAll(
+                () -> assertEquals(expectedEmployees1.size(), actualEmployees1.size()),
+                () -> assertEquals(expectedEmployees1.size(), actualEmployees2.size())
+        );
+        exchangeEmployees(verify(mockRestTemplate, times(1)), uri);
+
+        // 2 : getEmployeeByIdSearch Success (served from cached employees list)
+        when(mockFieldsValidator.isValidNumber("2")).thenReturn(true);
+        EmployeeDto actualEmployee = cachingService.getEmployeeByIdSearch("2");
+
+        assertAll(
+                () -> assertNotNull(actualEmployee),
+                () -> assertEquals("Garrett Winters", actualEmployee.getName())
+        );
+        exchangeEmployee(verify(mockRestTemplate, never()), new URI(BASE_URL + "/api/v1/employee/2"));
+
+        // 3 : getEmployeesBySalaryOrdering does not reorder the cached list
+        cachingService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.ASCENDING);
+
+        assertEquals("1", cachingService.getAllEmployees().get(0).getId());
+
+        // 4 : createNewEmployee Success is applied on the cached employees (no refetch)
+        URI createUri = new URI(BASE_URL + "/api/v1/create");
+        EmployeeDto newEmployee = new EmployeeDto("", "Ashton Cox", "86000", "66", "");
+        EmployeeServiceDto<EmployeeDto> expected4 = new EmployeeServiceDto<>();
+        expected4.setData(new EmployeeDto("25", "Ashton Cox", "86000", "66", ""));
+        expected4.setStatus("Success");
+
+        when(mockFieldsValidator.isValidEmployeeDto(newEmployee)).thenReturn(true);
+        when(exchangeCreate(mockRestTemplate, createUri, newEmployee)).thenReturn(ResponseEntity.ok(expected4));
+        cachingService.createNewEmployee(newEmployee);
+        List<EmployeeDto> actualEmployees4 = cachingService.getAllEmployees();
+
+        assertAll(
+                () -> assertEquals(3, actualEmployees4.size()),
+                () -> assertEquals("Ashton Cox", actualEmployees4.get(2).getName())
+        );
+
+        // 5 : deleteEmployeeById Success is applied on the cached employees (no refetch)
+        when(mockFieldsValidator.isValidNumber("1")).thenReturn(true);
+        doNothing().when(mockRestTemplate).delete(new URI(BASE_URL + "/api/v1/delete/1"));
+        cachingService.deleteEmployeeById("1");
+        List<EmployeeDto> actualEmployees5 = cachingService.getAllEmployees();
+
+        assertAll(
+                () -> assertEquals(2, actualEmployees5.size()),
+                () -> assertEquals("2", actualEmployees5.get(0).getId())
+        );
+        exchangeEmployees(verify(mockRestTemplate, times(1)), uri);
+    }
+
+    @Test
+    void getAllEmployeesRateLimited() throws URISyntaxException {
+
+        URI uri = new URI (BASE_URL + "/api/v1/employees");
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(1, Duration.ofHours(1), Duration.ZERO);
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setMaxStale(Duration.ZERO);
+        EmployeeService rateLimitedService = newEmployeeService(properties, rateLimiter);
+
+        EmployeeServiceDto<List<EmployeeDto>> expected = new EmployeeServiceDto<>();
+        List<EmployeeDto> expectedEmployees = new ArrayList<>();
+        expectedEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        expected.setData(expectedEmployees);
+        expected.setStatus("Success");
+
+        List<EmployeeDto> backupEmployees = new ArrayList<>();
+        backupEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        backupEmployees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+
+        // 1 : getAllEmployees Success (token available, external API)
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected));
+        when(mockBackupService.getEmployeeStore()).thenReturn(new EmployeeStore(backupEmployees));
+        List<EmployeeDto> actualEmployees1 = rateLimitedService.getAllEmployees();
+
+        // 2 : getAllEmployees Success (no token left, call is not sent and backupService is used)
+        List<EmployeeDto> actualEmployees2 = rateLimitedService.getAllEmployees();
+
+        assertAll(
+                () -> assertEquals(1, actualEmployees1.size()),
+                () -> assertEquals(2, actualEmployees2.size()),
+                () -> assertEquals(1, rateLimiter.getDiverted())
+        );
+        exchangeEmployees(verify(mockRestTemplate, times(1)), uri);
+    }
+
+    @Test
+    void getAllEmployeesCircuitOpen() throws URISyntaxException {
+
+        URI uri = new URI (BASE_URL + "/api/v1/employees");
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(1000, Duration.ofSeconds(1), Duration.ZERO);
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(4, 2, 50, Duration.ofHours(1), 1);
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setMaxStale(Duration.ZERO);
+        EmployeeService breakerService = newEmployeeService(properties, rateLimiter, circuitBreaker);
+
+        List<EmployeeDto> backupEmployees = new ArrayList<>();
+        backupEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+
+        // 1 : getAllEmployees Success (5xx responses, backupService is used after each failed call)
+        when(exchangeEmployees(mockRestTemplate, uri)).thenThrow(HttpServerErrorException.class);
+        when(mockBackupService.getEmployeeStore()).thenReturn(new EmployeeStore(backupEmployees));
+        breakerService.getAllEmployees();
+        breakerService.getAllEmployees();
+
+        // 2 : getAllEmployees Success (circuit open, no call is sent)
+        List<EmployeeDto> actualEmployees = breakerService.getAllEmployees();
+
+        assertAll(
+                () -> assertEquals(1, actualEmployees.size()),
+                () -> assertEquals(UpstreamCircuitBreaker.State.OPEN, circuitBreaker.getState()),
+                () -> assertEquals(1, circuitBreaker.getRejected())
+        );
+        exchangeEmployees(verify(mockRestTemplate, times(2)), uri);
+    }
+
+    @Test
+    void createNewEmployeeTooManyRequests() throws URISyntaxException {
+
+        URI uri = new URI(BASE_URL + "/api/v1/create");
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(10, Duration.ofSeconds(1), Duration.ZERO);
+        EmployeeService rateLimitedService = newEmployeeService(new EmployeeProperties(), rateLimiter);
+
+        // 1 : createNewEmployee Success (429 from external API, backupService is used and Retry-After is honored)
+        EmployeeDto newEmployee = new EmployeeDto("", "abc", "2345", "35", "");
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "120");
+
+        when(mockFieldsValidator.isValidEmployeeDto(newEmployee)).thenReturn(true);
+        when(exchangeCreate(mockRestTemplate, uri, newEmployee)).thenThrow(
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Too Many Requests", headers, null, null));
+        when(mockBackupService.createNewEmployee(newEmployee)).thenReturn(newEmployee);
+        EmployeeDto actualEmployee = rateLimitedService.createNewEmployee(newEmployee);
+
+        assertAll(
+                () -> assertNotNull(actualEmployee),
+                () -> assertEquals(1, rateLimiter.getThrottled()),
+                () -> assertEquals(0, rateLimiter.getAvailableTokens()),
+                () -> assertFalse(rateLimiter.tryAcquire(UpstreamRateLimiter.Priority.READ))
+        );
     }
 
     @Test
@@ -109,7 +356,7 @@ class EmployeeServiceTest {
 
         // 2 : getEmployeesByNameSearch Success (Name found)
         String name2 = "tiger";
-        EmployeeServiceDto expected2 = new EmployeeServiceDto();
+        EmployeeServiceDto<List<EmployeeDto>> expected2 = new EmployeeServiceDto<>();
         List<EmployeeDto> expectedEmployees2 = new ArrayList<>();
         expectedEmployees2.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
         expectedEmployees2.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
@@ -118,7 +365,7 @@ class EmployeeServiceTest {
         expected2.setMessage("All records retrieved");
 
         when(mockFieldsValidator.isValidAlphaNumericString(name2)).thenReturn(true);
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenReturn(expected2);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected2));
         List<EmployeeDto> actualEmployees2 = underTestService.getEmployeesByNameSearch(name2);
 
         assertAll(
@@ -128,14 +375,14 @@ class EmployeeServiceTest {
 
         // 3 : getEmployeesByNameSearch Success (Name not found - empty list)
         String name3 = "xyz";
-        EmployeeServiceDto expected3 = new EmployeeServiceDto();
+        EmployeeServiceDto<List<EmployeeDto>> expected3 = new EmployeeServiceDto<>();
         List<EmployeeDto> expectedEmployees3 = new ArrayList<>();
         expected3.setData(expectedEmployees3);
         expected3.setStatus("Success");
         expected3.setMessage("All records retrieved");
 
         when(mockFieldsValidator.isValidAlphaNumericString(name3)).thenReturn(true);
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenReturn(expected3);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected3));
         List<EmployeeDto> actualEmployees3 = underTestService.getEmployeesByNameSearch(name3);
 
         assertAll(
@@ -149,13 +396,13 @@ class EmployeeServiceTest {
 
         when(mockFieldsValidator.isValidAlphaNumericString(name4)).thenReturn(true);
         when(mockFieldsValidator.isValidAlphaNumericString(name5)).thenReturn(true);
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenThrow(HttpServerErrorException.class);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenThrow(HttpServerErrorException.class);
 
         List<EmployeeDto> expectedEmployees45 = new ArrayList<>();
         expectedEmployees45.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
         expectedEmployees45.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
 
-        when(mockBackupService.getAllEmployees()).thenReturn(expectedEmployees45);
+        when(mockBackupService.getEmployeeStore()).thenReturn(new EmployeeStore(expectedEmployees45));
         List<EmployeeDto> actualEmployees4 = underTestService.getEmployeesByNameSearch(name4);
         List<EmployeeDto> actualEmployees5 = underTestService.getEmployeesByNameSearch(name5);
 
@@ -183,14 +430,14 @@ class EmployeeServiceTest {
 
         // 2 : getEmployeeByIdSearch Success (Employee found)
         String id2 = "1";
-        EmployeeServiceDto expected2 = new EmployeeServiceDto();
+        EmployeeServiceDto<EmployeeDto> expected2 = new EmployeeServiceDto<>();
         EmployeeDto expectedEmployee2 = new EmployeeDto("1", "Tiger", "", "", "");
         expected2.setData(expectedEmployee2);
         expected2.setStatus("Success");
         expected2.setMessage("All records retrieved!");
 
         when(mockFieldsValidator.isValidNumber(id2)).thenReturn(true);
-        when(mockRestTemplate.getForObject(new URI(externalApiUri + id2), EmployeeServiceDto.class)).thenReturn(expected2);
+        when(exchangeEmployee(mockRestTemplate, new URI(externalApiUri + id2))).thenReturn(ResponseEntity.ok(expected2));
         EmployeeDto actualEmployee2 = underTestService.getEmployeeByIdSearch(id2);
 
         assertAll(
@@ -200,13 +447,13 @@ class EmployeeServiceTest {
 
         // 3 : getEmployeeByIdSearch Success (Employee not found = returns null)
         String id3 = "1000000";
-        EmployeeServiceDto expected3 = new EmployeeServiceDto();
+        EmployeeServiceDto<EmployeeDto> expected3 = new EmployeeServiceDto<>();
         expected3.setData(null);
         expected3.setStatus("Success");
         expected3.setMessage("All records retrieved!");
 
         when(mockFieldsValidator.isValidNumber(id3)).thenReturn(true);
-        when(mockRestTemplate.getForObject(new URI(externalApiUri + id3), EmployeeServiceDto.class)).thenReturn(expected3);
+        when(exchangeEmployee(mockRestTemplate, new URI(externalApiUri + id3))).thenReturn(ResponseEntity.ok(expected3));
         EmployeeDto actualEmployee3 = underTestService.getEmployeeByIdSearch(id3);
 
         assertAll(
@@ -222,8 +469,8 @@ class EmployeeServiceTest {
 
         when(mockFieldsValidator.isValidNumber(id4)).thenReturn(true);
         when(mockFieldsValidator.isValidNumber(id5)).thenReturn(true);
-        lenient().when(mockRestTemplate.getForObject(externalApiUri + id4, EmployeeServiceDto.class)).thenThrow(HttpServerErrorException.class);
-        lenient().when(mockRestTemplate.getForObject(externalApiUri + id5, EmployeeServiceDto.class)).thenThrow(HttpServerErrorException.class);
+        lenient().when(exchangeEmployee(mockRestTemplate, new URI(externalApiUri + id4))).thenThrow(HttpServerErrorException.class);
+        lenient().when(exchangeEmployee(mockRestTemplate, new URI(externalApiUri + id5))).thenThrow(HttpServerErrorException.class);
         lenient().when(mockBackupService.getEmployeeByIdSearch(id4)).thenReturn(expected4);
         lenient().when(mockBackupService.getEmployeeByIdSearch(id5)).thenReturn(expected5);
 
@@ -243,7 +490,7 @@ class EmployeeServiceTest {
         URI uri = new URI(BASE_URL + "/api/v1/employees");
 
         // 1 :  getEmployeesBySalaryOrdering Success (Returns sorted list - external API)
-        EmployeeServiceDto expected1 = new EmployeeServiceDto();
+        EmployeeServiceDto<List<EmployeeDto>> expected1 = new EmployeeServiceDto<>();
         List<EmployeeDto> expectedEmployees1 = new ArrayList<>();
         expectedEmployees1.add(new EmployeeDto("1", "Tiger Nixon", "32800", "61", ""));
         expectedEmployees1.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
@@ -251,7 +498,7 @@ class EmployeeServiceTest {
         expected1.setStatus("Success");
         expected1.setMessage("All records retrieved");
 
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenReturn(expected1);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected1));
         List<EmployeeDto> actualEmployees1 = underTestService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING);
 
         assertAll(
@@ -260,7 +507,7 @@ class EmployeeServiceTest {
         );
 
         // 2 :  getEmployeesBySalaryOrdering Success (Returns sorted list - backupService)
-        EmployeeServiceDto expected2 = new EmployeeServiceDto();
+        EmployeeServiceDto<List<EmployeeDto>> expected2 = new EmployeeServiceDto<>();
         List<EmployeeDto> expectedEmployees2 = new ArrayList<>();
         expectedEmployees2.add(new EmployeeDto("1", "Tiger Nixon", "32800", "61", ""));
         expectedEmployees2.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
@@ -268,8 +515,8 @@ class EmployeeServiceTest {
         expected2.setStatus("Success");
         expected2.setMessage("All records retrieved");
 
-        when(mockRestTemplate.getForObject(uri, EmployeeServiceDto.class)).thenThrow(HttpServerErrorException.class);
-        lenient().when(mockBackupService.getAllEmployees()).thenReturn(expectedEmployees2);
+        when(exchangeEmployees(mockRestTemplate, uri)).thenThrow(HttpServerErrorException.class);
+        lenient().when(mockBackupService.getEmployeeStore()).thenReturn(new EmployeeStore(expectedEmployees2));
         List<EmployeeDto> actualEmployees2 = underTestService.getEmployeesBySalaryOrdering(EmployeeService.SALARY_ORDERING.DESCENDING);
 
         assertAll(
@@ -278,6 +525,134 @@ class EmployeeServiceTest {
         );
     }
 
+    @Test
+    void queryEmployees() throws URISyntaxException {
+
+        URI uri = new URI(BASE_URL + "/api/v1/employees");
+
+        EmployeeServiceDto<List<EmployeeDto>> expected = new EmployeeServiceDto<>();
+        List<EmployeeDto> expectedEmployees = new ArrayList<>();
+        expectedEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        expectedEmployees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        expectedEmployees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        expectedEmployees.add(new EmployeeDto("4", "Cedric Kelly", "433060", "22", ""));
+        expected.setData(expectedEmployees);
+        expected.setStatus("Success");
+        expected.setMessage("All records retrieved");
+
+        lenient().when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected));
+        lenient().when(mockFieldsValidator.isValidNumber(any())).thenReturn(true);
+        lenient().when(mockFieldsValidator.isValidAlphaNumericString(any())).thenReturn(true);
+
+        // 1 : queryEmployees Success (ordered by salary, limit pushed down to the salary index)
+        List<EmployeeDto> actualEmployees1 = underTestService.queryEmployees(
+                new EmployeeQueryDto(null, null, "salary", "desc", 2));
+
+        assertAll(
+                () -> assertEquals(2, actualEmployees1.size()),
+                () -> assertEquals("4", actualEmployees1.get(0).getId()),
+                () -> assertEquals("1", actualEmployees1.get(1).getId())
+        );
+
+        // 2 : queryEmployees Success (name filter then ascending salary order)
+        List<EmployeeDto> actualEmployees2 = underTestService.queryEmployees(
+                new EmployeeQueryDto("e", null, "salary", "asc", 2));
+
+        assertAll(
+                () -> assertEquals(2, actualEmployees2.size()),
+                () -> assertEquals("2", actualEmployees2.get(0).getId()),
+                () -> assertEquals("1", actualEmployees2.get(1).getId())
+        );
+
+        // 3 : queryEmployees Success (id filter combined with a name filter that does not match)
+        List<EmployeeDto> actualEmployees3 = underTestService.queryEmployees(
+                new EmployeeQueryDto("cox", "1", null, null, null));
+
+        assertAll(
+                () -> assertTrue(actualEmployees3.isEmpty())
+        );
+
+        // 4 : queryEmployees Failure (unsupported orderBy / direction / limit)
+        assertAll(
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.queryEmployees(new EmployeeQueryDto(null, null, "age", null, null))),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.queryEmployees(new EmployeeQueryDto(null, null, "salary", "up", null))),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.queryEmployees(new EmployeeQueryDto(null, null, null, null, -1))),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.queryEmployees(new EmployeeQueryDto(null, null, "salary", null, 0)))
+        );
+    }
+
+    @Test
+    void getEmployeesPage() throws URISyntaxException {
+
+        URI uri = new URI(BASE_URL + "/api/v1/employees");
+
+        EmployeeServiceDto<List<EmployeeDto>> expected = new EmployeeServiceDto<>();
+        List<EmployeeDto> expectedEmployees = new ArrayList<>();
+        expectedEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        expectedEmployees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        expectedEmployees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        expectedEmployees.add(new EmployeeDto("4", "Cedric Kelly", "433060", "22", ""));
+        expected.setData(expectedEmployees);
+        expected.setStatus("Success");
+        expected.setMessage("All records retrieved");
+
+        lenient().when(exchangeEmployees(mockRestTemplate, uri)).thenReturn(ResponseEntity.ok(expected));
+        lenient().when(mockFieldsValidator.isValidAlphaNumericString(any())).thenReturn(true);
+
+        // 1 : getEmployeesPage Success (first page, then the next one from its cursor)
+        EmployeePageDto page1 = underTestService.getEmployeesPage(null, 3, null);
+        EmployeePageDto page2 = underTestService.getEmployeesPage(null, 3, page1.getNextCursor());
+
+        assertAll(
+                () -> assertEquals(3, page1.getEmployees().size()),
+                () -> assertNotNull(page1.getNextCursor()),
+                () -> assertEquals(1, page2.getEmployees().size()),
+                () -> assertEquals("4", page2.getEmployees().get(0).getId()),
+                () -> assertNull(page2.getNextCursor())
+        );
+
+        // 2 : getEmployeesPage Success (name filter)
+        EmployeePageDto page3 = underTestService.getEmployeesPage("on", 1, null);
+        EmployeePageDto page4 = underTestService.getEmployeesPage("on", 1, page3.getNextCursor());
+
+        assertAll(
+                () -> assertEquals("1", page3.getEmployees().get(0).getId()),
+                () -> assertEquals("3", page4.getEmployees().get(0).getId()),
+                () -> assertNull(page4.getNextCursor())
+        );
+
+        // 3 : getEmployeesPage Failure (invalid limit / cursor, cursor with orderBy)
+        assertAll(
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.getEmployeesPage(null, 0, null)),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.getEmployeesPage(null, 3, "not a cursor!")),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.getEmployeesPage(null, 3, "YWJj")),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> underTestService.queryEmployees(new EmployeeQueryDto(null, null, "salary", null, 3, page1.getNextCursor())))
+        );
+
+        // 4 : the last record of a page is gone : same store, the page continues after its position,
+        //     rebuilt store (refresh), the cursor is rejected
+        EmployeeStore store4 = new EmployeeStore(expectedEmployees);
+        EmployeePageDto page5 = new EmployeePager(null, 1, null).execute(store4);
+        store4.remove("1");
+        EmployeePageDto page6 = new EmployeePager(null, 1, page5.getNextCursor()).execute(store4);
+        store4.replaceAll(expectedEmployees.subList(1, 4));
+
+        assertAll(
+                () -> assertEquals("2", page6.getEmployees().get(0).getId()),
+                () -> assertThrows(EmployeeFieldsNotValidException.class,
+                        () -> new EmployeePager(null, 1, page5.getNextCursor()).execute(store4)),
+                () -> assertEquals("3", new EmployeePager(null, 1, page6.getNextCursor()).execute(store4).getEmployees().get(0).getId())
+        );
+    }
+
     @Test
     void createNewEmployee() throws URISyntaxException {
 
@@ -293,13 +668,13 @@ class EmployeeServiceTest {
         assertNotNull(fieldsNotValidException.getMessage());
 
         // 2 : createNewEmployee Success (external API)
-        EmployeeServiceDto expected2 = new EmployeeServiceDto();
+        EmployeeServiceDto<EmployeeDto> expected2 = new EmployeeServiceDto<>();
         EmployeeDto expectedEmployee2 = new EmployeeDto("", "abc", "2345", "35", "");
         expected2.setData(expectedEmployee2);
         expected2.setStatus("Success");
 
         when(mockFieldsValidator.isValidEmployeeDto(expectedEmployee2)).thenReturn(true);
-        when(mockRestTemplate.postForObject(uri, expectedEmployee2, EmployeeServiceDto.class)).thenReturn(expected2);
+        when(exchangeCreate(mockRestTemplate, uri, expectedEmployee2)).thenReturn(ResponseEntity.ok(expected2));
         EmployeeDto actualEmployee2 = underTestService.createNewEmployee(expectedEmployee2);
 
         assertAll(
@@ -310,13 +685,13 @@ class EmployeeServiceTest {
         );
 
         // 3 : createNewEmployee Success (backupService)
-        EmployeeServiceDto expected3 = new EmployeeServiceDto();
+        EmployeeServiceDto<EmployeeDto> expected3 = new EmployeeServiceDto<>();
         EmployeeDto expectedEmployee3 = new EmployeeDto("", "abcd", "2345", "35", "");
         expected3.setData(expectedEmployee3);
         expected3.setStatus("Success");
 
         when(mockFieldsValidator.isValidEmployeeDto(expectedEmployee3)).thenReturn(true);
-        when(mockRestTemplate.postForObject(uri, expectedEmployee3, EmployeeServiceDto.class)).thenThrow(HttpServerErrorException.class);
+        when(exchangeCreate(mockRestTemplate, uri, expectedEmployee3)).thenThrow(HttpServerErrorException.class);
         when(mockBackupService.createNewEmployee(expectedEmployee3)).thenReturn(expectedEmployee3);
         EmployeeDto actualEmployee3 = underTestService.createNewEmployee(expectedEmployee3);
 
@@ -328,6 +703,49 @@ class EmployeeServiceTest {
         );
     }
 
+    @Test
+    void createNewEmployeeWriteBehind() throws URISyntaxException {
+
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getCache().setTtl(Duration.ZERO);
+        properties.getCache().setMaxStale(Duration.ZERO);
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setQueueFile(tempDir.resolve("queue.json").toString());
+        properties.getWriteBehind().setDrainInterval(Duration.ofHours(1));
+        EmployeeWriteBehindService writeBehindService = new EmployeeWriteBehindService(properties, new ObjectMapper());
+        EmployeeService writeBehindEmployeeService = new EmployeeService(mockFieldsValidator, mockBackupService,
+                new EmployeeCacheService(properties), mockRestTemplate, new UpstreamRateLimiter(1000, Duration.ofSeconds(1), Duration.ZERO),
+                new UpstreamCircuitBreaker(10, 10, 101, Duration.ZERO, 1), writeBehindService,
+                new EmployeeMetrics(new SimpleMeterRegistry()), properties);
+
+        // 1 : createNewEmployee Success (acknowledged locally with a local id)
+        EmployeeDto newEmployee = new EmployeeDto("", "Ashton Cox", "86000", "66", "");
+        EmployeeDto localEmployee = new EmployeeDto("1700000000000", "Ashton Cox", "86000", "66", "");
+
+        when(mockFieldsValidator.isValidEmployeeDto(newEmployee)).thenReturn(true);
+        when(mockBackupService.createNewEmployee(newEmployee)).thenReturn(localEmployee);
+        EmployeeDto actualEmployee1 = writeBehindEmployeeService.createNewEmployee(newEmployee);
+
+        assertAll(
+                () -> assertEquals("1700000000000", actualEmployee1.getId()),
+                () -> assertEquals(1, writeBehindService.getPendingWrites().size())
+        );
+
+        // 2 : the create is sent, the backup record takes the id generated by the external API
+        EmployeeServiceDto<EmployeeDto> expected2 = new EmployeeServiceDto<>();
+        expected2.setData(new EmployeeDto("25", "Ashton Cox", "86000", "66", ""));
+        expected2.setStatus("Success");
+
+        when(mockRestTemplate.exchange(eq(new URI(BASE_URL + "/api/v1/create")), eq(HttpMethod.POST), any(HttpEntity.class),
+                ArgumentMatchers.<ParameterizedTypeReference<EmployeeServiceDto<EmployeeDto>>>any())).thenReturn(ResponseEntity.ok(expected2));
+        writeBehindService.drain();
+
+        assertTrue(writeBehindService.getPendingWrites().isEmpty());
+        verify(mockBackupService, times(1)).deleteEmployeeById("1700000000000");
+        verify(mockBackupService, times(1)).putEmployee(argThat(employee -> "25".equals(employee.getId())));
+        writeBehindService.shutdown();
+    }
+
     @Test
     void deleteEmployeeById() throws URISyntaxException {
 
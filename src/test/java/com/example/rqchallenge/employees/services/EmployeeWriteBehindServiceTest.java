@@ -0,0 +1,187 @@
+package com.example.rqchallenge.employees.services;
+
+import com.example.rqchallenge.EmployeeProperties;
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeWriteDto;
+import com.example.rqchallenge.employees.exceptions.UpstreamUnavailableException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeWriteBehindServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private EmployeeWriteBehindService newWriteBehindService(List<EmployeeWriteDto> sentWrites, boolean failing) {
+        return newWriteBehindService(write -> {
+            if (failing)
+                throw new UpstreamUnavailableException("External API unavailable");
+            sentWrites.add(write);
+        });
+    }
+
+    private EmployeeWriteBehindService newWriteBehindService(Consumer<EmployeeWriteDto> upstreamWriter) {
+        EmployeeProperties properties = new EmployeeProperties();
+        properties.getWriteBehind().setEnabled(true);
+        properties.getWriteBehind().setQueueFile(tempDir.resolve("queue.json").toString());
+        properties.getWriteBehind().setDrainInterval(Duration.ofHours(1));
+        properties.getWriteBehind().setInitialBackoff(Duration.ofHours(1));
+        properties.getWriteBehind().setCompactThreshold(4);
+
+        EmployeeWriteBehindService writeBehindService = new EmployeeWriteBehindService(properties, new ObjectMapper());
+        writeBehindService.loadPendingWrites();
+        writeBehindService.start(upstreamWriter);
+
+        return writeBehindService;
+    }
+
+    @Test
+    void coalesceAndOverlay() {
+
+        List<EmployeeWriteDto> sentWrites = new ArrayList<>();
+        EmployeeWriteBehindService writeBehindService = newWriteBehindService(sentWrites, false);
+
+        // 1 : create then delete of the same employee cancel each other
+        writeBehindService.enqueueCreate(new EmployeeDto("100", "Tiger Nixon", "320800", "61", ""));
+        writeBehindService.enqueueCreate(new EmployeeDto("101", "Garrett Winters", "170750", "63", ""));
+        writeBehindService.enqueueDelete("100");
+        writeBehindService.enqueueDelete("1");
+
+        assertAll(
+                () -> assertEquals(2, writeBehindService.getPendingWrites().size()),
+                () -> assertEquals(1, writeBehindService.getCoalesced())
+        );
+
+        // 2 : pending writes are applied on the employees of the external API
+        List<EmployeeDto> upstreamEmployees = new ArrayList<>();
+        upstreamEmployees.add(new EmployeeDto("1", "Ashton Cox", "86000", "66", ""));
+        upstreamEmployees.add(new EmployeeDto("2", "Cedric Kelly", "433060", "22", ""));
+        List<EmployeeDto> overlaidEmployees = writeBehindService.overlay(upstreamEmployees);
+
+        assertAll(
+                () -> assertEquals(2, overlaidEmployees.size()),
+                () -> assertEquals("2", overlaidEmployees.get(0).getId()),
+                () -> assertEquals("101", overlaidEmployees.get(1).getId())
+        );
+
+        // 3 : drain sends the writes in order
+        writeBehindService.drain();
+
+        assertAll(
+                () -> assertTrue(writeBehindService.getPendingWrites().isEmpty()),
+                () -> assertEquals(2, sentWrites.size()),
+                () -> assertEquals(EmployeeWriteDto.Type.CREATE, sentWrites.get(0).getType()),
+                () -> assertEquals(EmployeeWriteDto.Type.DELETE, sentWrites.get(1).getType())
+        );
+    }
+
+    @Test
+    void retryAndReload() {
+
+        List<EmployeeWriteDto> sentWrites = new ArrayList<>();
+        EmployeeWriteBehindService failingService = newWriteBehindService(sentWrites, true);
+
+        // 1 : a failed write stays queued and is not retried before its backoff
+        failingService.enqueueCreate(new EmployeeDto("100", "Tiger Nixon", "320800", "61", ""));
+        failingService.drain();
+        failingService.drain();
+
+        assertAll(
+                () -> assertEquals(1, failingService.getPendingWrites().size()),
+                () -> assertEquals(1, failingService.getPendingWrites().get(0).getAttempts()),
+                () -> assertEquals(1, failingService.getRetried())
+        );
+        failingService.shutdown();
+
+        // 2 : pending writes survive a restart
+        EmployeeWriteBehindService restartedService = newWriteBehindService(sentWrites, false);
+        List<EmployeeWriteDto> reloadedWrites = restartedService.getPendingWrites();
+
+        assertAll(
+                () -> assertEquals(1, reloadedWrites.size()),
+                () -> assertEquals("Tiger Nixon", reloadedWrites.get(0).getEmployee().getName())
+        );
+
+        restartedService.drain();
+        assertEquals(1, sentWrites.size());
+        restartedService.shutdown();
+    }
+
+    @Test
+    void remapId() {
+
+        List<EmployeeWriteDto> sentWrites = new ArrayList<>();
+        AtomicReference<EmployeeWriteBehindService> service = new AtomicReference<>();
+        EmployeeWriteBehindService writeBehindService = newWriteBehindService(write -> {
+            // 1 : the employee is deleted while its create is being sent, external API answers with id 25
+            if (write.getType() == EmployeeWriteDto.Type.CREATE) {
+                service.get().enqueueDelete("100");
+                service.get().enqueueDelete("101");
+                assertTrue(service.get().remapId("100", "25"));
+            }
+            sentWrites.add(write);
+        });
+        service.set(writeBehindService);
+
+        writeBehindService.enqueueCreate(new EmployeeDto("100", "Tiger Nixon", "320800", "61", ""));
+        writeBehindService.drain();
+
+        // 2 : the queued delete was sent with the id of the external API
+        assertAll(
+                () -> assertTrue(writeBehindService.getPendingWrites().isEmpty()),
+                () -> assertEquals(3, sentWrites.size()),
+                () -> assertEquals("25", sentWrites.get(1).getId()),
+                () -> assertEquals("101", sentWrites.get(2).getId()),
+                () -> assertFalse(writeBehindService.remapId("101", "26"))
+        );
+        writeBehindService.shutdown();
+    }
+
+    @Test
+    void queueLog() throws IOException {
+
+        List<EmployeeWriteDto> sentWrites = new ArrayList<>();
+        EmployeeWriteBehindService writeBehindService = newWriteBehindService(sentWrites, true);
+
+        // 1 : changes are appended (compacted past compact-threshold), a failed attempt is logged too
+        for (int i = 0; i < 6; i++)
+            writeBehindService.enqueueCreate(new EmployeeDto(String.valueOf(100 + i), "Tiger Nixon", "320800", "61", ""));
+        writeBehindService.enqueueDelete("100");
+        writeBehindService.enqueueDelete("1");
+        writeBehindService.drain();
+        writeBehindService.shutdown();
+
+        // 2 : the log is replayed on restart, a torn record at its end is cut off
+        Path queueFile = tempDir.resolve("queue.json");
+        Files.write(queueFile, "{\"type\":\"REMOVE\",\"seq".getBytes(), StandardOpenOption.APPEND);
+        EmployeeWriteBehindService restartedService = newWriteBehindService(sentWrites, false);
+        List<EmployeeWriteDto> reloadedWrites = restartedService.getPendingWrites();
+
+        assertAll(
+                () -> assertEquals(6, reloadedWrites.size()),
+                () -> assertEquals("101", reloadedWrites.get(0).getId()),
+                () -> assertEquals(1, reloadedWrites.get(0).getAttempts()),
+                () -> assertEquals("1", reloadedWrites.get(5).getId()),
+                () -> assertTrue(new String(Files.readAllBytes(queueFile)).endsWith("}\n"))
+        );
+
+        // 3 : sent writes are removed from the log
+        restartedService.drain();
+        restartedService.shutdown();
+
+        assertTrue(newWriteBehindService(sentWrites, false).getPendingWrites().isEmpty());
+    }
+}
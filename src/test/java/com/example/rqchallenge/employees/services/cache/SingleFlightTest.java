@@ -0,0 +1,96 @@
+package com.example.rqchallenge.employees.services.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void execute() throws Exception {
+
+        // 1 : concurrent callers share one in-flight call
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        int nCallers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nCallers);
+        List<Future<String>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < nCallers; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("employees", key -> {
+                    calls.incrementAndGet();
+                    try {
+                        release.await();
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return "result";
+                })));
+            }
+
+            while (singleFlight.getSharedCalls() < nCallers - 1)
+                Thread.sleep(5);
+            release.countDown();
+
+            for (Future<String> result : results)
+                assertEquals("result", result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAll(
+                () -> assertEquals(1, calls.get()),
+                () -> assertEquals(1, singleFlight.getExecutedCalls())
+        );
+
+        // 2 : once completed, next call for the same key is executed again
+        singleFlight.execute("employees", key -> "again");
+
+        assertEquals(2, singleFlight.getExecutedCalls());
+
+        // 3 : exception is propagated to the caller
+        assertThrows(IllegalArgumentException.class,
+                () -> singleFlight.execute("employees", key -> { throw new IllegalArgumentException("failed"); }));
+    }
+
+    @Test
+    void executeAsync() {
+
+        // 1 : callers arriving while the call is in flight share its future
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> upstreamCall = new CompletableFuture<>();
+        CompletableFuture<String> result1 = singleFlight.executeAsync("employees", key -> upstreamCall);
+        CompletableFuture<String> result2 = singleFlight.executeAsync("employees", key -> CompletableFuture.completedFuture("other"));
+
+        assertFalse(result1.isDone());
+        upstreamCall.complete("result");
+
+        assertAll(
+                () -> assertEquals("result", result1.join()),
+                () -> assertEquals("result", result2.join()),
+                () -> assertEquals(1, singleFlight.getExecutedCalls()),
+                () -> assertEquals(1, singleFlight.getSharedCalls())
+        );
+
+        // 2 : once completed, next call for the same key is executed again, failures are propagated
+        CompletableFuture<String> result3 = singleFlight.executeAsync("employees",
+                key -> CompletableFuture.failedFuture(new IllegalArgumentException("failed")));
+
+        assertAll(
+                () -> assertTrue(result3.isCompletedExceptionally()),
+                () -> assertEquals(2, singleFlight.getExecutedCalls())
+        );
+    }
+}
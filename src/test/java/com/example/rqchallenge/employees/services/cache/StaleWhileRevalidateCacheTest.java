@@ -0,0 +1,151 @@
+package com.example.rqchallenge.employees.services.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StaleWhileRevalidateCacheTest {
+
+    @Test
+    void getMiss() throws Exception {
+
+        // 1 : concurrent misses share one load, every caller gets the value it built
+        StaleWhileRevalidateCache<String, List<String>> underTestCache = new StaleWhileRevalidateCache<>("test",
+                Duration.ofHours(1), Duration.ofHours(1), Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int nCallers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(nCallers);
+        List<Future<List<String>>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < nCallers; i++) {
+                results.add(executor.submit(() -> underTestCache.get("employees", key -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new ArrayList<>(List.of("v1"));
+                })));
+            }
+
+            loading.await(5, TimeUnit.SECONDS);
+            while (underTestCache.getMisses() < nCallers)
+                Thread.sleep(5);
+            release.countDown();
+
+            List<String> first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<List<String>> result : results)
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAll(
+                () -> assertEquals(1, loads.get()),
+                () -> assertSame(underTestCache.get("employees", key -> fail("cached value expected")),
+                        results.get(0).get())
+        );
+
+        // 2 : async misses share one load as well
+        StaleWhileRevalidateCache<String, String> asyncCache = new StaleWhileRevalidateCache<>("async",
+                Duration.ofHours(1), Duration.ofHours(1), Runnable::run);
+        CompletableFuture<String> upstreamCall = new CompletableFuture<>();
+        AtomicInteger asyncLoads = new AtomicInteger();
+        CompletableFuture<String> result1 = asyncCache.getAsync("employees", key -> { asyncLoads.incrementAndGet(); return upstreamCall; });
+        CompletableFuture<String> result2 = asyncCache.getAsync("employees", key -> { asyncLoads.incrementAndGet(); return upstreamCall; });
+        upstreamCall.complete("v1");
+
+        assertAll(
+                () -> assertEquals("v1", result1.join()),
+                () -> assertEquals("v1", result2.join()),
+                () -> assertEquals(1, asyncLoads.get()),
+                () -> assertEquals("v1", asyncCache.getIfLoadedAsync("employees", key -> fail("cached value expected")))
+        );
+    }
+
+    @Test
+    void getIfLoaded() throws InterruptedException {
+
+        // Refreshes run on the caller thread : a started refresh has completed when getIfLoaded returns
+        StaleWhileRevalidateCache<String, String> underTestCache = new StaleWhileRevalidateCache<>("test",
+                Duration.ofMillis(50), Duration.ofHours(1), Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+
+        // 1 : not cached, nothing is loaded
+        assertAll(
+                () -> assertNull(underTestCache.getIfLoaded("employees", key -> "v" + loads.incrementAndGet())),
+                () -> assertEquals(0, loads.get())
+        );
+
+        // 2 : fresh value is served as is
+        underTestCache.put("employees", "v0");
+
+        assertAll(
+                () -> assertEquals("v0", underTestCache.getIfLoaded("employees", key -> "v" + loads.incrementAndGet())),
+                () -> assertEquals(0, loads.get()),
+                () -> assertEquals(1, underTestCache.getHits())
+        );
+
+        // 3 : past the ttl, the stale value is served and a refresh is started
+        Thread.sleep(60);
+
+        assertAll(
+                () -> assertEquals("v0", underTestCache.getIfLoaded("employees", key -> "v" + loads.incrementAndGet())),
+                () -> assertEquals(1, loads.get()),
+                () -> assertEquals(1, underTestCache.getStaleHits()),
+                () -> assertEquals("v1", underTestCache.getIfLoaded("employees", key -> "v" + loads.incrementAndGet()))
+        );
+
+        // 4 : past max-stale, nothing is served (get loads it)
+        StaleWhileRevalidateCache<String, String> expiredCache = new StaleWhileRevalidateCache<>("expired",
+                Duration.ZERO, Duration.ZERO, Runnable::run);
+        expiredCache.put("employees", "v0");
+
+        assertAll(
+                () -> assertNull(expiredCache.getIfLoaded("employees", key -> "v" + loads.incrementAndGet())),
+                () -> assertEquals(1, loads.get()),
+                () -> assertEquals("v2", expiredCache.get("employees", key -> "v" + loads.incrementAndGet())),
+                () -> assertEquals(1, expiredCache.getMisses())
+        );
+    }
+
+    @Test
+    void getIfLoadedAsync() throws InterruptedException {
+
+        StaleWhileRevalidateCache<String, String> underTestCache = new StaleWhileRevalidateCache<>("test",
+                Duration.ofMillis(50), Duration.ofHours(1), Runnable::run);
+        CompletableFuture<String> refresh = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+        underTestCache.put("employees", "v0");
+
+        // 1 : past the ttl, the stale value is served and one refresh is started (not a second one while in flight)
+        Thread.sleep(60);
+
+        assertAll(
+                () -> assertEquals("v0", underTestCache.getIfLoadedAsync("employees", key -> { loads.incrementAndGet(); return refresh; })),
+                () -> assertEquals("v0", underTestCache.getIfLoadedAsync("employees", key -> { loads.incrementAndGet(); return refresh; })),
+                () -> assertEquals(1, loads.get())
+        );
+
+        // 2 : the refreshed value is served once loaded
+        refresh.complete("v1");
+
+        assertEquals("v1", underTestCache.getIfLoadedAsync("employees", key -> CompletableFuture.completedFuture("other")));
+    }
+}
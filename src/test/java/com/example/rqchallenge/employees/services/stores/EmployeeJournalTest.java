@@ -0,0 +1,162 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private EmployeeJournal newJournal(int compactThreshold) {
+        return new EmployeeJournal(tempDir, Duration.ZERO, compactThreshold, new ObjectMapper());
+    }
+
+    private static EmployeeStore seededStore() {
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+
+        return new EmployeeStore(employees);
+    }
+
+    @Test
+    void replayAfterRestart() throws IOException {
+
+        // 1 : first start, the seeded records are written as the first snapshot
+        EmployeeJournal journal1 = newJournal(1000);
+        EmployeeStore store1 = seededStore();
+        journal1.open(store1);
+
+        assertTrue(journal1.hasSnapshot());
+
+        // 2 : creates/deletes are logged and replayed on the next start (snapshot + log)
+        EmployeeDto created = new EmployeeDto("3", "Ashton Cox", "86000", "66", "");
+        store1.put(created);
+        journal1.appendPut(created);
+        store1.remove("1");
+        journal1.appendDelete(1);
+        journal1.close();
+
+        EmployeeJournal journal2 = newJournal(1000);
+        EmployeeStore store2 = new EmployeeStore();
+        int replayed2 = journal2.open(store2);
+
+        assertAll(
+                () -> assertEquals(2, replayed2),
+                () -> assertEquals(2, store2.size()),
+                () -> assertNull(store2.getEmployeeById("1")),
+                () -> assertEquals("86000", store2.getEmployeeById("3").getSalary()),
+                () -> assertEquals(store1.getVersion(), store2.getVersion())
+        );
+
+        // 3 : a torn record at the end of the log (crash while appending) is cut off
+        journal2.close();
+        Files.write(tempDir.resolve("journal.log"), new byte[] { 0, 0, 0, 42, 1, 2 }, StandardOpenOption.APPEND);
+
+        EmployeeJournal journal3 = newJournal(1000);
+        EmployeeStore store3 = new EmployeeStore();
+        int replayed3 = journal3.open(store3);
+        EmployeeDto createdAfterCrash = new EmployeeDto("4", "Cedric Kelly", "433060", "22", "");
+        journal3.appendPut(createdAfterCrash);
+        journal3.close();
+
+        EmployeeStore store4 = new EmployeeStore();
+        newJournal(1000).open(store4);
+
+        assertAll(
+                () -> assertEquals(2, replayed3),
+                () -> assertEquals(3, store4.size()),
+                () -> assertNotNull(store4.getEmployeeById("4"))
+        );
+    }
+
+    @Test
+    void compaction() throws Exception {
+
+        EmployeeJournal journal = newJournal(2);
+        EmployeeStore store = seededStore();
+        journal.open(store);
+
+        // 1 : the log is truncated once compact-threshold writes are logged
+        for (int i = 3; i <= 4; i++) {
+            EmployeeDto created = new EmployeeDto(String.valueOf(i), "Name " + i, "1000", "30", "");
+            store.put(created);
+            journal.appendPut(created);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((journal.getLoggedRecords() > 0) && (System.currentTimeMillis() < deadline))
+            Thread.sleep(10);
+        journal.close();
+
+        EmployeeStore reloadedStore = new EmployeeStore();
+        int replayed = newJournal(2).open(reloadedStore);
+
+        assertAll(
+                () -> assertEquals(2, journal.getCompactions()),
+                () -> assertEquals(0, Files.size(tempDir.resolve("journal.log"))),
+                () -> assertEquals(0, replayed),
+                () -> assertEquals(4, reloadedStore.size())
+        );
+
+        // 2 : records appended while a compaction writes the snapshot are kept (log rotated, not truncated)
+        EmployeeJournal journal2 = newJournal(1000);
+        EmployeeStore store2 = new EmployeeStore();
+        journal2.open(store2);
+        Thread writer = new Thread(() -> {
+            for (int i = 5; i <= 2000; i++) {
+                EmployeeDto created = new EmployeeDto(String.valueOf(i), "Name " + i, "1000", "30", "");
+                store2.put(created);
+                journal2.appendPut(created);
+                if (i % 3 == 0) {
+                    store2.remove(i - 1);
+                    journal2.appendDelete(i - 1);
+                }
+            }
+        });
+        writer.start();
+        for (int i = 0; i < 20; i++)
+            journal2.compact();
+        writer.join();
+        journal2.close();
+
+        EmployeeStore reloadedStore2 = new EmployeeStore();
+        newJournal(1000).open(reloadedStore2);
+
+        assertAll(
+                () -> assertEquals(store2.size(), reloadedStore2.size()),
+                () -> assertEquals(store2.getAllEmployees().toString(), reloadedStore2.getAllEmployees().toString())
+        );
+
+        // 3 : records created locally are still local after a compaction and a restart
+        EmployeeJournal journal3 = newJournal(1000);
+        EmployeeStore store3 = new EmployeeStore();
+        journal3.open(store3);
+        EmployeeDto createdLocally = new EmployeeDto("3000", "Airi Satou", "162700", "33", "");
+        store3.putLocal(createdLocally);
+        journal3.appendPutLocal(createdLocally);
+        journal3.compact();
+        journal3.close();
+
+        EmployeeStore reloadedStore3 = new EmployeeStore();
+        newJournal(1000).open(reloadedStore3);
+
+        assertAll(
+                () -> assertEquals(store3.size(), reloadedStore3.size()),
+                () -> assertTrue(reloadedStore3.isLocal(3000)),
+                () -> assertFalse(reloadedStore3.isLocal(2000))
+        );
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void writeRead() throws IOException {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Zo\u00eb \u00dcnal", "", "63", null));
+        employees.add(new EmployeeDto("03", null, "12a", "", "image.png"));
+        Path snapshotFile = tempDir.resolve("snapshot.bin");
+
+        // 1 : records are read back as written (order, unset/invalid numbers, null and non-ASCII strings)
+        EmployeeSnapshot.write(snapshotFile, employees);
+        List<EmployeeDto> actual1 = EmployeeSnapshot.read(snapshotFile);
+
+        assertAll(
+                () -> assertEquals(3, actual1.size()),
+                () -> assertEquals("320800", actual1.get(0).getSalary()),
+                () -> assertEquals("Zo\u00eb \u00dcnal", actual1.get(1).getName()),
+                () -> assertEquals(EmployeeDto.NOT_SET, actual1.get(1).getSalaryValue()),
+                () -> assertNull(actual1.get(1).getImage()),
+                () -> assertNull(actual1.get(2).getName()),
+                () -> assertEquals(EmployeeDto.NOT_A_NUMBER, actual1.get(2).getSalaryValue()),
+                () -> assertEquals("12a", actual1.get(2).getSalary()),
+                () -> assertEquals("03", actual1.get(2).getId()),
+                () -> assertEquals(3L, actual1.get(2).getIdValue()),
+                () -> assertEquals("image.png", actual1.get(2).getImage())
+        );
+
+        // 2 : truncated or foreign files are rejected
+        byte[] snapshot = Files.readAllBytes(snapshotFile);
+        Files.write(snapshotFile, Arrays.copyOf(snapshot, snapshot.length - 3));
+        Path jsonFile = tempDir.resolve("employees.json");
+        Files.write(jsonFile, "[{\"id\":\"1\"}]".getBytes());
+
+        assertAll(
+                () -> assertThrows(IOException.class, () -> EmployeeSnapshot.read(snapshotFile)),
+                () -> assertThrows(IOException.class, () -> EmployeeSnapshot.read(jsonFile))
+        );
+    }
+}
@@ -0,0 +1,411 @@
+package com.example.rqchallenge.employees.services.stores;
+
+import com.example.rqchallenge.employees.dtos.EmployeeDto;
+import com.example.rqchallenge.employees.dtos.EmployeeStatsDto;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmployeeStoreTest {
+
+    @Test
+    void putGetRemove() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+
+        // 1 : lookup by id
+        assertAll(
+                () -> assertEquals(2, underTestStore.size()),
+                () -> assertEquals("Tiger Nixon", underTestStore.getEmployeeById("1").getName()),
+                () -> assertNull(underTestStore.getEmployeeById("3"))
+        );
+
+        // 2 : replacing a record keeps its position
+        underTestStore.put(new EmployeeDto("1", "Tiger", "320800", "61", ""));
+
+        assertAll(
+                () -> assertEquals(2, underTestStore.size()),
+                () -> assertEquals("Tiger", underTestStore.getAllEmployees().get(0).getName())
+        );
+
+        // 3 : remove
+        EmployeeDto removed = underTestStore.remove("1");
+
+        assertAll(
+                () -> assertNotNull(removed),
+                () -> assertNull(underTestStore.getEmployeeById("1")),
+                () -> assertEquals(1, underTestStore.getAllEmployees().size()),
+                () -> assertNull(underTestStore.remove("1"))
+        );
+
+        // 4 : records without a (numeric) id are skipped on load and rejected by put
+        List<EmployeeDto> withoutIds = new ArrayList<>(employees);
+        withoutIds.add(new EmployeeDto("", "Ashton Cox", "86000", "66", ""));
+        withoutIds.add(new EmployeeDto("4a", "Cedric Kelly", "433060", "22", ""));
+        EmployeeStore loadedStore = new EmployeeStore(withoutIds);
+
+        assertAll(
+                () -> assertEquals(2, loadedStore.size()),
+                () -> assertTrue(loadedStore.reconcile(withoutIds).isEmpty()),
+                () -> assertThrows(IllegalArgumentException.class, () -> loadedStore.put(new EmployeeDto("", "Airi Satou", "162700", "33", "")))
+        );
+    }
+
+    @Test
+    void salaryIndex() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "32800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        employees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        employees.add(new EmployeeDto("4", "Cedric Kelly", "", "22", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+
+        // 1 : highest salary and top earners (missing salary ranked lowest)
+        assertAll(
+                () -> assertEquals("170750", underTestStore.getHighestEarningEmployee().getSalary()),
+                () -> assertEquals(2, underTestStore.getTopEarningEmployees(2).size()),
+                () -> assertEquals("86000", underTestStore.getTopEarningEmployees(2).get(1).getSalary()),
+                () -> assertEquals(4, underTestStore.getTopEarningEmployees(10).size()),
+                () -> assertEquals("4", underTestStore.getEmployeesBySalary(false).get(0).getId())
+        );
+
+        // 2 : index is maintained on create/replace/delete
+        underTestStore.put(new EmployeeDto("5", "Airi Satou", "999999", "33", ""));
+        underTestStore.put(new EmployeeDto("3", "Ashton Cox", "1", "66", ""));
+
+        assertAll(
+                () -> assertEquals("5", underTestStore.getHighestEarningEmployee().getId()),
+                () -> assertEquals("1", underTestStore.getTopEarningEmployees(3).get(2).getId())
+        );
+
+        underTestStore.remove("5");
+
+        assertEquals("2", underTestStore.getHighestEarningEmployee().getId());
+    }
+
+    @Test
+    void searchByName() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        employees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+
+        // 1 : substring search (trigrams), case insensitive, insertion order
+        assertAll(
+                () -> assertEquals(1, underTestStore.searchByName("nix").size()),
+                () -> assertEquals("1", underTestStore.searchByName("TIGER N").get(0).getId()),
+                () -> assertEquals(1, underTestStore.searchByName("ters").size()),
+                () -> assertTrue(underTestStore.searchByName("xyz").isEmpty()),
+                // only some of the trigrams are indexed
+                () -> assertTrue(underTestStore.searchByName("tigton").isEmpty())
+        );
+
+        // 2 : short search strings, empty search string matches all
+        assertAll(
+                () -> assertEquals(2, underTestStore.searchByName("x").size()),
+                () -> assertEquals("3", underTestStore.searchByName("on").get(1).getId()),
+                () -> assertEquals(3, underTestStore.searchByName("").size())
+        );
+
+        // 3 : index is maintained on create/replace/delete
+        underTestStore.put(new EmployeeDto("4", "Nixie Tiger", "1", "1", ""));
+        underTestStore.put(new EmployeeDto("1", "Airi Satou", "320800", "61", ""));
+        underTestStore.remove("3");
+
+        assertAll(
+                () -> assertEquals(1, underTestStore.searchByName("nix").size()),
+                () -> assertEquals("4", underTestStore.searchByName("nix").get(0).getId()),
+                () -> assertTrue(underTestStore.searchByName("ashton").isEmpty()),
+                () -> assertEquals(1, underTestStore.searchByName("satou").size())
+        );
+
+        // 4 : a name repeating a trigram is counted once in its posting (removed with the record)
+        underTestStore.put(new EmployeeDto("5", "Ana Anana", "1", "1", ""));
+        underTestStore.remove("5");
+
+        assertAll(
+                () -> assertTrue(underTestStore.searchByName("ana").isEmpty()),
+                () -> assertEquals(1, underTestStore.searchByName("tou").size())
+        );
+    }
+
+    @Test
+    void pages() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        employees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        employees.add(new EmployeeDto("4", "Cedric Kelly", "433060", "22", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+
+        // 1 : pages follow the insertion order, the last page has no next page
+        EmployeeStore.Page page1 = underTestStore.getPage(-1, 3);
+        EmployeeStore.Page page2 = underTestStore.getPage(page1.getLastSequence(), 3);
+
+        assertAll(
+                () -> assertEquals(3, page1.getEmployees().size()),
+                () -> assertTrue(page1.hasMore()),
+                () -> assertEquals(1, page2.getEmployees().size()),
+                () -> assertEquals("4", page2.getEmployees().get(0).getId()),
+                () -> assertFalse(page2.hasMore())
+        );
+
+        // 2 : removing a record of a previous page does not shift the next one
+        underTestStore.remove("1");
+        EmployeeStore.Page page3 = underTestStore.getPage(page1.getLastSequence(), 3);
+
+        assertAll(
+                () -> assertEquals("4", page3.getEmployees().get(0).getId()),
+                () -> assertEquals(page1.getLastSequence(), underTestStore.getSequence("3")),
+                () -> assertEquals(-1, underTestStore.getSequence("1"))
+        );
+
+        // 3 : name search pages (trigram and short search strings)
+        EmployeeStore.Page page4 = underTestStore.searchByName("e", -1, 1);
+        EmployeeStore.Page page5 = underTestStore.searchByName("e", page4.getLastSequence(), 1);
+        EmployeeStore.Page page6 = underTestStore.searchByName("ell", -1, 1);
+
+        assertAll(
+                () -> assertEquals("2", page4.getEmployees().get(0).getId()),
+                () -> assertTrue(page4.hasMore()),
+                () -> assertEquals("4", page5.getEmployees().get(0).getId()),
+                () -> assertFalse(page5.hasMore()),
+                () -> assertEquals("4", page6.getEmployees().get(0).getId()),
+                () -> assertFalse(page6.hasMore())
+        );
+    }
+
+    @Test
+    void version() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+        long version1 = underTestStore.getVersion();
+
+        // 1 : same records in the same order give the same version, any other order does not
+        List<EmployeeDto> reversed = new ArrayList<>(employees);
+        Collections.reverse(reversed);
+
+        assertAll(
+                () -> assertEquals(version1, new EmployeeStore(employees).getVersion()),
+                () -> assertNotEquals(version1, new EmployeeStore(reversed).getVersion())
+        );
+
+        // 2 : create/replace/delete change the version, undoing them restores it
+        underTestStore.put(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        long version2 = underTestStore.getVersion();
+        underTestStore.put(new EmployeeDto("1", "Tiger Nixon", "320801", "61", ""));
+        long version3 = underTestStore.getVersion();
+        underTestStore.put(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        underTestStore.remove("3");
+
+        assertAll(
+                () -> assertNotEquals(version1, version2),
+                () -> assertNotEquals(version2, version3),
+                () -> assertEquals(version1, underTestStore.getVersion())
+        );
+
+        // 3 : a rebuilt store with the same records keeps the previous Last-Modified
+        EmployeeStore refreshedStore = new EmployeeStore(employees);
+        refreshedStore.keepLastModified(underTestStore);
+
+        assertTrue(refreshedStore.getLastModified() <= underTestStore.getLastModified());
+    }
+
+    @Test
+    void reconcile() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        employees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+        long version1 = underTestStore.getVersion();
+
+        // 1 : same records, nothing is written
+        EmployeeStore.Delta unchanged = underTestStore.reconcile(employees);
+
+        assertAll(
+                () -> assertTrue(unchanged.isEmpty()),
+                () -> assertEquals(version1, underTestStore.getVersion())
+        );
+
+        // 2 : added, changed and removed records are applied (indexes included)
+        List<EmployeeDto> upstreamEmployees = new ArrayList<>();
+        upstreamEmployees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        upstreamEmployees.add(new EmployeeDto("2", "Garrett Winters", "570750", "63", ""));
+        upstreamEmployees.add(new EmployeeDto("4", "Cedric Kelly", "433060", "22", ""));
+        EmployeeStore.Delta delta = underTestStore.reconcile(upstreamEmployees);
+
+        assertAll(
+                () -> assertEquals("4", delta.getAdded().get(0).getId()),
+                () -> assertEquals("2", delta.getChanged().get(0).getId()),
+                () -> assertEquals("3", delta.getRemoved().get(0).getId()),
+                () -> assertEquals("Delta{added=1, changed=1, removed=1}", delta.toString()),
+                () -> assertEquals(3, underTestStore.size()),
+                () -> assertEquals("2", underTestStore.getHighestEarningEmployee().getId()),
+                () -> assertTrue(underTestStore.searchByName("Cox").isEmpty()),
+                () -> assertEquals("4", underTestStore.searchByName("Kelly").get(0).getId())
+        );
+
+        // 3 : the version follows the applied records
+        assertNotEquals(version1, underTestStore.getVersion());
+
+        // 4 : records created locally and ids with a pending write are not removed, a listed record is of the external API
+        underTestStore.putLocal(new EmployeeDto("5", "Airi Satou", "162700", "33", ""));
+        underTestStore.putLocal(new EmployeeDto("6", "Brielle Williamson", "372000", "61", ""));
+        List<EmployeeDto> upstreamEmployees4 = new ArrayList<>(upstreamEmployees);
+        upstreamEmployees4.remove(2);
+        upstreamEmployees4.add(new EmployeeDto("6", "Brielle Williamson", "372000", "61", ""));
+        upstreamEmployees4.add(new EmployeeDto("7", "Herrod Chandler", "137500", "59", ""));
+        EmployeeStore.Delta delta4 = underTestStore.reconcile(upstreamEmployees4, Set.of("4", "7"));
+
+        assertAll(
+                () -> assertTrue(delta4.isEmpty()),
+                () -> assertEquals(5, underTestStore.size()),
+                () -> assertTrue(underTestStore.isLocal(5)),
+                () -> assertFalse(underTestStore.isLocal(6)),
+                () -> assertNull(underTestStore.getEmployeeById("7"))
+        );
+
+        // 5 : once the writes are sent, the next round applies them
+        EmployeeStore.Delta delta5 = underTestStore.reconcile(upstreamEmployees4);
+
+        assertAll(
+                () -> assertEquals("7", delta5.getAdded().get(0).getId()),
+                () -> assertEquals("4", delta5.getRemoved().get(0).getId()),
+                () -> assertEquals("Airi Satou", underTestStore.getEmployeeById("5").getName())
+        );
+    }
+
+    @Test
+    void statistics() {
+
+        List<EmployeeDto> employees = new ArrayList<>();
+        employees.add(new EmployeeDto("1", "Tiger Nixon", "320800", "61", ""));
+        employees.add(new EmployeeDto("2", "Garrett Winters", "170750", "63", ""));
+        employees.add(new EmployeeDto("3", "Ashton Cox", "86000", "66", ""));
+        employees.add(new EmployeeDto("4", "Cedric Kelly", "433060", "22", ""));
+        employees.add(new EmployeeDto("5", "Airi Satou", "", "", ""));
+        EmployeeStore underTestStore = new EmployeeStore(employees);
+
+        // 1 : aggregates of the records with a value, percentiles by nearest rank
+        EmployeeStatsDto actual1 = underTestStore.getStatistics(100_000, 10);
+
+        assertAll(
+                () -> assertEquals(5, actual1.getEmployees()),
+                () -> assertEquals(4, actual1.getSalary().getCount()),
+                () -> assertEquals(86000L, actual1.getSalary().getMin()),
+                () -> assertEquals(433060L, actual1.getSalary().getMax()),
+                () -> assertEquals(252652.5, actual1.getSalary().getAverage()),
+                () -> assertEquals(170750L, actual1.getSalary().getMedian()),
+                () -> assertEquals(433060L, actual1.getSalary().getPercentiles().get("p99")),
+                () -> assertEquals(4, actual1.getSalary().getHistogram().size()),
+                () -> assertEquals(100_000, actual1.getSalary().getHistogram().get(1).getFrom()),
+                () -> assertEquals(200_000, actual1.getSalary().getHistogram().get(1).getTo()),
+                () -> assertEquals(1, actual1.getSalary().getHistogram().get(1).getCount()),
+                () -> assertEquals(400_000, actual1.getSalary().getHistogram().get(3).getFrom()),
+                () -> assertEquals(22L, actual1.getAge().getMin()),
+                () -> assertEquals(61L, actual1.getAge().getMedian()),
+                () -> assertEquals(2, actual1.getAge().getHistogram().size())
+        );
+
+        // 2 : same result until the records change, replaced and removed records are no longer counted
+        assertSame(actual1, underTestStore.getStatistics(100_000, 10));
+        underTestStore.put(new EmployeeDto("4", "Cedric Kelly", "90000", "22", ""));
+        underTestStore.remove("1");
+        EmployeeStatsDto actual2 = underTestStore.getStatistics(100_000, 10);
+
+        assertAll(
+                () -> assertEquals(4, actual2.getEmployees()),
+                () -> assertEquals(3, actual2.getSalary().getCount()),
+                () -> assertEquals(170750L, actual2.getSalary().getMax()),
+                () -> assertEquals(90000L, actual2.getSalary().getMedian()),
+                () -> assertEquals(2, actual2.getSalary().getHistogram().get(0).getCount())
+        );
+
+        // 3 : no records
+        EmployeeStatsDto actual3 = new EmployeeStore().getStatistics(100_000, 10);
+
+        assertAll(
+                () -> assertEquals(0, actual3.getSalary().getCount()),
+                () -> assertNull(actual3.getSalary().getMedian()),
+                () -> assertTrue(actual3.getAge().getHistogram().isEmpty())
+        );
+
+        // 4 : many salary buckets (bucket counts in a tree), percentiles follow the records left after removals
+        EmployeeStore manyStore = new EmployeeStore();
+        List<Long> salaries = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            long salary = ((i * 7919L) % 2000) * 1000 + (i % 7);
+            manyStore.put(new EmployeeDto(String.valueOf(i), "Name " + i, String.valueOf(salary), "30", ""));
+            if (i % 3 == 0)
+                manyStore.remove(i);
+            else
+                salaries.add(salary);
+        }
+        Collections.sort(salaries);
+        EmployeeStatsDto actual4 = manyStore.getStatistics(100_000, 10);
+
+        for (int percentile : ValueDistribution.PERCENTILES) {
+            long expected = salaries.get((int) Math.max(1, (salaries.size() * percentile + 99) / 100) - 1);
+            assertEquals(expected, actual4.getSalary().getPercentiles().get("p" + percentile), "p" + percentile);
+        }
+        assertEquals(20, actual4.getSalary().getHistogram().size());
+    }
+
+    @Test
+    void concurrentWrites() throws Exception {
+
+        EmployeeStore underTestStore = new EmployeeStore();
+        int nWriters = 4, nRecords = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(nWriters + 1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int writer = 0; writer < nWriters; writer++) {
+                int firstId = writer * nRecords;
+                futures.add(executor.submit(() -> {
+                    for (int id = firstId; id < firstId + nRecords; id++) {
+                        underTestStore.put(new EmployeeDto(String.valueOf(id), "name", "1", "1", ""));
+                        if (id % 2 == 0)
+                            underTestStore.remove(String.valueOf(id));
+                    }
+                }));
+            }
+            // Iterating while writing must not throw ConcurrentModificationException
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 100; i++)
+                    underTestStore.values().forEach(EmployeeDto::getId);
+            }));
+
+            for (Future<?> future : futures)
+                future.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAll(
+                () -> assertEquals(nWriters * nRecords / 2, underTestStore.size()),
+                () -> assertEquals(nWriters * nRecords / 2, underTestStore.getAllEmployees().size())
+        );
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.rqchallenge.employees.services.upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamCircuitBreakerTest {
+
+    @Test
+    void opensOnFailureRate() {
+
+        // 1 : stays closed until minimum-calls are recorded
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(4, 4, 50, Duration.ofHours(1), 1);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+
+        assertAll(
+                () -> assertEquals(UpstreamCircuitBreaker.State.CLOSED, circuitBreaker.getState()),
+                () -> assertEquals(-1, circuitBreaker.getFailureRate())
+        );
+
+        // 2 : opens once the failure rate of the window reaches the threshold, then rejects calls
+        circuitBreaker.onSuccess();
+
+        assertAll(
+                () -> assertEquals(UpstreamCircuitBreaker.State.OPEN, circuitBreaker.getState()),
+                () -> assertFalse(circuitBreaker.tryAcquirePermission()),
+                () -> assertEquals(1, circuitBreaker.getRejected()),
+                () -> assertEquals(1, circuitBreaker.getOpened())
+        );
+    }
+
+    @Test
+    void slidingWindow() {
+
+        // 1 : old failures leave the window
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(4, 4, 75, Duration.ofHours(1), 1);
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        assertAll(
+                () -> assertEquals(UpstreamCircuitBreaker.State.CLOSED, circuitBreaker.getState()),
+                () -> assertEquals(25.0f, circuitBreaker.getFailureRate()),
+                () -> assertEquals(4, circuitBreaker.getBufferedCalls())
+        );
+    }
+
+    @Test
+    void halfOpenProbes() {
+
+        // 1 : after open-duration a single probe is let through
+        UpstreamCircuitBreaker circuitBreaker = new UpstreamCircuitBreaker(2, 1, 50, Duration.ZERO, 1);
+        circuitBreaker.onFailure();
+
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertAll(
+                () -> assertEquals(UpstreamCircuitBreaker.State.HALF_OPEN, circuitBreaker.getState()),
+                () -> assertFalse(circuitBreaker.tryAcquirePermission())
+        );
+
+        // 2 : a failed probe opens the circuit again
+        circuitBreaker.onFailure();
+        assertEquals(UpstreamCircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        // 3 : a successful probe closes it
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess();
+
+        assertAll(
+                () -> assertEquals(UpstreamCircuitBreaker.State.CLOSED, circuitBreaker.getState()),
+                () -> assertEquals(0, circuitBreaker.getBufferedCalls())
+        );
+    }
+}
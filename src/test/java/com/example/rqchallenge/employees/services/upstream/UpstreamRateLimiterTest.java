@@ -0,0 +1,78 @@
+package com.example.rqchallenge.employees.services.upstream;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpstreamRateLimiterTest {
+
+    @Test
+    void tryAcquire() throws Exception {
+
+        // 1 : bucket starts full, reads are diverted once it is empty
+        UpstreamRateLimiter rateLimiter1 = new UpstreamRateLimiter(2, Duration.ofHours(1), Duration.ZERO);
+
+        assertAll(
+                () -> assertTrue(rateLimiter1.tryAcquire(UpstreamRateLimiter.Priority.READ)),
+                () -> assertTrue(rateLimiter1.tryAcquire(UpstreamRateLimiter.Priority.READ)),
+                () -> assertFalse(rateLimiter1.tryAcquire(UpstreamRateLimiter.Priority.READ)),
+                () -> assertFalse(rateLimiter1.tryAcquire(UpstreamRateLimiter.Priority.WRITE)),
+                () -> assertEquals(2, rateLimiter1.getDiverted())
+        );
+
+        // 2 : a write waits for the next token, reads are diverted while it waits
+        UpstreamRateLimiter rateLimiter2 = new UpstreamRateLimiter(1, Duration.ofMillis(300), Duration.ofSeconds(5));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            assertTrue(rateLimiter2.tryAcquire(UpstreamRateLimiter.Priority.READ));
+            Future<Boolean> write = executor.submit(() -> rateLimiter2.tryAcquire(UpstreamRateLimiter.Priority.WRITE));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while ((rateLimiter2.getWaitingWrites() == 0) && (System.nanoTime() < deadline))
+                Thread.sleep(5);
+
+            assertFalse(rateLimiter2.tryAcquire(UpstreamRateLimiter.Priority.READ));
+            assertTrue(write.get(5, TimeUnit.SECONDS));
+            assertAll(
+                    () -> assertEquals(1, rateLimiter2.getQueued()),
+                    () -> assertEquals(1, rateLimiter2.getDiverted())
+            );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void onTooManyRequests() {
+
+        // 1 : no token is granted before Retry-After has passed
+        UpstreamRateLimiter rateLimiter = new UpstreamRateLimiter(10, Duration.ofSeconds(1), Duration.ZERO);
+        rateLimiter.onTooManyRequests(Duration.ofMinutes(1));
+
+        assertAll(
+                () -> assertFalse(rateLimiter.tryAcquire(UpstreamRateLimiter.Priority.READ)),
+                () -> assertEquals(0, rateLimiter.getAvailableTokens()),
+                () -> assertEquals(1, rateLimiter.getThrottled())
+        );
+    }
+
+    @Test
+    void parseRetryAfter() {
+
+        Duration defaultDelay = Duration.ofSeconds(60);
+
+        assertAll(
+                () -> assertEquals(Duration.ofSeconds(120), UpstreamRateLimiter.parseRetryAfter("120", defaultDelay)),
+                () -> assertEquals(defaultDelay, UpstreamRateLimiter.parseRetryAfter(null, defaultDelay)),
+                () -> assertEquals(defaultDelay, UpstreamRateLimiter.parseRetryAfter("soon", defaultDelay)),
+                () -> assertEquals(Duration.ZERO, UpstreamRateLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT", defaultDelay))
+        );
+    }
+}